@@ -0,0 +1,76 @@
+package com.flamewall.benchmarks;
+
+import com.flamewall.proxybridge.manager.DatabaseManager;
+import com.flamewall.proxybridge.storage.EventQueueStore;
+import com.flamewall.proxybridge.storage.SegmentJournalStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventQueueStoreBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"sqlite", "journal"})
+    public String engine;
+
+    @Param({"256", "2048"})
+    public int payloadBytes;
+
+    private Path directory;
+    private EventQueueStore store;
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("flamewall-queue-bench");
+        store = "journal".equals(engine)
+                ? new SegmentJournalStore(directory, NOPLogger.NOP_LOGGER, 16 * 1024 * 1024, 50, true)
+                : new DatabaseManager(directory, NOPLogger.NOP_LOGGER);
+        StringBuilder builder = new StringBuilder("{\"eventType\":\"PLAYER_CHAT\",\"payload\":\"");
+        while (builder.length() < payloadBytes - 2) {
+            builder.append('x');
+        }
+        payload = builder.append("\"}").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        store.queueEvent(payload);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void appendThenDrain(Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            store.queueEvent(payload);
+        }
+        Map<Long, String> queued = store.getQueuedEvents(BATCH_SIZE);
+        queued.values().forEach(blackhole::consume);
+        store.deleteEvents(new ArrayList<>(queued.keySet()));
+    }
+}
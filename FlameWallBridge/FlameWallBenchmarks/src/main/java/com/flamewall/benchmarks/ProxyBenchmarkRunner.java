@@ -0,0 +1,20 @@
+package com.flamewall.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Usage: java -cp benchmarks.jar com.flamewall.benchmarks.ProxyBenchmarkRunner [player counts...]
+public class ProxyBenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(ProxyHotPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class);
+        if (args.length > 0) {
+            options.param("players", args);
+        }
+        new Runner(options.build()).run();
+    }
+}
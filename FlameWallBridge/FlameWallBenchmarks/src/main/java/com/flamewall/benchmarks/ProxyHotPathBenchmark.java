@@ -0,0 +1,207 @@
+package com.flamewall.benchmarks;
+
+import com.flamewall.loadtest.FakeProxyServer;
+import com.flamewall.loadtest.StubBackend;
+import com.flamewall.proxybridge.FlameWallProxyBridge;
+import com.flamewall.proxybridge.manager.GlobalChatManager;
+import com.flamewall.proxybridge.manager.ShopCommandBundler;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
+import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import io.socket.emitter.Emitter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The proxy's hot paths against a fake ProxyServer: plugin-message decoding in onPluginMessage, the
+ * incomingFriendRequest and globalMessageToGame socket handlers, and shop command routing.
+ * Run through {@link ProxyBenchmarkRunner} to get allocation rates from the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyHotPathBenchmark {
+    private static final ChannelIdentifier CHANNEL = MinecraftChannelIdentifier.create("flamewall", "main");
+    private static final int SERVERS = 4;
+    private static final int SHOP_BATCH = 100;
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"100", "1000", "5000"})
+    public int players;
+
+    private Path dataDirectory;
+    private ScheduledExecutorService scheduler;
+    private StubBackend backend;
+    private FlameWallProxyBridge plugin;
+    private Emitter socketEvents;
+    private GlobalChatManager globalChat;
+    private List<Player> onlinePlayers;
+    private PluginMessageEvent duplicateGameEvent;
+    private PluginMessageEvent[] rankSyncEvents;
+    private JSONObject[] friendRequests;
+    private String[] shopCommands;
+    private int cursor;
+    private int messageId;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dataDirectory = Files.createTempDirectory("flamewall-proxy-bench");
+        scheduler = Executors.newScheduledThreadPool(2, StubBackend.daemonThreads("BenchScheduler"));
+        backend = new StubBackend(0, "bench");
+        writeConfig(backend.getBaseUrl());
+
+        FakeProxyServer fake = new FakeProxyServer(scheduler);
+        onlinePlayers = new ArrayList<>(players);
+        for (int s = 0; s < SERVERS; s++) {
+            RegisteredServer server = fake.addServer("server-" + s);
+            for (int p = s; p < players; p += SERVERS) {
+                onlinePlayers.add(fake.addPlayer("Player_" + p, UUID.randomUUID(), server));
+            }
+        }
+        plugin = new FlameWallProxyBridge(fake.getProxy(), NOPLogger.NOP_LOGGER, dataDirectory);
+        plugin.onProxyInitialization(new ProxyInitializeEvent());
+        socketEvents = new Emitter();
+        plugin.registerSocketHandlers(socketEvents);
+        globalChat = plugin.getGlobalChatManager();
+
+        Random random = new Random(42);
+        Player source = onlinePlayers.get(0);
+        // Delivered once here, so every measured call is decoded, parsed and then dropped by the dedup check
+        // instead of going out over HTTP.
+        duplicateGameEvent = pluginMessage(source, "GameEvent", gameEventBatch(source).toString());
+        plugin.onPluginMessage(duplicateGameEvent);
+
+        rankSyncEvents = new PluginMessageEvent[POOL_SIZE];
+        friendRequests = new JSONObject[POOL_SIZE];
+        shopCommands = new String[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Player player = onlinePlayers.get(random.nextInt(onlinePlayers.size()));
+            rankSyncEvents[i] = pluginMessage(player, "RankSync", new JSONObject()
+                    .put("minecraftUuid", player.getUniqueId().toString())
+                    .put("newRankSystemName", "rank-" + (i % 5))
+                    .toString());
+            friendRequests[i] = new JSONObject()
+                    .put("receiverUuid", player.getUniqueId().toString())
+                    .put("requestId", i)
+                    .put("requester", new JSONObject()
+                            .put("username", "WebUser" + i)
+                            .put("minecraftUsername", "Player_" + random.nextInt(players))
+                            .put("profileUrl", "https://flamewall.example/profile/WebUser" + i)
+                            .put("rankName", "Member")
+                            .put("reputation", random.nextInt(500)));
+            shopCommands[i] = "lp user " + player.getUsername() + " parent addtemp vip " + (1 + i % 30) + "d";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        plugin.onProxyShutdown(new ProxyShutdownEvent());
+        backend.close();
+        scheduler.shutdownNow();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void gameEventDecode() {
+        plugin.onPluginMessage(duplicateGameEvent);
+    }
+
+    @Benchmark
+    public void rankSyncDecode() {
+        plugin.onPluginMessage(rankSyncEvents[next()]);
+    }
+
+    @Benchmark
+    public void incomingFriendRequest() {
+        socketEvents.emit("incomingFriendRequest", friendRequests[next()]);
+    }
+
+    // Waits for the broadcast thread, so the score covers rendering plus fan-out to every online player.
+    @Benchmark
+    public void globalMessageToGame() {
+        long before = globalChat.getBroadcastCount();
+        socketEvents.emit("globalMessageToGame", new JSONObject()
+                .put("id", ++messageId)
+                .put("content", "Hello from the website #" + messageId)
+                .put("author", new JSONObject().put("username", "WebUser" + (messageId % POOL_SIZE))));
+        while (globalChat.getBroadcastCount() == before) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOP_BATCH)
+    public void routeShopCommands(Blackhole blackhole) {
+        ShopCommandBundler bundler = plugin.newShopCommandBundler();
+        for (int i = 0; i < SHOP_BATCH; i++) {
+            blackhole.consume(bundler.add(i, shopCommands[next()]));
+        }
+        blackhole.consume(bundler.flush());
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (POOL_SIZE - 1);
+        return cursor;
+    }
+
+    private static JSONObject gameEventBatch(Player player) {
+        long now = System.currentTimeMillis();
+        return new JSONObject()
+                .put("server_group", "default")
+                .put("playerUuid", player.getUniqueId().toString())
+                .put("server_id", "bench-server")
+                .put("seq", 1)
+                .put("capture_level", "FULL")
+                .put("events", new JSONArray()
+                        .put(new JSONObject().put("eventType", "GAME_EVENT:BLOCK_BREAK:vanilla:break:STONE"))
+                        .put(new JSONObject().put("eventType", "GAME_EVENT:ITEM_CRAFT:vanilla:item:CRAFTING_TABLE")))
+                .put("snapshot", new JSONObject()
+                        .put("player", new JSONObject().put("health", 20.0).put("level", 12).put("gameMode", "SURVIVAL"))
+                        .put("world", new JSONObject().put("name", "world").put("biome", "PLAINS").put("time", 6000)))
+                .put("trace", new JSONObject().put("id", "bench").put("capturedAt", now).put("sentAt", now));
+    }
+
+    private static PluginMessageEvent pluginMessage(Player player, String subChannel, String data) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(subChannel);
+        out.writeUTF(data);
+        return new PluginMessageEvent(player.getCurrentServer().orElseThrow(), player, CHANNEL, out.toByteArray());
+    }
+
+    private void writeConfig(String backendUrl) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("backend-url", backendUrl);
+        props.setProperty("api-key", "bench");
+        props.setProperty("global-chat-max-messages-per-10s", String.valueOf(Integer.MAX_VALUE));
+        props.setProperty("friend-request-persist", "false");
+        try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+            props.store(out, "FlameWall proxy benchmark");
+        }
+    }
+}
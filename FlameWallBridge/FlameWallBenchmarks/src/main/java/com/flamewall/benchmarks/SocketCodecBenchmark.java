@@ -0,0 +1,76 @@
+package com.flamewall.benchmarks;
+
+import com.flamewall.proxybridge.codec.MessagePackCodec;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two socket payload encodings on the messages the bridge sees most: a globalMessageToGame broadcast
+ * (a saved message with its author) and an outgoing minecraftPlayerStatus update. The decode benchmarks are
+ * the work done on the socket.io event thread before a handler runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SocketCodecBenchmark {
+    private JSONObject globalMessage;
+    private JSONObject playerStatus;
+    private String globalMessageText;
+    private byte[] globalMessagePacked;
+
+    @Setup(Level.Trial)
+    public void start() {
+        globalMessage = new JSONObject()
+                .put("id", 184_467)
+                .put("content", "Anyone up for the dragon fight tonight? Meet at spawn around 20:00 server time.")
+                .put("parentId", JSONObject.NULL)
+                .put("created_at", "2026-10-19T18:42:07.512Z")
+                .put("updated_at", "2026-10-19T18:42:07.512Z")
+                .put("is_deleted", false)
+                .put("author", new JSONObject()
+                        .put("id", 5121)
+                        .put("username", "WebUser5121")
+                        .put("minecraft_username", "Flame_Runner")
+                        .put("minecraft_uuid", "069a79f4-44e9-4726-a5be-fca90e38aaf5")
+                        .put("profile_slug", "flame-runner")
+                        .put("reputation_count", 312)
+                        .put("rank", new JSONObject()
+                                .put("name", "Veteran")
+                                .put("display_color", "#FFAA00")
+                                .put("power_level", 40))
+                        .put("badges", new JSONArray().put("early-supporter").put("builder")));
+        playerStatus = new JSONObject()
+                .put("minecraftUuid", "069a79f4-44e9-4726-a5be-fca90e38aaf5")
+                .put("isOnline", true);
+        globalMessageText = globalMessage.toString();
+        globalMessagePacked = MessagePackCodec.encode(globalMessage);
+    }
+
+    @Benchmark
+    public JSONObject decodeJson() {
+        return new JSONObject(globalMessageText);
+    }
+
+    @Benchmark
+    public Object decodeMsgpack() throws IOException {
+        return MessagePackCodec.decode(globalMessagePacked);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return playerStatus.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeMsgpack() {
+        return MessagePackCodec.encode(playerStatus);
+    }
+}
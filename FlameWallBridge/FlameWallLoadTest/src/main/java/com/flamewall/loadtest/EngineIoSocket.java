@@ -0,0 +1,166 @@
+package com.flamewall.loadtest;
+
+import org.json.JSONArray;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// Just enough of Engine.IO v4 over a raw WebSocket for the socket.io client in the proxy.
+class EngineIoSocket {
+    static final long PING_INTERVAL_MS = 25000;
+    static final long PING_TIMEOUT_MS = 20000;
+
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final String sid = UUID.randomUUID().toString();
+    private volatile boolean connected;
+    private volatile boolean closed;
+
+    EngineIoSocket(Socket socket, InputStream in, OutputStream out) {
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+    }
+
+    boolean isConnected() {
+        return connected && !closed;
+    }
+
+    void run() throws IOException {
+        sendText("0{\"sid\":\"" + sid + "\",\"upgrades\":[],\"pingInterval\":" + PING_INTERVAL_MS
+                + ",\"pingTimeout\":" + PING_TIMEOUT_MS + ",\"maxPayload\":1000000}");
+        try {
+            while (!closed) {
+                int first = read();
+                int second = read();
+                int opcode = first & 0x0F;
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = (read() << 8) | read();
+                } else if (length == 127) {
+                    length = 0;
+                    for (int i = 0; i < 8; i++) {
+                        length = (length << 8) | read();
+                    }
+                }
+                byte[] mask = new byte[4];
+                if ((second & 0x80) != 0) {
+                    readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+                switch (opcode) {
+                    case OP_TEXT -> handlePacket(new String(payload, StandardCharsets.UTF_8));
+                    case OP_PING -> sendFrame(OP_PONG, payload);
+                    case OP_CLOSE -> {
+                        sendFrame(OP_CLOSE, payload);
+                        closed = true;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            closed = true;
+        }
+    }
+
+    void emit(String event, Object data) {
+        if (!isConnected()) {
+            return;
+        }
+        JSONArray packet = new JSONArray().put(event);
+        if (data != null) {
+            packet.put(data);
+        }
+        trySend("42" + packet);
+    }
+
+    void ping() {
+        if (!closed) {
+            trySend("2");
+        }
+    }
+
+    void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void handlePacket(String packet) throws IOException {
+        if (packet.startsWith("40")) {
+            connected = true;
+            sendText("40{\"sid\":\"" + sid + "\"}");
+        } else if (packet.startsWith("41") || packet.equals("1")) {
+            closed = true;
+        } else if (packet.equals("2")) {
+            sendText("3");
+        }
+    }
+
+    private void trySend(String text) {
+        try {
+            sendText(text);
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void sendText(String text) throws IOException {
+        sendFrame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+        out.write(0x80 | opcode);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        } else {
+            out.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) ((long) payload.length >>> shift));
+            }
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private void readFully(byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = in.read(buffer, offset, buffer.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+}
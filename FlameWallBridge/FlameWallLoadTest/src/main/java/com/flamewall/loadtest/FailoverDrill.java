@@ -0,0 +1,192 @@
+package com.flamewall.loadtest;
+
+import com.flamewall.proxybridge.ApiClient;
+import com.flamewall.proxybridge.FlameWallProxyBridge;
+import com.flamewall.proxybridge.http.BackendPool;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.proxy.Player;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the proxy against several {@link StubBackend} instances and takes one of them down mid-run, to check
+ * that requests move to the healthy instances, the WebSocket follows them, and the instance is readmitted.
+ *
+ * Options (name=value): backends, rate (batches/s), duration (s), outage-at (s), outage (s), drain (s),
+ * latency-ms, jitter-ms, balance (least-outstanding|latency), verbose, and proxy.&lt;key&gt;=&lt;value&gt;.
+ */
+public class FailoverDrill {
+    private final HarnessOptions options;
+    private final Set<String> deliveredKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder generated = new LongAdder();
+
+    public FailoverDrill(HarnessOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new FailoverDrill(new HarnessOptions(args)).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        int backendCount = Math.max(2, options.getInt("backends", 3));
+        int rate = Math.max(1, options.getInt("rate", 200));
+        long durationSeconds = Math.max(1, options.getLong("duration", 30));
+        long outageAt = options.getLong("outage-at", 5);
+        long outageSeconds = options.getLong("outage", 10);
+
+        Path dataDirectory = Files.createTempDirectory("flamewall-failover");
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, StubBackend.daemonThreads("FakeScheduler"));
+        List<StubBackend> backends = new ArrayList<>();
+        List<LongAdder> ingestedBy = new ArrayList<>();
+        try {
+            for (int i = 0; i < backendCount; i++) {
+                StubBackend backend = new StubBackend(0, LoadGenerator.API_KEY);
+                backend.setLatency(options.getLong("latency-ms", 5), options.getLong("jitter-ms", 5));
+                LongAdder ingested = new LongAdder();
+                backend.onEventIngested((traceId, body) -> {
+                    ingested.increment();
+                    JSONObject payload = new JSONObject(body);
+                    deliveredKeys.add(payload.optString("server_id") + "/" + payload.optString("playerUuid") + "#" + payload.optLong("seq"));
+                });
+                backends.add(backend);
+                ingestedBy.add(ingested);
+            }
+            String urls = backends.stream().map(StubBackend::getBaseUrl).collect(Collectors.joining(","));
+            // Short probe and ejection windows so the drill sees a full eject/readmit cycle; proxy.* options still win.
+            List<String> config = new ArrayList<>(List.of(
+                    "proxy.backend-balance=" + options.getString("balance", "least-outstanding"),
+                    "proxy.backend-health-interval-seconds=1",
+                    "proxy.backend-eject-seconds=3"));
+            options.withPrefix("").forEach((name, value) -> config.add(name + "=" + value));
+            LoadGenerator.writeConfig(new HarnessOptions(config.toArray(new String[0])), dataDirectory, urls);
+
+            FakeProxyServer fake = new FakeProxyServer(scheduler);
+            Player player = fake.addPlayer("drill_player", UUID.randomUUID(), fake.addServer("drill"));
+            Logger logger = options.getBoolean("verbose", false) ? LoggerFactory.getLogger("FlameWallProxyBridge") : NOPLogger.NOP_LOGGER;
+            FlameWallProxyBridge plugin = new FlameWallProxyBridge(fake.getProxy(), logger, dataDirectory);
+            plugin.onProxyInitialization(new ProxyInitializeEvent());
+            ApiClient apiClient = plugin.getApiClient();
+            LoadGenerator.awaitCondition(() -> connectedSockets(backends) > 0, 10_000);
+
+            StubBackend victim = backends.get(0);
+            List<String> timeline = new CopyOnWriteArrayList<>();
+            long start = System.nanoTime();
+            scheduler.schedule(() -> {
+                victim.setAvailable(false);
+                timeline.add(String.format("%.1fs  took %s down", elapsed(start), victim.getBaseUrl()));
+            }, outageAt, TimeUnit.SECONDS);
+            scheduler.schedule(() -> {
+                victim.setAvailable(true);
+                timeline.add(String.format("%.1fs  brought %s back", elapsed(start), victim.getBaseUrl()));
+            }, outageAt + outageSeconds, TimeUnit.SECONDS);
+            ScheduledFuture<?> watcher = scheduler.scheduleAtFixedRate(new Runnable() {
+                private final Map<String, Boolean> ejected = new HashMap<>();
+                private int socketOwner = -1;
+
+                @Override
+                public void run() {
+                    for (BackendPool.Backend backend : apiClient.getBackends().getBackends()) {
+                        Boolean previous = ejected.put(backend.getUrl(), backend.isEjected());
+                        if (previous != null && previous != backend.isEjected()) {
+                            timeline.add(String.format("%.1fs  %s %s", elapsed(start), backend.getUrl(),
+                                    backend.isEjected() ? "ejected" : "readmitted"));
+                        }
+                    }
+                    int owner = -1;
+                    for (int i = 0; i < backends.size(); i++) {
+                        if (backends.get(i).getConnectedSockets() > 0) {
+                            owner = i;
+                        }
+                    }
+                    if (owner != socketOwner) {
+                        timeline.add(String.format("%.1fs  WebSocket on %s", elapsed(start),
+                                owner >= 0 ? backends.get(owner).getBaseUrl() : "nothing"));
+                        socketOwner = owner;
+                    }
+                }
+            }, 0, 100, TimeUnit.MILLISECONDS);
+
+            long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            long next = System.nanoTime();
+            long seq = 0;
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long now = System.currentTimeMillis();
+                JSONObject batch = new JSONObject()
+                        .put("server_group", "default")
+                        .put("playerUuid", player.getUniqueId().toString())
+                        .put("server_id", "failover-drill")
+                        .put("seq", ++seq)
+                        .put("events", new JSONArray().put(new JSONObject().put("eventType", "GAME_EVENT:BLOCK_BREAK:vanilla:break:STONE")))
+                        .put("snapshot", new JSONObject())
+                        .put("trace", new JSONObject().put("id", "drill-" + seq).put("capturedAt", now).put("sentAt", now));
+                ByteArrayDataOutput out = ByteStreams.newDataOutput();
+                out.writeUTF("GameEvent");
+                out.writeUTF(batch.toString());
+                plugin.onPluginMessage(new PluginMessageEvent(player.getCurrentServer().orElseThrow(), player,
+                        LoadGenerator.CHANNEL, out.toByteArray()));
+                generated.increment();
+                next += interval;
+            }
+
+            long drainDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(options.getLong("drain", 15));
+            while (System.currentTimeMillis() < drainDeadline && deliveredKeys.size() < generated.sum()) {
+                if (apiClient.getOfflineQueueSize() > 0) {
+                    apiClient.replayQueuedEvents();
+                }
+                Thread.sleep(250);
+            }
+            watcher.cancel(false);
+            long offlineQueued = apiClient.getOfflineQueueSize();
+            plugin.onProxyShutdown(new ProxyShutdownEvent());
+
+            System.out.println();
+            System.out.println("=== FlameWall backend failover drill ===");
+            System.out.printf("Setup       : %d backends, %d batches/s for %ds, %s down from %ds for %ds%n",
+                    backendCount, rate, durationSeconds, victim.getBaseUrl(), outageAt, outageSeconds);
+            System.out.printf("Delivery    : %d generated, %d delivered, %d still queued offline%n",
+                    generated.sum(), deliveredKeys.size(), offlineQueued);
+            for (int i = 0; i < backends.size(); i++) {
+                System.out.printf("Backend %d   : %s ingested %d batches, requests %s%n",
+                        i, backends.get(i).getBaseUrl(), ingestedBy.get(i).sum(), backends.get(i).getRequestCounts());
+            }
+            System.out.println("Timeline    :");
+            timeline.forEach(line -> System.out.println("  " + line));
+        } finally {
+            for (StubBackend backend : backends) {
+                backend.close();
+            }
+            scheduler.shutdownNow();
+            LoadGenerator.deleteRecursively(dataDirectory);
+        }
+    }
+
+    private static long connectedSockets(List<StubBackend> backends) {
+        return backends.stream().mapToLong(StubBackend::getConnectedSockets).sum();
+    }
+
+    private static double elapsed(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,226 @@
+package com.flamewall.loadtest;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A ProxyServer built from dynamic proxies, so the plugin can run outside Velocity. Methods are matched by
+ * name rather than implemented against a particular API version; anything not simulated returns an empty value.
+ */
+public class FakeProxyServer {
+    private static final Object NO_VALUE = new Object();
+
+    private final ScheduledExecutorService executor;
+    private final Map<String, RegisteredServer> servers = new ConcurrentHashMap<>();
+    private final Map<String, Player> playersByName = new ConcurrentHashMap<>();
+    private final Map<UUID, Player> playersById = new ConcurrentHashMap<>();
+    private final Map<RegisteredServer, List<Player>> playersByServer = new ConcurrentHashMap<>();
+    private volatile BiConsumer<String, byte[]> pluginMessageListener = (server, data) -> { };
+    private final ProxyServer proxy;
+
+    public FakeProxyServer(ScheduledExecutorService executor) {
+        this.executor = executor;
+        this.proxy = stub(ProxyServer.class, (self, method, args) -> switch (method.getName()) {
+            case "getPlayer" -> Optional.ofNullable(args[0] instanceof UUID
+                    ? playersById.get(args[0]) : playersByName.get(((String) args[0]).toLowerCase(Locale.ROOT)));
+            case "getAllPlayers" -> List.copyOf(playersById.values());
+            case "getPlayerCount" -> playersById.size();
+            case "getServer" -> Optional.ofNullable(servers.get(args[0]));
+            case "getAllServers" -> List.copyOf(servers.values());
+            case "getScheduler" -> scheduler();
+            default -> NO_VALUE;
+        });
+    }
+
+    public ProxyServer getProxy() {
+        return proxy;
+    }
+
+    public void onPluginMessage(BiConsumer<String, byte[]> listener) {
+        this.pluginMessageListener = listener;
+    }
+
+    public RegisteredServer addServer(String name) {
+        ServerInfo info = new ServerInfo(name, InetSocketAddress.createUnresolved("127.0.0.1", 25565));
+        return servers.computeIfAbsent(name, key -> {
+            List<Player> connected = new CopyOnWriteArrayList<>();
+            RegisteredServer server = stub(RegisteredServer.class, (self, method, args) -> switch (method.getName()) {
+                case "getServerInfo" -> info;
+                case "getPlayersConnected" -> List.copyOf(connected);
+                case "sendPluginMessage" -> {
+                    if (connected.isEmpty()) {
+                        yield false;
+                    }
+                    pluginMessageListener.accept(name, (byte[]) args[1]);
+                    yield true;
+                }
+                default -> NO_VALUE;
+            });
+            playersByServer.put(server, connected);
+            return server;
+        });
+    }
+
+    public Player addPlayer(String username, UUID uuid, RegisteredServer server) {
+        ServerConnection[] connection = new ServerConnection[1];
+        Player player = stub(Player.class, (self, method, args) -> switch (method.getName()) {
+            case "getUsername" -> username;
+            case "getUniqueId" -> uuid;
+            case "getCurrentServer" -> Optional.of(connection[0]);
+            case "isActive" -> true;
+            default -> NO_VALUE;
+        });
+        connection[0] = stub(ServerConnection.class, (self, method, args) -> switch (method.getName()) {
+            case "getServer" -> server;
+            case "getServerInfo" -> server.getServerInfo();
+            case "getPlayer" -> player;
+            case "sendPluginMessage" -> server.sendPluginMessage(null, (byte[]) args[1]);
+            default -> NO_VALUE;
+        });
+        playersByName.put(username.toLowerCase(Locale.ROOT), player);
+        playersById.put(uuid, player);
+        playersByServer.get(server).add(player);
+        return player;
+    }
+
+    public ServerConnection connectionOf(Player player) {
+        return player.getCurrentServer().orElseThrow();
+    }
+
+    private Scheduler scheduler() {
+        return stub(Scheduler.class, (self, method, args) -> "buildTask".equals(method.getName())
+                ? taskBuilder(args[1])
+                : NO_VALUE);
+    }
+
+    private Object taskBuilder(Object task) {
+        long[] delayAndRepeat = new long[2];
+        Class<?> builderType = Scheduler.TaskBuilder.class;
+        return stub(builderType, (self, method, args) -> {
+            switch (method.getName()) {
+                case "delay" -> delayAndRepeat[0] = toMillis(args);
+                case "repeat" -> delayAndRepeat[1] = toMillis(args);
+                case "clearDelay" -> delayAndRepeat[0] = 0;
+                case "clearRepeat" -> delayAndRepeat[1] = 0;
+                case "schedule" -> {
+                    return schedule(task, delayAndRepeat[0], delayAndRepeat[1]);
+                }
+                default -> {
+                    return NO_VALUE;
+                }
+            }
+            return self;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private ScheduledTask schedule(Object task, long delayMillis, long repeatMillis) {
+        Future<?>[] future = new Future<?>[1];
+        ScheduledTask scheduled = stub(ScheduledTask.class, (self, method, args) -> {
+            if ("cancel".equals(method.getName())) {
+                future[0].cancel(false);
+                return null;
+            }
+            return NO_VALUE;
+        });
+        Runnable body = task instanceof Runnable
+                ? (Runnable) task
+                : () -> ((Consumer<ScheduledTask>) task).accept(scheduled);
+        Runnable guarded = () -> {
+            try {
+                body.run();
+            } catch (Throwable t) {
+                System.err.println("[FakeProxyServer] Scheduled task failed: " + t);
+            }
+        };
+        future[0] = repeatMillis > 0
+                ? executor.scheduleAtFixedRate(guarded, delayMillis, repeatMillis, TimeUnit.MILLISECONDS)
+                : executor.schedule(guarded, delayMillis, TimeUnit.MILLISECONDS);
+        return scheduled;
+    }
+
+    private static long toMillis(Object[] args) {
+        return args.length == 1 ? ((Duration) args[0]).toMillis() : ((TimeUnit) args[1]).toMillis((Long) args[0]);
+    }
+
+    private interface Handler {
+        Object invoke(Object self, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (self, method, args) -> {
+            Object[] arguments = args != null ? args : new Object[0];
+            switch (method.getName()) {
+                case "equals":
+                    if (arguments.length == 1 && method.getParameterTypes()[0] == Object.class) {
+                        return self == arguments[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (arguments.length == 0) {
+                        return System.identityHashCode(self);
+                    }
+                    break;
+                case "toString":
+                    if (arguments.length == 0) {
+                        return "Fake" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Object result = handler.invoke(self, method, arguments);
+            return result == NO_VALUE ? emptyValue(method.getReturnType()) : result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type.isPrimitive()) {
+            return type == long.class ? 0L : type == double.class ? 0.0 : type == float.class ? 0.0f
+                    : type == byte.class ? (byte) 0 : type == short.class ? (short) 0 : 0;
+        } else if (type == String.class) {
+            return "";
+        } else if (type == Optional.class) {
+            return Optional.empty();
+        } else if (type.isAssignableFrom(List.class)) {
+            return List.of();
+        } else if (type.isAssignableFrom(Set.class)) {
+            return Set.of();
+        } else if (type.isAssignableFrom(Map.class)) {
+            return Map.of();
+        } else if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        } else if (type.isInterface()) {
+            return stub(type, (self, method, args) -> NO_VALUE);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.flamewall.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class HarnessOptions {
+    private final Map<String, String> values = new HashMap<>();
+
+    public HarnessOptions(String[] args) {
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected <name>=<value>, got '" + arg + "'");
+            }
+            values.put(option.substring(0, separator), option.substring(separator + 1));
+        }
+    }
+
+    public String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+
+    public Map<String, String> withPrefix(String prefix) {
+        Map<String, String> matching = new HashMap<>();
+        values.forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                matching.put(name.substring(prefix.length()), value);
+            }
+        });
+        return matching;
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return values.containsKey(name) ? Boolean.parseBoolean(values.get(name)) : defaultValue;
+    }
+}
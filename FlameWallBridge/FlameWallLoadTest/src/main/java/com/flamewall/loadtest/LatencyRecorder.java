@@ -0,0 +1,44 @@
+package com.flamewall.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Millisecond-resolution histogram; the proxy's power-of-two LatencyHistogram is too coarse for a report.
+public class LatencyRecorder {
+    private static final int MAX_TRACKED_MS = 60_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAX_TRACKED_MS + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet((int) Math.min(value, MAX_TRACKED_MS));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long percentile(double fraction) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i <= MAX_TRACKED_MS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i == MAX_TRACKED_MS ? max.get() : i;
+            }
+        }
+        return max.get();
+    }
+}
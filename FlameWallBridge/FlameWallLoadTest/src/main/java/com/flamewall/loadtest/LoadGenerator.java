@@ -0,0 +1,302 @@
+package com.flamewall.loadtest;
+
+import com.flamewall.proxybridge.ApiClient;
+import com.flamewall.proxybridge.FlameWallProxyBridge;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
+import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Runs the proxy plugin against {@link StubBackend} and drives it with simulated Spigot servers sending
+ * GameEvent and RankSync messages over flamewall:main, then reports throughput, latency, memory and losses.
+ *
+ * Options (name=value): servers, players, rate (batches/s per server), duration (s), drain (s),
+ * shop-commands, rank-every, latency-ms, jitter-ms, error-rate, drop-rate, engine (sqlite|journal),
+ * mode (callbacks|virtual, the latter needs a java21 profile build on Java 21), verbose,
+ * and proxy.&lt;key&gt;=&lt;value&gt; for any config.properties setting.
+ */
+public class LoadGenerator {
+    static final ChannelIdentifier CHANNEL = MinecraftChannelIdentifier.create("flamewall", "main");
+    static final String API_KEY = "loadtest";
+    private static final String[] EVENT_TYPES = {
+            "GAME_EVENT:BLOCK_BREAK:vanilla:break:STONE",
+            "GAME_EVENT:BLOCK_BREAK:vanilla:break:DIAMOND_ORE",
+            "GAME_EVENT:PLAYER_KILL_ENTITY:vanilla:kill:ZOMBIE",
+            "GAME_EVENT:ITEM_CRAFT:vanilla:item:CRAFTING_TABLE",
+            "GAME_EVENT:ITEM_CONSUME:vanilla:item:BREAD"
+    };
+
+    private final HarnessOptions options;
+    private final int serverCount;
+    private final int playersPerServer;
+    private final int rate;
+    private final long durationSeconds;
+    private final int rankEvery;
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final Map<String, Long> outstanding = new ConcurrentHashMap<>();
+    private final Set<String> deliveredKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rankUpdatesSent = new LongAdder();
+    private final LongAdder bundleMessages = new LongAdder();
+    private final LongAdder dispatchedCommands = new LongAdder();
+    private final AtomicLong peakHeap = new AtomicLong();
+    private volatile boolean stopped;
+
+    public LoadGenerator(HarnessOptions options) {
+        this.options = options;
+        this.serverCount = Math.max(1, options.getInt("servers", 4));
+        this.playersPerServer = Math.max(1, options.getInt("players", 50));
+        this.rate = Math.max(1, options.getInt("rate", 100));
+        this.durationSeconds = Math.max(1, options.getLong("duration", 30));
+        this.rankEvery = options.getInt("rank-every", 50);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(new HarnessOptions(args)).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        Path dataDirectory = Files.createTempDirectory("flamewall-loadtest");
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, StubBackend.daemonThreads("FakeScheduler"));
+        try (StubBackend backend = new StubBackend(0, API_KEY)) {
+            backend.setLatency(options.getLong("latency-ms", 5), options.getLong("jitter-ms", 5));
+            backend.setErrorRate(options.getDouble("error-rate", 0));
+            backend.setDropRate(options.getDouble("drop-rate", 0));
+            backend.onEventIngested(this::onIngested);
+            writeConfig(options, dataDirectory, backend.getBaseUrl());
+
+            FakeProxyServer fake = new FakeProxyServer(scheduler);
+            fake.onPluginMessage(this::onBackendServerMessage);
+            List<List<Player>> players = new ArrayList<>();
+            for (int s = 0; s < serverCount; s++) {
+                RegisteredServer server = fake.addServer("server-" + s);
+                List<Player> serverPlayers = new ArrayList<>();
+                for (int p = 0; p < playersPerServer; p++) {
+                    serverPlayers.add(fake.addPlayer("player_" + s + "_" + p, UUID.randomUUID(), server));
+                }
+                players.add(serverPlayers);
+            }
+
+            Logger logger = options.getBoolean("verbose", false) ? LoggerFactory.getLogger("FlameWallProxyBridge") : NOPLogger.NOP_LOGGER;
+            FlameWallProxyBridge plugin = new FlameWallProxyBridge(fake.getProxy(), logger, dataDirectory);
+            plugin.onProxyInitialization(new ProxyInitializeEvent());
+            ApiClient apiClient = plugin.getApiClient();
+            awaitCondition(() -> backend.getConnectedSockets() > 0, 10_000);
+            if (backend.getConnectedSockets() == 0) {
+                System.err.println("[LoadGenerator] The proxy did not connect to the stub socket.io endpoint, shop signals will not arrive.");
+            }
+
+            ScheduledFuture<?> sampler = scheduler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max), 0, 250, TimeUnit.MILLISECONDS);
+            long[] gcBefore = gcTotals();
+            int shopCommands = options.getInt("shop-commands", 500);
+            if (shopCommands > 0) {
+                scheduler.schedule(() -> backend.addShopCommands(shopCommandsFor(players, shopCommands)), 1, TimeUnit.SECONDS);
+            }
+
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+            ExecutorService servers = Executors.newFixedThreadPool(serverCount, StubBackend.daemonThreads("SimulatedServer"));
+            for (int s = 0; s < serverCount; s++) {
+                int index = s;
+                servers.execute(() -> simulateServer(plugin, index, players.get(index), end));
+            }
+            servers.shutdown();
+            servers.awaitTermination(durationSeconds + 60, TimeUnit.SECONDS);
+            double generationSeconds = (System.nanoTime() - start) / 1e9;
+
+            long drainDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(options.getLong("drain", 15));
+            while (System.currentTimeMillis() < drainDeadline
+                    && (deliveredKeys.size() < generated.sum() || (shopCommands > 0 && backend.getPendingCommandCount() > 0))) {
+                if (apiClient.getOfflineQueueSize() > 0) {
+                    apiClient.replayQueuedEvents();
+                }
+                Thread.sleep(250);
+            }
+            double totalSeconds = (System.nanoTime() - start) / 1e9;
+            sampler.cancel(false);
+            long[] gcAfter = gcTotals();
+            long offlineQueued = apiClient.getOfflineQueueSize();
+            long shed = apiClient.getLimiter().getShedCount();
+
+            stopped = true;
+            plugin.onProxyShutdown(new ProxyShutdownEvent());
+            report(backend, generationSeconds, totalSeconds, offlineQueued, shed, shopCommands,
+                    gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        } finally {
+            scheduler.shutdownNow();
+            deleteRecursively(dataDirectory);
+        }
+    }
+
+    private void simulateServer(FlameWallProxyBridge plugin, int index, List<Player> players, long endNanos) {
+        String serverId = "loadtest-server-" + index;
+        long[] sequences = new long[players.size()];
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        long sent = 0;
+        while (!stopped && next < endNanos) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int p = ThreadLocalRandom.current().nextInt(players.size());
+            Player player = players.get(p);
+            String traceId = serverId + "-" + Long.toHexString(sent);
+            long now = System.currentTimeMillis();
+            JSONObject batch = new JSONObject()
+                    .put("server_group", "default")
+                    .put("playerUuid", player.getUniqueId().toString())
+                    .put("server_id", serverId)
+                    .put("seq", ++sequences[p])
+                    .put("capture_level", "FULL")
+                    .put("events", new JSONArray().put(new JSONObject().put("eventType", EVENT_TYPES[(int) (sent % EVENT_TYPES.length)])))
+                    .put("snapshot", new JSONObject())
+                    .put("trace", new JSONObject().put("id", traceId).put("capturedAt", now).put("sentAt", now));
+            outstanding.put(traceId, System.nanoTime());
+            generated.increment();
+            deliver(plugin, player, "GameEvent", batch.toString());
+            sent++;
+            if (rankEvery > 0 && sent % rankEvery == 0) {
+                rankUpdatesSent.increment();
+                deliver(plugin, player, "RankSync", new JSONObject()
+                        .put("minecraftUuid", player.getUniqueId().toString())
+                        .put("newRankSystemName", "rank-" + (sent / rankEvery % 5))
+                        .toString());
+            }
+            next += interval;
+        }
+    }
+
+    private void deliver(FlameWallProxyBridge plugin, Player player, String subChannel, String data) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(subChannel);
+        out.writeUTF(data);
+        plugin.onPluginMessage(new PluginMessageEvent(player.getCurrentServer().orElseThrow(), player, CHANNEL, out.toByteArray()));
+    }
+
+    private void onIngested(String traceId, String body) {
+        long receivedAt = System.nanoTime();
+        JSONObject payload = new JSONObject(body);
+        String key = payload.optString("server_id") + "/" + payload.optString("playerUuid") + "#" + payload.optLong("seq");
+        if (!deliveredKeys.add(key)) {
+            duplicates.increment();
+        }
+        Long sentAt = traceId != null ? outstanding.remove(traceId) : null;
+        if (sentAt != null) {
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(receivedAt - sentAt));
+        }
+    }
+
+    private void onBackendServerMessage(String server, byte[] data) {
+        ByteArrayDataInput in = ByteStreams.newDataInput(data);
+        String subChannel = in.readUTF();
+        if ("ExecuteCommandBundle".equals(subChannel)) {
+            bundleMessages.increment();
+            dispatchedCommands.add(in.readInt());
+        } else if ("ExecuteCommand".equals(subChannel)) {
+            bundleMessages.increment();
+            dispatchedCommands.increment();
+        }
+    }
+
+    private static List<String> shopCommandsFor(List<List<Player>> players, int count) {
+        List<String> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Player> serverPlayers = players.get(i % players.size());
+            Player player = serverPlayers.get(ThreadLocalRandom.current().nextInt(serverPlayers.size()));
+            commands.add("give " + player.getUsername() + " diamond " + (1 + i % 64));
+        }
+        return commands;
+    }
+
+    private void report(StubBackend backend, double generationSeconds, double totalSeconds, long offlineQueued, long shed,
+                        int shopCommands, long gcCount, long gcMillis) {
+        long generatedCount = generated.sum();
+        long delivered = deliveredKeys.size();
+        System.out.println();
+        System.out.println("=== FlameWall bridge load test ===");
+        System.out.printf("Setup       : %d servers x %d players, %d batches/s per server for %ds, backend latency %d+%dms, error-rate %.3f, drop-rate %.3f, queue engine %s, execution mode %s%n",
+                serverCount, playersPerServer, rate, durationSeconds, options.getLong("latency-ms", 5), options.getLong("jitter-ms", 5),
+                options.getDouble("error-rate", 0), options.getDouble("drop-rate", 0), options.getString("engine", "sqlite"),
+                options.getString("mode", "callbacks"));
+        System.out.printf("Generated   : %d batches (%.1f/s)%n", generatedCount, generatedCount / generationSeconds);
+        System.out.printf("Delivered   : %d unique batches (%.1f/s over %.1fs), %d duplicates%n",
+                delivered, delivered / totalSeconds, totalSeconds, duplicates.sum());
+        System.out.printf("Latency ms  : p50=%d p90=%d p99=%d p99.9=%d max=%d (n=%d, capture to backend)%n",
+                latencies.percentile(0.50), latencies.percentile(0.90), latencies.percentile(0.99),
+                latencies.percentile(0.999), latencies.getMax(), latencies.getCount());
+        System.out.printf("Undelivered : %d (offline queue %d, shed by limiter %d)%n",
+                Math.max(0, generatedCount - delivered), offlineQueued, shed);
+        System.out.printf("Faults      : %d injected errors, %d dropped connections%n", backend.getInjectedErrors(), backend.getInjectedDrops());
+        System.out.printf("Rank sync   : %d updates sent, %d received by backend%n", rankUpdatesSent.sum(), backend.getRankUpdates());
+        System.out.printf("Shop        : %d queued, %d dispatched in %d messages, %d confirmed, %d left%n",
+                shopCommands, dispatchedCommands.sum(), bundleMessages.sum(), backend.getConfirmedCommands(), backend.getPendingCommandCount());
+        System.out.printf("Memory      : peak heap %d MB, %d GC runs (%d ms)%n", peakHeap.get() / (1024 * 1024), gcCount, gcMillis);
+        System.out.println("Requests    : " + backend.getRequestCounts());
+    }
+
+    static void writeConfig(HarnessOptions options, Path dataDirectory, String backendUrl) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("backend-url", backendUrl);
+        props.setProperty("api-key", API_KEY);
+        props.setProperty("offline-queue-engine", options.getString("engine", "sqlite"));
+        props.setProperty("execution-mode", options.getString("mode", "callbacks"));
+        options.withPrefix("proxy.").forEach(props::setProperty);
+        try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+            props.store(out, "FlameWall load test");
+        }
+    }
+
+    static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    static void awaitCondition(java.util.function.BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("[LoadGenerator] Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+}
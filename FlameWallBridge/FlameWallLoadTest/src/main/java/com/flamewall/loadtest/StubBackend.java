@@ -0,0 +1,373 @@
+package com.flamewall.loadtest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Local stand-in for the FlameWall website: the plugin-facing REST routes plus a socket.io endpoint,
+ * with configurable latency and error injection.
+ */
+public class StubBackend implements Closeable {
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final String apiKey;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(daemonThreads("StubBackend-Connection"));
+    private final ScheduledExecutorService pinger = Executors.newSingleThreadScheduledExecutor(daemonThreads("StubBackend-Ping"));
+    private final Set<EngineIoSocket> sockets = ConcurrentHashMap.newKeySet();
+    private final NavigableMap<Integer, String> pendingCommands = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextCommandId = new AtomicInteger();
+    private final Map<String, LongAdder> requestsByRoute = new ConcurrentHashMap<>();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder injectedDrops = new LongAdder();
+    private final LongAdder confirmedCommands = new LongAdder();
+    private final LongAdder rankUpdates = new LongAdder();
+    private volatile BiConsumer<String, String> ingestListener = (traceId, body) -> { };
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double errorRate;
+    private volatile double dropRate;
+    private volatile boolean running = true;
+    private volatile boolean available = true;
+
+    public StubBackend(int port, String apiKey) throws IOException {
+        this.apiKey = apiKey;
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "StubBackend-Accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        pinger.scheduleAtFixedRate(() -> sockets.forEach(EngineIoSocket::ping),
+                EngineIoSocket.PING_INTERVAL_MS, EngineIoSocket.PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessOptions options = new HarnessOptions(args);
+        StubBackend backend = new StubBackend(options.getInt("port", 3000), options.getString("api-key", "loadtest"));
+        backend.setLatency(options.getLong("latency-ms", 0), options.getLong("jitter-ms", 0));
+        backend.setErrorRate(options.getDouble("error-rate", 0));
+        backend.setDropRate(options.getDouble("drop-rate", 0));
+        System.out.println("Stub backend listening on " + backend.getBaseUrl() + " (api-key " + options.getString("api-key", "loadtest") + ")");
+        while (true) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            System.out.println("requests=" + backend.getRequestCounts() + " injectedErrors=" + backend.getInjectedErrors()
+                    + " injectedDrops=" + backend.getInjectedDrops() + " sockets=" + backend.getConnectedSockets());
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public void setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setDropRate(double dropRate) {
+        this.dropRate = dropRate;
+    }
+
+    // Simulates a restarting instance: every request gets a 503, sockets are dropped and upgrades refused.
+    public void setAvailable(boolean available) {
+        this.available = available;
+        if (!available) {
+            sockets.forEach(EngineIoSocket::close);
+        }
+    }
+
+    public void onEventIngested(BiConsumer<String, String> listener) {
+        this.ingestListener = listener;
+    }
+
+    public void addShopCommands(List<String> commands) {
+        for (String command : commands) {
+            pendingCommands.put(nextCommandId.incrementAndGet(), command);
+        }
+        emit("shop:new-command", null);
+    }
+
+    public void emit(String event, Object data) {
+        sockets.forEach(socket -> socket.emit(event, data));
+    }
+
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestsByRoute.forEach((route, count) -> counts.put(route, count.sum()));
+        return counts;
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public long getInjectedDrops() {
+        return injectedDrops.sum();
+    }
+
+    public long getConfirmedCommands() {
+        return confirmedCommands.sum();
+    }
+
+    public int getPendingCommandCount() {
+        return pendingCommands.size();
+    }
+
+    public long getRankUpdates() {
+        return rankUpdates.sum();
+    }
+
+    public long getConnectedSockets() {
+        return sockets.stream().filter(EngineIoSocket::isConnected).count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        sockets.forEach(EngineIoSocket::close);
+        serverSocket.close();
+        pinger.shutdownNow();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[StubBackend] Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (running) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                String[] parts = requestLine.split(" ");
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                    }
+                }
+                if (parts.length < 3) {
+                    respond(out, 400, "{\"message\":\"Bad request line\"}", false);
+                    return;
+                }
+                if (!available) {
+                    requestsByRoute.computeIfAbsent("unavailable", key -> new LongAdder()).increment();
+                    respond(out, 503, "{\"message\":\"Instance is restarting\"}", false);
+                    return;
+                }
+                if ("websocket".equalsIgnoreCase(headers.get("upgrade")) && parts[1].startsWith("/socket.io/")) {
+                    upgrade(socket, in, out, headers);
+                    return;
+                }
+                if (headers.containsKey("transfer-encoding")) {
+                    respond(out, 501, "{\"message\":\"Chunked request bodies are not supported\"}", false);
+                    return;
+                }
+                byte[] body = new byte[Integer.parseInt(headers.getOrDefault("content-length", "0"))];
+                int offset = 0;
+                while (offset < body.length) {
+                    int read = in.read(body, offset, body.length - offset);
+                    if (read < 0) {
+                        return;
+                    }
+                    offset += read;
+                }
+                boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+                if (!handle(parts[0], parts[1], headers, new String(body, StandardCharsets.UTF_8), out, keepAlive) || !keepAlive) {
+                    return;
+                }
+            }
+        } catch (SocketException | EOFException ignored) {
+        } catch (Exception e) {
+            if (running) {
+                System.err.println("[StubBackend] Connection failed: " + e);
+            }
+        }
+    }
+
+    private boolean handle(String method, String target, Map<String, String> headers, String body,
+                           OutputStream out, boolean keepAlive) throws IOException, InterruptedException {
+        int query = target.indexOf('?');
+        String path = query >= 0 ? target.substring(0, query) : target;
+        Map<String, String> params = parseQuery(query >= 0 ? target.substring(query + 1) : "");
+        String route = method + " " + (path.startsWith("/api/friendships/from-plugin/list/") ? "/api/friendships/from-plugin/list/:uuid" : path);
+        requestsByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+
+        if (!apiKey.equals(headers.get("x-api-key"))) {
+            respond(out, 401, "{\"message\":\"Invalid API key\"}", keepAlive);
+            return true;
+        }
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < dropRate) {
+            injectedDrops.increment();
+            return false;
+        }
+        if (roll < dropRate + errorRate) {
+            injectedErrors.increment();
+            respond(out, 503, "{\"message\":\"Injected failure\"}", keepAlive);
+            return true;
+        }
+
+        switch (route) {
+            case "POST /api/internal/event-ingest" -> {
+                ingestListener.accept(headers.get("x-trace-id"), body);
+                respond(out, 201, "{}", keepAlive);
+            }
+            case "GET /api/shop/pending-commands" -> {
+                int after = Integer.parseInt(params.getOrDefault("after", "0"));
+                int limit = Integer.parseInt(params.getOrDefault("limit", "0"));
+                int max = limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : Integer.MAX_VALUE;
+                JSONArray page = new JSONArray();
+                for (Map.Entry<Integer, String> entry : pendingCommands.tailMap(after, false).entrySet()) {
+                    if (page.length() >= max) {
+                        break;
+                    }
+                    page.put(new JSONObject().put("id", entry.getKey()).put("command", entry.getValue()));
+                }
+                respond(out, 200, page.toString(), keepAlive);
+            }
+            case "POST /api/shop/clear-pending-commands" -> {
+                JSONArray ids = new JSONObject(body).optJSONArray("commandIds");
+                for (int i = 0; ids != null && i < ids.length(); i++) {
+                    if (pendingCommands.remove(ids.getInt(i)) != null) {
+                        confirmedCommands.increment();
+                    }
+                }
+                respond(out, 201, "{}", keepAlive);
+            }
+            case "POST /api/internal/rank-sync/batch" -> {
+                JSONArray updates = new JSONObject(body).optJSONArray("updates");
+                rankUpdates.add(updates != null ? updates.length() : 0);
+                respond(out, 201, "{}", keepAlive);
+            }
+            case "GET /api" -> respond(out, 200, "\"Hello World!\"", keepAlive);
+            case "GET /api/friendships/from-plugin/list/:uuid" -> respond(out, 200, "[]", keepAlive);
+            case "POST /api/friendships/from-plugin/add", "POST /api/friendships/from-plugin/remove",
+                 "POST /api/friendships/from-plugin/accept", "POST /api/friendships/from-plugin/deny",
+                 "POST /api/achievements/admin/register-targets" -> respond(out, 201, "{\"message\":\"OK\"}", keepAlive);
+            default -> respond(out, 404, "{\"message\":\"Cannot " + method + " " + path + "\"}", keepAlive);
+        }
+        return true;
+    }
+
+    private void upgrade(Socket socket, InputStream in, OutputStream out, Map<String, String> headers) throws IOException {
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((headers.get("sec-websocket-key") + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        if (!apiKey.equals(headers.get("x-api-key"))) {
+            respond(out, 401, "{\"message\":\"Invalid API key\"}", false);
+            return;
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        EngineIoSocket engineSocket = new EngineIoSocket(socket, in, out);
+        sockets.add(engineSocket);
+        try {
+            engineSocket.run();
+        } finally {
+            sockets.remove(engineSocket);
+        }
+    }
+
+    private static void respond(OutputStream out, int status, String body, boolean keepAlive) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + " " + reason(status) + "\r\n"
+                + "Content-Type: application/json; charset=utf-8\r\n"
+                + "Content-Length: " + bytes.length + "\r\n"
+                + (keepAlive ? "" : "Connection: close\r\n")
+                + "\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static String reason(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 404 -> "Not Found";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "Status";
+        };
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return params;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                int length = line.length();
+                return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+            }
+            line.append((char) b);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
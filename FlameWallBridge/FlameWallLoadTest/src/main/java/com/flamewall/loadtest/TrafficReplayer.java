@@ -0,0 +1,153 @@
+package com.flamewall.loadtest;
+
+import com.flamewall.proxybridge.FlameWallProxyBridge;
+import com.flamewall.proxybridge.trace.TrafficCaptureReader;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.proxy.Player;
+import io.socket.emitter.Emitter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a capture written by the proxy's traffic recorder (traffic-capture-enabled=true) back through
+ * {@link FlameWallProxyBridge#onPluginMessage} and the plugin's socket handlers, against {@link StubBackend}.
+ *
+ * Options (name=value): capture (a .fwcap file or the captures directory), speed (1 = recorded pace,
+ * N = N times faster, 0 = as fast as possible), drain (s), latency-ms, jitter-ms, error-rate, drop-rate,
+ * engine (sqlite|journal), verbose, and proxy.&lt;key&gt;=&lt;value&gt; for any config.properties setting.
+ */
+public class TrafficReplayer {
+    private final HarnessOptions options;
+    private final double speed;
+    private final Map<String, Player> sourcePlayers = new HashMap<>();
+    private final Map<String, LongAdder> replayedByName = new TreeMap<>();
+    private final LongAdder ingested = new LongAdder();
+    private final AtomicLong peakHeap = new AtomicLong();
+
+    public TrafficReplayer(HarnessOptions options) {
+        this.options = options;
+        this.speed = Math.max(0, options.getDouble("speed", 1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TrafficReplayer(new HarnessOptions(args)).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        String capture = options.getString("capture", null);
+        if (capture == null) {
+            throw new IllegalArgumentException("capture=<file or directory> is required");
+        }
+        List<Path> files = TrafficCaptureReader.listCaptures(Paths.get(capture));
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No capture files found in " + capture);
+        }
+
+        Path dataDirectory = Files.createTempDirectory("flamewall-replay");
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, StubBackend.daemonThreads("FakeScheduler"));
+        try (StubBackend backend = new StubBackend(0, LoadGenerator.API_KEY);
+             TrafficCaptureReader reader = new TrafficCaptureReader(files)) {
+            backend.setLatency(options.getLong("latency-ms", 5), options.getLong("jitter-ms", 5));
+            backend.setErrorRate(options.getDouble("error-rate", 0));
+            backend.setDropRate(options.getDouble("drop-rate", 0));
+            backend.onEventIngested((traceId, body) -> ingested.increment());
+            LoadGenerator.writeConfig(options, dataDirectory, backend.getBaseUrl());
+
+            FakeProxyServer fake = new FakeProxyServer(scheduler);
+            Logger logger = options.getBoolean("verbose", false) ? LoggerFactory.getLogger("FlameWallProxyBridge") : NOPLogger.NOP_LOGGER;
+            FlameWallProxyBridge plugin = new FlameWallProxyBridge(fake.getProxy(), logger, dataDirectory);
+            plugin.onProxyInitialization(new ProxyInitializeEvent());
+            Emitter socketEvents = new Emitter();
+            plugin.registerSocketHandlers(socketEvents);
+
+            ScheduledFuture<?> sampler = scheduler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max), 0, 250, TimeUnit.MILLISECONDS);
+            long[] gcBefore = LoadGenerator.gcTotals();
+
+            long replayed = 0;
+            long firstMicros = -1;
+            long lastMicros = 0;
+            long start = System.nanoTime();
+            TrafficCaptureReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (firstMicros < 0) {
+                    firstMicros = entry.getTimestampMicros();
+                }
+                lastMicros = entry.getTimestampMicros();
+                if (speed > 0) {
+                    long due = start + (long) ((entry.getTimestampMicros() - firstMicros) * 1000 / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                if (entry.isPluginMessage()) {
+                    Player source = sourcePlayers.computeIfAbsent(entry.getName(),
+                            name -> fake.addPlayer("replay_" + name, UUID.randomUUID(), fake.addServer(name)));
+                    plugin.onPluginMessage(new PluginMessageEvent(source.getCurrentServer().orElseThrow(), source,
+                            LoadGenerator.CHANNEL, entry.getPayload()));
+                    count("plugin:" + entry.getName());
+                } else if (entry.isSocketEvent()) {
+                    socketEvents.emit(entry.getName(), toArgs(new JSONArray(entry.getPayloadAsString())));
+                    count("socket:" + entry.getName());
+                }
+                replayed++;
+            }
+            double replaySeconds = (System.nanoTime() - start) / 1e9;
+
+            long drainDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(options.getLong("drain", 10));
+            LoadGenerator.awaitCondition(() -> plugin.getApiClient().getOfflineQueueSize() == 0
+                    && plugin.getApiClient().getLimiter().getInFlight() == 0
+                    && plugin.getApiClient().getLimiter().getQueued() == 0, drainDeadline - System.currentTimeMillis());
+            sampler.cancel(false);
+            long[] gcAfter = LoadGenerator.gcTotals();
+            plugin.onProxyShutdown(new ProxyShutdownEvent());
+
+            double capturedSeconds = firstMicros < 0 ? 0 : (lastMicros - firstMicros) / 1e6;
+            System.out.println();
+            System.out.println("=== FlameWall traffic replay ===");
+            System.out.printf("Capture     : %d file(s), %d records spanning %.1fs, %d truncated file(s)%n",
+                    files.size(), replayed, capturedSeconds, reader.getTruncatedFiles());
+            System.out.printf("Replay      : %.1fs at speed %s (%.1f records/s)%n", replaySeconds,
+                    speed > 0 ? speed + "x" : "max", replayed / Math.max(replaySeconds, 1e-9));
+            System.out.println("Records     : " + replayedByName);
+            System.out.printf("Backend     : %d event batches ingested, %d rank updates, %d injected errors, %d dropped connections%n",
+                    ingested.sum(), backend.getRankUpdates(), backend.getInjectedErrors(), backend.getInjectedDrops());
+            System.out.printf("Memory      : peak heap %d MB, %d GC runs (%d ms)%n",
+                    peakHeap.get() / (1024 * 1024), gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+            System.out.println("Requests    : " + backend.getRequestCounts());
+        } finally {
+            scheduler.shutdownNow();
+            LoadGenerator.deleteRecursively(dataDirectory);
+        }
+    }
+
+    private void count(String name) {
+        replayedByName.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    private static Object[] toArgs(JSONArray encoded) {
+        Object[] args = new Object[encoded.length()];
+        for (int i = 0; i < args.length; i++) {
+            Object value = encoded.get(i);
+            args[i] = JSONObject.NULL.equals(value) ? null : value;
+        }
+        return args;
+    }
+}
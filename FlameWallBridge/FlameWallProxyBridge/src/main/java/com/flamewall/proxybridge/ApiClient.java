@@ -1,5 +1,17 @@
 package com.flamewall.proxybridge;
 
+import com.flamewall.proxybridge.exec.BlockingExecutor;
+import com.flamewall.proxybridge.exec.BlockingWork;
+import com.flamewall.proxybridge.http.AdaptiveLimiter;
+import com.flamewall.proxybridge.http.ApiEndpoint;
+import com.flamewall.proxybridge.http.BackendPool;
+import com.flamewall.proxybridge.http.CircuitBreaker;
+import com.flamewall.proxybridge.http.RequestLane;
+import com.flamewall.proxybridge.http.RetryPolicy;
+import com.flamewall.proxybridge.manager.ShopCommandBundler;
+import com.flamewall.proxybridge.storage.EventQueueStore;
+import com.flamewall.proxybridge.trace.EventTrace;
+import com.flamewall.proxybridge.trace.EventTracer;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.kyori.adventure.text.Component;
@@ -9,28 +21,136 @@ import org.jetbrains.annotations.NotNull;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 public class ApiClient {
+    private static final int REPLAY_BATCH_SIZE = 100;
+    private static final String REPLAY_KIND_KEY = "__replay";
+    private static final String REPLAY_SHOP_CONFIRM = "shop-confirm";
+    private static final String REPLAY_RANK_SYNC = "rank-sync";
+    private static final String EVENT_INGEST_PATH = "/api/internal/event-ingest";
+    private static final String SHOP_PENDING_PATH = "/api/shop/pending-commands";
+    private static final String SHOP_CONFIRM_PATH = "/api/shop/clear-pending-commands";
+    private static final String RANK_SYNC_PATH = "/api/internal/rank-sync/batch";
 
     private final FlameWallProxyBridge plugin;
     private final ProxyServer server;
     private final Logger logger;
     private final OkHttpClient httpClient;
+    private final OkHttpClient probeClient;
+    private final BackendPool backends;
     private final String baseUrl;
     private final String apiKey;
-
-    public ApiClient(FlameWallProxyBridge plugin, ProxyServer server, Logger logger, String baseUrl, String apiKey) {
+    private final EventQueueStore offlineQueue;
+    private final RetryPolicy retryPolicy;
+    private final AdaptiveLimiter limiter;
+    private final EventTracer tracer;
+    private final BlockingExecutor blockingExecutor;
+    private final Map<ApiEndpoint, CircuitBreaker> circuitBreakers = new EnumMap<>(ApiEndpoint.class);
+    private final AtomicBoolean replayInProgress = new AtomicBoolean(false);
+    private final AtomicBoolean shopFetchInProgress = new AtomicBoolean(false);
+    private volatile boolean shopFetchRequested;
+    private final Set<ResilientCall> activeCalls = ConcurrentHashMap.newKeySet();
+    private volatile boolean draining;
+
+    public ApiClient(FlameWallProxyBridge plugin, ProxyServer server, Logger logger, BackendPool backends, String apiKey,
+                     EventQueueStore offlineQueue, RetryPolicy retryPolicy, int breakerFailureThreshold, long breakerOpenMillis,
+                     AdaptiveLimiter limiter, int maxConnections, EventTracer tracer, BlockingExecutor blockingExecutor) {
         this.plugin = plugin;
         this.server = server;
         this.logger = logger;
-        this.httpClient = new OkHttpClient();
-        this.baseUrl = baseUrl;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxConnections);
+        dispatcher.setMaxRequestsPerHost(maxConnections);
+        this.httpClient = new OkHttpClient.Builder().dispatcher(dispatcher).build();
+        this.probeClient = httpClient.newBuilder().callTimeout(2, TimeUnit.SECONDS).build();
+        this.limiter = limiter;
+        this.tracer = tracer;
+        this.blockingExecutor = blockingExecutor;
+        this.backends = backends;
+        this.baseUrl = backends.getPrimaryUrl();
         this.apiKey = apiKey;
-        logger.info("✅ [API] ApiClient initialized. Backend URL: {}", this.baseUrl);
+        this.offlineQueue = offlineQueue;
+        this.retryPolicy = retryPolicy;
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            circuitBreakers.put(endpoint, new CircuitBreaker(endpoint.getKey(), breakerFailureThreshold, breakerOpenMillis));
+        }
+        logger.info("✅ [API] ApiClient initialized. Backend URLs: {}", backends.getBackends().stream()
+                .map(BackendPool.Backend::getUrl).collect(Collectors.joining(", ")));
+    }
+
+    public BackendPool getBackends() {
+        return backends;
+    }
+
+    public void probeBackends() {
+        backends.probe(probeClient, apiKey);
+    }
+
+    public CircuitBreaker.State getCircuitState(ApiEndpoint endpoint) {
+        return circuitBreakers.get(endpoint).getState();
+    }
+
+    public boolean isAvailable(ApiEndpoint endpoint) {
+        return circuitBreakers.get(endpoint).allowsRequests();
+    }
+
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    public EventTracer getTracer() {
+        return tracer;
+    }
+
+    public long getOfflineQueueSize() {
+        return offlineQueue != null ? offlineQueue.size() : 0;
+    }
+
+    public void logMetrics() {
+        logger.info("📊 [API] limit={} inFlight={} queued={} shed={} lastRtt={}ms",
+                limiter.getLimit(), limiter.getInFlight(), limiter.getQueued(), limiter.getShedCount(), limiter.getLastRttMillis());
+        for (RequestLane lane : RequestLane.values()) {
+            logger.info("📊 [API] lane={} inFlight={} queued={} shed={} queueTime avg={}ms max={}ms",
+                    lane, limiter.getInFlight(lane), limiter.getQueued(lane), limiter.getShedCount(lane),
+                    String.format("%.1f", limiter.getAverageQueueMillis(lane)), limiter.getMaxQueueMillis(lane));
+        }
+        if (blockingExecutor != null) {
+            for (BlockingWork kind : BlockingWork.values()) {
+                logger.info("📊 [Exec] {} active={} waiting={}", kind, blockingExecutor.getActive(kind), blockingExecutor.getWaiting(kind));
+            }
+        }
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            CircuitBreaker.State state = getCircuitState(endpoint);
+            if (state != CircuitBreaker.State.CLOSED) {
+                logger.info("📊 [API] Circuit '{}' is {}", endpoint.getKey(), state);
+            }
+        }
+        if (backends.getBackends().size() > 1) {
+            for (BackendPool.Backend backend : backends.getBackends()) {
+                logger.info("📊 [API] backend={} outstanding={} rtt={}ms ejected={}", backend.getUrl(), backend.getOutstanding(),
+                        String.format("%.1f", backend.getRttMillis()), backend.isEjected());
+            }
+        }
+        if (offlineQueue != null) {
+            logger.info("📊 [API] offlineQueue={} events", getOfflineQueueSize());
+        }
     }
 
     public void sendFriendRequest(Player sender, String receiverName) {
@@ -45,7 +165,7 @@ public class ApiClient {
                     .header("x-api-key", apiKey)
                     .post(body)
                     .build();
-            httpClient.newCall(request).enqueue(new HttpCallback(sender, "Friend request sent to " + receiverName + "!"));
+            enqueue(ApiEndpoint.FRIENDSHIPS, request, new HttpCallback(sender, "Friend request sent to " + receiverName + "!"));
         } catch (JSONException e) {
             handlePluginError(sender, "Could not create JSON for friend request", e);
         }
@@ -63,7 +183,7 @@ public class ApiClient {
                     .header("x-api-key", apiKey)
                     .delete(body)
                     .build();
-            httpClient.newCall(request).enqueue(new HttpCallback(sender, friendToRemoveName + " has been removed from your friends list."));
+            enqueue(ApiEndpoint.FRIENDSHIPS, request, new HttpCallback(sender, friendToRemoveName + " has been removed from your friends list."));
         } catch (JSONException e) {
             handlePluginError(sender, "Could not create JSON for friend removal", e);
         }
@@ -81,7 +201,7 @@ public class ApiClient {
                     .header("x-api-key", apiKey)
                     .post(body)
                     .build();
-            httpClient.newCall(request).enqueue(new HttpCallback(sender, "Friend request accepted!"));
+            enqueue(ApiEndpoint.FRIENDSHIPS, request, new HttpCallback(sender, "Friend request accepted!"));
         } catch (JSONException e) {
             handlePluginError(sender, "Could not create JSON for accepting friend request", e);
         }
@@ -99,7 +219,7 @@ public class ApiClient {
                     .header("x-api-key", apiKey)
                     .post(body)
                     .build();
-            httpClient.newCall(request).enqueue(new HttpCallback(sender, "Friend request denied."));
+            enqueue(ApiEndpoint.FRIENDSHIPS, request, new HttpCallback(sender, "Friend request denied."));
         } catch (JSONException e) {
             handlePluginError(sender, "Could not create JSON for denying friend request", e);
         }
@@ -116,7 +236,7 @@ public class ApiClient {
                 .post(body)
                 .build();
 
-        httpClient.newCall(request).enqueue(new Callback() {
+        enqueue(ApiEndpoint.TARGETS, request, new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
                 logger.error("❌ [API] Failed to register targets. Network error: {}", e.getMessage());
@@ -135,31 +255,264 @@ public class ApiClient {
         });
     }
 
-    public void sendEvent(JSONObject payload) {
-        logger.info("➡️ [API] Sending game event to backend: {}", payload.toString());
-        RequestBody body = RequestBody.create(payload.toString(), MediaType.get("application/json; charset=utf-8"));
-        Request request = new Request.Builder()
-                .url(baseUrl + "/api/internal/event-ingest")
-                .header("x-api-key", apiKey)
-                .post(body)
-                .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+    public void sendEvent(JSONObject payload, EventTrace trace) {
+        String json = payload.toString();
+        if (draining) {
+            tracer.complete(trace, false);
+            queueOffline(json, false);
+            return;
+        }
+        logger.info("➡️ [API] Sending game event to backend: {}", json);
+        Request.Builder builder = postRequest(EVENT_INGEST_PATH, json);
+        if (trace != null) {
+            builder.header("x-trace-id", trace.getId()).tag(EventTrace.class, trace);
+        }
+        enqueue(ApiEndpoint.EVENT_INGEST, builder.build(), new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                logger.error("❌ [API] Failed to send event to backend. Network error:", e);
+                tracer.complete(trace, false);
+                if (e instanceof CircuitOpenException) {
+                    logger.warn("⚡ [API] Event ingest circuit is open, queuing event locally.");
+                } else {
+                    logger.error("❌ [API] Failed to send event to backend. Network error:", e);
+                }
+                queueOffline(json, false);
             }
 
             @Override
             public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
+                tracer.complete(trace, response.isSuccessful());
                 if (!response.isSuccessful()) {
                     logger.warn("❌ [API] Backend responded with an error to the game event. Code: {}", response.code());
+                    if (response.code() >= 500 || RetryPolicy.isRetryableStatus(response.code())) {
+                        queueOffline(json, false);
+                    }
                 } else {
                     logger.info("✅ [API] Game event successfully accepted by backend.");
                 }
                 response.close();
             }
-        });
+        }, json, false);
+    }
+
+    public void replayQueuedEvents() {
+        if (offlineQueue == null || !isAvailable(ApiEndpoint.EVENT_INGEST)
+                || !replayInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        runOutbox(this::replayQueuedBatch);
+    }
+
+    private void replayQueuedBatch() {
+        Map<Long, String> queued = offlineQueue.getQueuedEvents(REPLAY_BATCH_SIZE);
+        if (queued.isEmpty() || draining) {
+            replayInProgress.set(false);
+            return;
+        }
+        logger.info("📦 [API] Replaying {} locally queued events...", queued.size());
+        AtomicInteger remaining = new AtomicInteger(queued.size());
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        queued.forEach((id, json) -> replay(json, new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                failed.set(true);
+                finish();
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                if (response.isSuccessful() || (response.code() >= 400 && response.code() < 500 && !RetryPolicy.isRetryableStatus(response.code()))) {
+                    delivered.add(id);
+                } else {
+                    failed.set(true);
+                }
+                response.close();
+                finish();
+            }
+
+            private void finish() {
+                if (remaining.decrementAndGet() != 0) {
+                    return;
+                }
+                runOutbox(() -> {
+                    offlineQueue.deleteEvents(new ArrayList<>(delivered));
+                    if (!failed.get() && isAvailable(ApiEndpoint.EVENT_INGEST)) {
+                        replayQueuedBatch();
+                    } else {
+                        replayInProgress.set(false);
+                    }
+                });
+            }
+        }));
+    }
+
+    private void replay(String json, Callback callback) {
+        JSONObject envelope = parseEnvelope(json);
+        if (envelope == null) {
+            post(ApiEndpoint.EVENT_INGEST, EVENT_INGEST_PATH, json, null, callback);
+            return;
+        }
+        JSONObject bodyJson = envelope.optJSONObject("body");
+        String body = bodyJson != null ? bodyJson.toString() : "{}";
+        switch (envelope.optString(REPLAY_KIND_KEY)) {
+            case REPLAY_SHOP_CONFIRM -> post(ApiEndpoint.SHOP, SHOP_CONFIRM_PATH, body, null,
+                    settlingShopCommands(commandIds(bodyJson), callback));
+            case REPLAY_RANK_SYNC -> post(ApiEndpoint.RANK_SYNC, RANK_SYNC_PATH, body, null, callback);
+            default -> post(ApiEndpoint.EVENT_INGEST, EVENT_INGEST_PATH, json, null, callback);
+        }
+    }
+
+    private void post(ApiEndpoint endpoint, String path, String json, String spillJson, Callback callback) {
+        enqueue(endpoint, postRequest(path, json).build(), callback, spillJson, true);
+    }
+
+    private Request.Builder postRequest(String path, String json) {
+        RequestBody body = RequestBody.create(json, MediaType.get("application/json; charset=utf-8"));
+        return new Request.Builder()
+                .url(baseUrl + path)
+                .header("x-api-key", apiKey)
+                .post(body);
+    }
+
+    private static String offlineEnvelope(String kind, JSONObject body) {
+        return new JSONObject().put(REPLAY_KIND_KEY, kind).put("body", body).toString();
+    }
+
+    public void queueRankUpdatesOffline(Map<String, String> ranks) {
+        if (!ranks.isEmpty()) {
+            queueOffline(offlineEnvelope(REPLAY_RANK_SYNC, rankSyncBody(ranks)), true);
+        }
+    }
+
+    public Map<String, String> takeQueuedRankUpdates() {
+        Map<String, String> ranks = new LinkedHashMap<>();
+        if (offlineQueue == null) {
+            return ranks;
+        }
+        int limit = REPLAY_BATCH_SIZE;
+        while (true) {
+            Map<Long, String> queued = offlineQueue.getQueuedEvents(limit);
+            List<Long> restored = new ArrayList<>();
+            boolean reachedEvents = false;
+            for (Map.Entry<Long, String> entry : queued.entrySet()) {
+                JSONObject envelope = parseEnvelope(entry.getValue());
+                if (envelope == null) {
+                    reachedEvents = true;
+                    break;
+                }
+                if (!REPLAY_RANK_SYNC.equals(envelope.optString(REPLAY_KIND_KEY))) {
+                    continue;
+                }
+                JSONObject body = envelope.optJSONObject("body");
+                JSONArray updates = body != null ? body.optJSONArray("updates") : null;
+                for (int i = 0; updates != null && i < updates.length(); i++) {
+                    JSONObject update = updates.optJSONObject(i);
+                    if (update != null && update.has("minecraftUuid") && update.has("newRankSystemName")) {
+                        ranks.put(update.getString("minecraftUuid"), update.getString("newRankSystemName"));
+                    }
+                }
+                restored.add(entry.getKey());
+            }
+            offlineQueue.deleteEvents(restored);
+            if (reachedEvents || queued.size() < limit) {
+                return ranks;
+            }
+            limit = queued.size() - restored.size() + REPLAY_BATCH_SIZE;
+        }
+    }
+
+    public List<Integer> queuedShopConfirmations() {
+        List<Integer> ids = new ArrayList<>();
+        if (offlineQueue == null) {
+            return ids;
+        }
+        int limit = REPLAY_BATCH_SIZE;
+        List<String> queued = new ArrayList<>(offlineQueue.getQueuedEvents(limit).values());
+        while (queued.size() >= limit && parseEnvelope(queued.get(queued.size() - 1)) != null) {
+            limit *= 2;
+            queued = new ArrayList<>(offlineQueue.getQueuedEvents(limit).values());
+        }
+        for (String json : queued) {
+            JSONObject envelope = parseEnvelope(json);
+            if (envelope == null) {
+                break;
+            }
+            if (REPLAY_SHOP_CONFIRM.equals(envelope.optString(REPLAY_KIND_KEY))) {
+                ids.addAll(commandIds(envelope.optJSONObject("body")));
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> commandIds(JSONObject body) {
+        List<Integer> ids = new ArrayList<>();
+        JSONArray array = body != null ? body.optJSONArray("commandIds") : null;
+        for (int i = 0; array != null && i < array.length(); i++) {
+            ids.add(array.optInt(i));
+        }
+        return ids;
+    }
+
+    private static JSONObject parseEnvelope(String json) {
+        if (!json.startsWith("{")) {
+            return null;
+        }
+        try {
+            JSONObject object = new JSONObject(json);
+            return object.has(REPLAY_KIND_KEY) ? object : null;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    public int drain(long timeoutMillis) {
+        draining = true;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        logger.info("🔌 [API] Draining {} in-flight requests (up to {} ms)...", activeCalls.size(), timeoutMillis);
+        while (!activeCalls.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(25);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        int spilled = 0;
+        int abandoned = 0;
+        for (ResilientCall call : new ArrayList<>(activeCalls)) {
+            if (call.complete()) {
+                abandoned++;
+                if (call.spillJson != null) {
+                    queueOffline(call.spillJson, call.spillPriority);
+                    spilled++;
+                }
+            }
+        }
+        httpClient.dispatcher().cancelAll();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+        if (abandoned > 0) {
+            logger.warn("🔌 [API] Drain deadline reached, abandoned {} requests and saved {} of them for replay.", abandoned, spilled);
+        } else {
+            logger.info("🔌 [API] All in-flight requests completed.");
+        }
+        return spilled;
+    }
+
+    private void queueOffline(String json, boolean priority) {
+        if (offlineQueue != null) {
+            runOutbox(() -> offlineQueue.queueEvent(json, priority));
+        }
+    }
+
+    // In virtual thread mode outbox writes leave the HTTP threads; while draining they stay inline so they land before the store closes.
+    private void runOutbox(Runnable task) {
+        if (blockingExecutor != null && !draining) {
+            blockingExecutor.execute(BlockingWork.OUTBOX, task);
+        } else {
+            task.run();
+        }
     }
 
     public void getFriendsList(Player sender) {
@@ -169,7 +522,7 @@ public class ApiClient {
                 .header("x-api-key", apiKey)
                 .get()
                 .build();
-        httpClient.newCall(request).enqueue(new Callback() {
+        enqueue(ApiEndpoint.FRIENDSHIPS, request, new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
                 handleApiFailure(sender, e);
@@ -207,17 +560,35 @@ public class ApiClient {
     }
 
     public void fetchAndExecutePendingCommands() {
+        if (draining) {
+            return;
+        }
+        shopFetchRequested = true;
+        if (!shopFetchInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        shopFetchRequested = false;
         logger.info("🛒 [Shop] Fetching pending commands from the website...");
+        fetchPendingCommandPage(0, 0);
+    }
+
+    private void fetchPendingCommandPage(int after, int processed) {
+        if (draining) {
+            finishShopFetch(processed);
+            return;
+        }
+        int limit = plugin.getShopPageSize();
         Request request = new Request.Builder()
-                .url(baseUrl + "/api/shop/pending-commands")
+                .url(baseUrl + SHOP_PENDING_PATH + "?after=" + after + "&limit=" + limit)
                 .header("x-api-key", apiKey)
                 .get()
                 .build();
 
-        httpClient.newCall(request).enqueue(new Callback() {
+        enqueue(ApiEndpoint.SHOP, request, new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
                 logger.warn("🛒 [Shop] Could not fetch commands: " + e.getMessage());
+                finishShopFetch(processed);
             }
 
             @Override
@@ -225,41 +596,92 @@ public class ApiClient {
                 if (!response.isSuccessful()) {
                     logger.warn("🛒 [Shop] Could not fetch commands, API response code: " + response.code());
                     response.close();
+                    finishShopFetch(processed);
                     return;
                 }
+                ShopCommandBundler bundler = plugin.newShopCommandBundler();
+                int count = 0;
+                int lastId = after;
+                boolean complete = false;
                 try (ResponseBody body = response.body()) {
-                    JSONArray commands = new JSONArray(body.string());
-                    if (commands.length() > 0) {
-                        logger.info("🛒 [Shop] Found {} pending commands. Processing...", commands.length());
-                        plugin.processPendingCommands(commands);
+                    JSONTokener tokener = new JSONTokener(body.charStream());
+                    if (tokener.nextClean() != '[') {
+                        throw tokener.syntaxError("Expected a JSON array of commands");
                     }
+                    char next = tokener.nextClean();
+                    if (next != ']') {
+                        tokener.back();
+                        do {
+                            Object value = tokener.nextValue();
+                            count++;
+                            if (value instanceof JSONObject) {
+                                JSONObject cmdObj = (JSONObject) value;
+                                lastId = Math.max(lastId, cmdObj.optInt("id", lastId));
+                                try {
+                                    int commandId = cmdObj.getInt("id");
+                                    String command = cmdObj.getString("command");
+                                    plugin.dispatchShopCommand(bundler, commandId, command, cmdObj.optBoolean("is_global"));
+                                } catch (JSONException e) {
+                                    logger.error("❌ [Shop] Failed to parse pending command " + cmdObj, e);
+                                }
+                            }
+                            next = tokener.nextClean();
+                        } while (next == ',');
+                        if (next != ']') {
+                            throw tokener.syntaxError("Expected ',' or ']' after a command");
+                        }
+                    }
+                    complete = true;
                 } catch (Exception e) {
                     logger.error("🛒 [Shop] Could not process pending commands", e);
                 }
+                List<Integer> executedIds = plugin.flushShopCommands(bundler);
+                int total = processed + count;
+                int cursor = lastId;
+                boolean hasMore = complete && count >= limit && cursor > after;
+                clearExecutedCommands(executedIds, () -> {
+                    if (hasMore) {
+                        fetchPendingCommandPage(cursor, total);
+                    } else {
+                        finishShopFetch(total);
+                    }
+                });
             }
         });
     }
 
-    public void clearExecutedCommands(List<Integer> ids) {
+    private void finishShopFetch(int processed) {
+        if (processed > 0) {
+            logger.info("🛒 [Shop] Processed {} pending commands.", processed);
+        }
+        shopFetchInProgress.set(false);
+        if (shopFetchRequested && !draining) {
+            fetchAndExecutePendingCommands();
+        }
+    }
+
+    public void clearExecutedCommands(List<Integer> ids, Runnable onDone) {
         if (ids == null || ids.isEmpty()) {
+            onDone.run();
             return;
         }
         logger.info("🛒 [Shop] Confirming execution of {} commands with the website...", ids.size());
         try {
             JSONObject jsonBody = new JSONObject();
             jsonBody.put("commandIds", new JSONArray(ids));
-            RequestBody body = RequestBody.create(jsonBody.toString(), MediaType.get("application/json; charset=utf-8"));
-
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/shop/clear-pending-commands")
-                    .header("x-api-key", apiKey)
-                    .post(body)
-                    .build();
+            String envelope = offlineEnvelope(REPLAY_SHOP_CONFIRM, jsonBody);
+            if (draining) {
+                queueOffline(envelope, true);
+                onDone.run();
+                return;
+            }
 
-            httpClient.newCall(request).enqueue(new Callback() {
+            post(ApiEndpoint.SHOP, SHOP_CONFIRM_PATH, jsonBody.toString(), envelope, new Callback() {
                 @Override
                 public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                    logger.warn("🛒 [Shop] Could not confirm executed commands: " + e.getMessage());
+                    logger.warn("🛒 [Shop] Could not confirm executed commands, saving confirmation for replay: " + e.getMessage());
+                    queueOffline(envelope, true);
+                    onDone.run();
                 }
 
                 @Override
@@ -269,14 +691,42 @@ public class ApiClient {
                     } else {
                         logger.warn("🛒 [Shop] Could not confirm executed commands, API response code: " + response.code());
                     }
+                    if (isSettled(response.code())) {
+                        plugin.confirmShopCommands(ids);
+                    } else {
+                        queueOffline(envelope, true);
+                    }
                     response.close();
+                    onDone.run();
                 }
             });
         } catch (Exception e) {
             logger.error("🛒 [Shop] Could not create request to clear executed commands", e);
+            onDone.run();
         }
     }
 
+    private Callback settlingShopCommands(List<Integer> ids, Callback callback) {
+        return new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                callback.onFailure(call, e);
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
+                if (isSettled(response.code())) {
+                    plugin.confirmShopCommands(ids);
+                }
+                callback.onResponse(call, response);
+            }
+        };
+    }
+
+    private static boolean isSettled(int code) {
+        return code < 500 && !RetryPolicy.isRetryableStatus(code);
+    }
+
     private void runOnMainThread(Runnable task) {
         server.getScheduler().buildTask(plugin, task).schedule();
     }
@@ -288,7 +738,183 @@ public class ApiClient {
 
     private void handleApiFailure(Player player, IOException e) {
         logger.error("❌ [API] Failed to send request for {}: {}", player.getUsername(), e.getMessage());
-        runOnMainThread(() -> player.sendMessage(Component.text("Error: Could not connect to the website API.").color(NamedTextColor.RED)));
+        String message;
+        if (e instanceof CircuitOpenException) {
+            message = "The website is temporarily unavailable. Please try again in a moment.";
+        } else if (e instanceof RequestShedException) {
+            message = "The website is busy right now. Please try again in a moment.";
+        } else {
+            message = "Error: Could not connect to the website API.";
+        }
+        runOnMainThread(() -> player.sendMessage(Component.text(message).color(NamedTextColor.RED)));
+    }
+
+    private void enqueue(ApiEndpoint endpoint, Request request, Callback callback) {
+        enqueue(endpoint, request, callback, null, false);
+    }
+
+    private void enqueue(ApiEndpoint endpoint, Request request, Callback callback, String spillJson, boolean spillPriority) {
+        ResilientCall resilientCall = new ResilientCall(endpoint, request, callback, spillJson, spillPriority);
+        activeCalls.add(resilientCall);
+        resilientCall.start();
+    }
+
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(ApiEndpoint endpoint) {
+            super("Circuit breaker for endpoint '" + endpoint.getKey() + "' is open");
+        }
+    }
+
+    public static class RequestShedException extends IOException {
+        public RequestShedException(ApiEndpoint endpoint) {
+            super("Request to endpoint '" + endpoint.getKey() + "' was shed by the concurrency limiter");
+        }
+    }
+
+    private class ResilientCall implements Callback {
+        private final ApiEndpoint endpoint;
+        private final Request request;
+        private final Callback delegate;
+        private final CircuitBreaker breaker;
+        private final String spillJson;
+        private final boolean spillPriority;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private int attempt;
+        private long sentAt;
+        private BackendPool.Dispatch dispatch;
+
+        private ResilientCall(ApiEndpoint endpoint, Request request, Callback delegate, String spillJson, boolean spillPriority) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.delegate = delegate;
+            this.breaker = circuitBreakers.get(endpoint);
+            this.spillJson = spillJson;
+            this.spillPriority = spillPriority;
+        }
+
+        private void start() {
+            Call call = httpClient.newCall(request);
+            if (!breaker.tryAcquire()) {
+                if (complete()) {
+                    delegate.onFailure(call, new CircuitOpenException(endpoint));
+                }
+                return;
+            }
+            limiter.submit(endpoint.getLane(), () -> {
+                attempt++;
+                dispatch = backends.dispatch(dispatch);
+                Call routed = httpClient.newCall(backends.route(request, dispatch.getBackend()));
+                sentAt = System.nanoTime();
+                EventTrace trace = request.tag(EventTrace.class);
+                if (trace != null) {
+                    trace.markDispatched();
+                }
+                if (blockingExecutor != null) {
+                    blockingExecutor.execute(BlockingWork.HTTP, () -> executeBlocking(routed));
+                } else {
+                    routed.enqueue(this);
+                }
+            }, endpoint.getShedPolicy(), () -> {
+                breaker.abandonAttempt();
+                if (complete()) {
+                    delegate.onFailure(call, new RequestShedException(endpoint));
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@NotNull Call call, @NotNull IOException e) {
+            long rtt = System.nanoTime() - sentAt;
+            limiter.release(endpoint.getLane(), rtt, true);
+            backends.onComplete(dispatch, rtt, true);
+            recordFailure();
+            if (endpoint.isIdempotent() && retryPolicy.canRetry(attempt)) {
+                scheduleRetry(call, retryPolicy.backoffMillis(attempt), e.getMessage());
+                return;
+            }
+            if (complete()) {
+                delegate.onFailure(call, e);
+            }
+        }
+
+        @Override
+        public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
+            int code = response.code();
+            long rtt = System.nanoTime() - sentAt;
+            limiter.release(endpoint.getLane(), rtt, code >= 500 || code == 429);
+            backends.onComplete(dispatch, rtt, code >= 500);
+            if (!RetryPolicy.isRetryableStatus(code) && code < 500) {
+                breaker.recordSuccess();
+                deliver(call, response);
+                return;
+            }
+            recordFailure();
+            String retryAfter = response.header("Retry-After");
+            long retryAfterMillis = RetryPolicy.parseRetryAfter(retryAfter);
+            if (retryAfterMillis > 0) {
+                breaker.pauseUntil(System.currentTimeMillis() + retryAfterMillis);
+            }
+            boolean retryable = RetryPolicy.isRetryableStatus(code) && (code == 429 || code == 503 || endpoint.isIdempotent());
+            if (retryable && !retryPolicy.canWait(retryAfterMillis)) {
+                logger.warn("🔁 [API] {} asked to wait {} ms, longer than the retry delay cap; not retrying.",
+                        endpoint.getKey(), retryAfterMillis);
+            } else if (retryable && retryPolicy.canRetry(attempt)) {
+                response.close();
+                scheduleRetry(call, retryPolicy.delayMillis(attempt, retryAfter), "HTTP " + code);
+                return;
+            }
+            deliver(call, response);
+        }
+
+        private void executeBlocking(Call call) {
+            Response response;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                onFailure(call, e);
+                return;
+            }
+            try {
+                onResponse(call, response);
+            } catch (IOException e) {
+                logger.warn("❌ [API] Error while handling the response from {}: {}", request.url().encodedPath(), e.getMessage());
+            }
+        }
+
+        private void deliver(Call call, Response response) throws IOException {
+            if (complete()) {
+                delegate.onResponse(call, response);
+            } else {
+                response.close();
+            }
+        }
+
+        private boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            activeCalls.remove(this);
+            return true;
+        }
+
+
+        private void recordFailure() {
+            if (breaker.recordFailure() == CircuitBreaker.State.OPEN) {
+                logger.warn("⚡ [API] Circuit for endpoint '{}' is open, requests will fail fast.", endpoint.getKey());
+            }
+        }
+
+        private void scheduleRetry(Call call, long delayMillis, String reason) {
+            if (draining) {
+                if (complete()) {
+                    delegate.onFailure(call, new IOException("Retry skipped, proxy is shutting down (" + reason + ")"));
+                }
+                return;
+            }
+            logger.warn("🔁 [API] {} request to {} failed ({}), retry {} in {} ms.",
+                    endpoint.getKey(), request.url().encodedPath(), reason, attempt, delayMillis);
+            server.getScheduler().buildTask(plugin, this::start).delay(delayMillis, TimeUnit.MILLISECONDS).schedule();
+        }
     }
 
     private void handleApiError(Player player, Response response) {
@@ -328,33 +954,34 @@ public class ApiClient {
         }
     }
 
-    public void syncRank(String playerUuid, String rankName) {
-        logger.info("🔄 [API] Syncing rank for UUID {} to rank {}", playerUuid, rankName);
+    public void syncRanks(Map<String, String> ranks, IntConsumer onComplete) {
+        logger.info("🔄 [API] Syncing {} rank updates in one batch", ranks.size());
         try {
-            JSONObject payload = new JSONObject();
-            payload.put("minecraftUuid", playerUuid);
-            payload.put("newRankSystemName", rankName);
-
-            RequestBody body = RequestBody.create(payload.toString(), MediaType.get("application/json; charset=utf-8"));
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/internal/rank-sync")
-                    .header("x-api-key", apiKey)
-                    .post(body)
-                    .build();
-
-            httpClient.newCall(request).enqueue(new Callback() {
+            JSONObject payload = rankSyncBody(ranks);
+            post(ApiEndpoint.RANK_SYNC, RANK_SYNC_PATH, payload.toString(), offlineEnvelope(REPLAY_RANK_SYNC, payload), new Callback() {
                 @Override public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                    logger.warn("❌ [API] Failed to sync rank for UUID {}: {}", playerUuid, e.getMessage());
+                    logger.warn("❌ [API] Failed to sync batch of {} ranks: {}", ranks.size(), e.getMessage());
+                    onComplete.accept(0);
                 }
                 @Override public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
                     if (!response.isSuccessful()) {
-                        logger.warn("❌ [API] Rank sync for UUID {} failed with code: {}", playerUuid, response.code());
+                        logger.warn("❌ [API] Batch rank sync of {} updates failed with code: {}", ranks.size(), response.code());
                     }
+                    onComplete.accept(response.code());
                     response.close();
                 }
             });
         } catch (Exception e) {
             logger.error("Could not create JSON for rank sync", e);
+            onComplete.accept(0);
         }
     }
+
+    private static JSONObject rankSyncBody(Map<String, String> ranks) {
+        JSONArray updates = new JSONArray();
+        ranks.forEach((playerUuid, rankName) -> updates.put(new JSONObject()
+                .put("minecraftUuid", playerUuid)
+                .put("newRankSystemName", rankName)));
+        return new JSONObject().put("updates", updates);
+    }
 }
\ No newline at end of file
@@ -18,9 +18,11 @@ import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.ServerConnection;
 import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
 import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.scheduler.ScheduledTask;
 import io.socket.client.IO;
 import io.socket.client.Socket;
+import io.socket.emitter.Emitter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
@@ -31,16 +33,41 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.flamewall.proxybridge.cluster.ClusterCoordinator;
+import com.flamewall.proxybridge.cluster.LocalCoordinator;
+import com.flamewall.proxybridge.cluster.ShopCommandHandoff;
+import com.flamewall.proxybridge.cluster.SqliteCoordinator;
+import com.flamewall.proxybridge.codec.MessagePackCodec;
 import com.flamewall.proxybridge.command.FlameCommand;
 import com.flamewall.proxybridge.command.LinkCommand;
+import com.flamewall.proxybridge.exec.BlockingExecutor;
+import com.flamewall.proxybridge.exec.BlockingExecutors;
+import com.flamewall.proxybridge.exec.BlockingWork;
+import com.flamewall.proxybridge.http.AdaptiveLimiter;
+import com.flamewall.proxybridge.http.BackendPool;
+import com.flamewall.proxybridge.http.RequestLane;
+import com.flamewall.proxybridge.http.RetryPolicy;
+import com.flamewall.proxybridge.manager.DatabaseManager;
+import com.flamewall.proxybridge.manager.EventDedupManager;
+import com.flamewall.proxybridge.manager.FriendRequestManager;
+import com.flamewall.proxybridge.manager.GlobalChatManager;
 import com.flamewall.proxybridge.manager.PrivateMessageManager;
+import com.flamewall.proxybridge.manager.RankSyncManager;
+import com.flamewall.proxybridge.manager.ServerRoutingTable;
+import com.flamewall.proxybridge.manager.ShopCommandBundler;
+import com.flamewall.proxybridge.storage.EventQueueStore;
+import com.flamewall.proxybridge.storage.SegmentJournalStore;
+import com.flamewall.proxybridge.trace.EventTracer;
+import com.flamewall.proxybridge.trace.TrafficRecorder;
 
 import java.io.*;
 import java.net.URI;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 @Plugin(
         id = "flamewallproxybridge",
         name = "FlameWallProxyBridge",
@@ -52,15 +79,81 @@ public class FlameWallProxyBridge {
     private final ProxyServer server;
     private final Logger logger;
     private Socket socket;
+    private BackendPool backendPool;
+    private volatile BackendPool.Backend socketBackend;
+    private volatile boolean binarySocketCodec;
     private ApiClient apiClient;
+    private EventQueueStore offlineQueue;
     private final Path dataDirectory;
     private PrivateMessageManager messageManager;
-    private final Map<UUID, Map<String, Integer>> pendingRequests = new ConcurrentHashMap<>();
+    private FriendRequestManager friendRequestManager;
+    private GlobalChatManager globalChatManager;
+    private EventDedupManager eventDedupManager;
+    private ServerRoutingTable routingTable;
+    private TrafficRecorder trafficRecorder;
+    private BlockingExecutor blockingExecutor;
+    private ClusterCoordinator coordinator;
+    private ShopCommandHandoff shopHandoff;
     private ScheduledTask pendingCommandsTask;
+    private RankSyncManager rankSyncManager;
+    private ScheduledTask rankSyncTask;
+    private ScheduledTask stateCleanupTask;
+    private ScheduledTask offlineReplayTask;
+    private ScheduledTask metricsTask;
+    private ScheduledTask backendProbeTask;
+    private ScheduledTask coordinationTask;
     private static final ChannelIdentifier FLAMEWALL_CHANNEL = MinecraftChannelIdentifier.create("flamewall", "main");
+    private static final String SOCKET_CODEC_HEADER = "x-flamewall-codec";
+    private static final String SOCKET_CODEC_EVENT = "bridge:codec";
 
     private String backendUrl;
     private String apiKey;
+    private long rankSyncFlushIntervalMs = 250;
+    private long friendRequestTtlMinutes = 60;
+    private int friendRequestMaxPerPlayer = 20;
+    private boolean friendRequestPersist = true;
+    private long replyTargetGraceSeconds = 300;
+    private long pmFastPathTtlSeconds = 600;
+    private List<String> globalChatServers = List.of();
+    private int globalChatMaxMessagesPer10s = 5;
+    private int globalChatQueueCapacity = 1000;
+    private int retryMaxAttempts = 3;
+    private long retryBaseDelayMs = 500;
+    private long retryMaxDelayMs = 10000;
+    private int circuitFailureThreshold = 5;
+    private long circuitOpenSeconds = 30;
+    private int limiterInitial = 10;
+    private int limiterMin = 2;
+    private int limiterMax = 64;
+    private int limiterQueue = 500;
+    private double limiterRttTolerance = 2.0;
+    private String offlineQueueEngine = "sqlite";
+    private int journalSegmentMb = 16;
+    private long journalSyncIntervalMs = 50;
+    private boolean journalGroupCommit = true;
+    private long shutdownDrainSeconds = 10;
+    private long traceSlowThresholdMs = 1000;
+    private long eventDedupRetentionHours = 72;
+    private int traceSlowLogSize = 5;
+    private int shopPageSize = 100;
+    private boolean trafficCaptureEnabled = false;
+    private int trafficCaptureMaxFileMb = 64;
+    private int trafficCaptureMaxFiles = 10;
+    private String executionMode = "callbacks";
+    private final Map<BlockingWork, Integer> virtualThreadPermits = new EnumMap<>(BlockingWork.class);
+    private String coordinationBackend = "local";
+    private String coordinationFile = "cluster.db";
+    private String coordinationNodeId = "";
+    private long coordinationLeaseSeconds = 15;
+    private int routingPendingCapacity = 100;
+    private String backendBalance = "least-outstanding";
+    private String backendHealthPath = "/api";
+    private long backendHealthIntervalSeconds = 10;
+    private int backendEjectAfterFailures = 3;
+    private long backendEjectSeconds = 30;
+    private String shopFallbackGroup = "";
+    private String socketCodec = "json";
+    private final Map<RequestLane, String> laneSettings = new EnumMap<>(RequestLane.class);
 
     @Inject
     public FlameWallProxyBridge(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
@@ -73,13 +166,113 @@ public class FlameWallProxyBridge {
         return apiClient;
     }
 
+    private EventQueueStore createOfflineQueue() {
+        if ("journal".equals(offlineQueueEngine)) {
+            try {
+                return new SegmentJournalStore(dataDirectory.resolve("offline-journal"), logger,
+                        journalSegmentMb * 1024 * 1024, journalSyncIntervalMs, journalGroupCommit);
+            } catch (IOException e) {
+                logger.error("❌ [Startup] Could not open the offline journal, falling back to SQLite.", e);
+            }
+        } else if (!"sqlite".equals(offlineQueueEngine)) {
+            logger.warn("⚠️ [Startup] Unknown offline-queue-engine '{}', using SQLite.", offlineQueueEngine);
+        }
+        return new DatabaseManager(dataDirectory, logger);
+    }
+
+    private BackendPool createBackendPool() {
+        List<String> urls = Arrays.stream(backendUrl.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .collect(Collectors.toList());
+        BackendPool.Balance balance = BackendPool.Balance.LEAST_OUTSTANDING;
+        if ("latency".equals(backendBalance)) {
+            balance = BackendPool.Balance.LATENCY;
+        } else if (!"least-outstanding".equals(backendBalance)) {
+            logger.warn("⚠️ [Startup] Unknown backend-balance '{}', using least-outstanding.", backendBalance);
+        }
+        return new BackendPool(urls, logger, balance, backendHealthPath, backendEjectAfterFailures,
+                TimeUnit.SECONDS.toMillis(backendEjectSeconds));
+    }
+
+    private ClusterCoordinator createCoordinator() {
+        String nodeId = coordinationNodeId.isEmpty() ? "proxy-" + UUID.randomUUID().toString().substring(0, 8) : coordinationNodeId;
+        if ("sqlite".equals(coordinationBackend)) {
+            try {
+                return new SqliteCoordinator(dataDirectory.resolve(coordinationFile), nodeId,
+                        TimeUnit.SECONDS.toMillis(coordinationLeaseSeconds), logger);
+            } catch (SQLException e) {
+                logger.error("❌ [Startup] Could not open the coordination database, running as a single proxy.", e);
+            }
+        } else if (!"local".equals(coordinationBackend)) {
+            logger.warn("⚠️ [Startup] Unknown coordination-backend '{}', running as a single proxy.", coordinationBackend);
+        }
+        return new LocalCoordinator(nodeId);
+    }
+
+    private void runCoordinationTick() {
+        boolean wasLeader = coordinator.isLeader();
+        coordinator.tick();
+        if (coordinator.isLeader() && !wasLeader) {
+            apiClient.fetchAndExecutePendingCommands();
+        }
+        if (shopHandoff != null) {
+            shopHandoff.refresh();
+            ShopCommandBundler bundler = newShopCommandBundler();
+            if (shopHandoff.claim(bundler) > 0) {
+                apiClient.clearExecutedCommands(flushShopCommands(bundler), () -> { });
+            }
+        }
+    }
+
     @Subscribe
     public void onProxyInitialization(ProxyInitializeEvent event) {
         logger.info("🚀 [Startup] Initializing FlameWallProxyBridge...");
         loadConfig();
 
-        this.apiClient = new ApiClient(this, server, logger, this.backendUrl, this.apiKey);
-        this.messageManager = new PrivateMessageManager();
+        this.offlineQueue = createOfflineQueue();
+        this.coordinator = createCoordinator();
+        coordinator.tick();
+        ClusterCoordinator sharedState = coordinator.isClustered() ? coordinator : null;
+        this.shopHandoff = sharedState != null ? new ShopCommandHandoff(coordinator, logger) : null;
+        if ("virtual".equals(executionMode)) {
+            this.blockingExecutor = BlockingExecutors.virtualThreads(virtualThreadPermits, logger);
+        } else if (!"callbacks".equals(executionMode)) {
+            logger.warn("⚠️ [Startup] Unknown execution-mode '{}', using callbacks.", executionMode);
+        }
+        AdaptiveLimiter limiter = new AdaptiveLimiter(limiterInitial, limiterMin, limiterMax, limiterQueue, limiterRttTolerance);
+        laneSettings.forEach((lane, setting) -> {
+            String[] parts = setting.split(":");
+            try {
+                limiter.configureLane(lane, Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ [Startup] Invalid lane setting '{}' for lane {}, expected <weight>:<share>.", setting, lane);
+            }
+        });
+        this.backendPool = createBackendPool();
+        this.apiClient = new ApiClient(this, server, logger, backendPool, this.apiKey, offlineQueue,
+                new RetryPolicy(retryMaxAttempts, retryBaseDelayMs, retryMaxDelayMs),
+                circuitFailureThreshold, TimeUnit.SECONDS.toMillis(circuitOpenSeconds),
+                limiter, limiterMax, new EventTracer(logger, traceSlowThresholdMs, traceSlowLogSize), blockingExecutor);
+        this.messageManager = new PrivateMessageManager(TimeUnit.SECONDS.toMillis(replyTargetGraceSeconds),
+                TimeUnit.SECONDS.toMillis(pmFastPathTtlSeconds), sharedState);
+        this.rankSyncManager = new RankSyncManager(apiClient, logger);
+        if (shopHandoff != null) {
+            shopHandoff.awaitConfirmation(apiClient.queuedShopConfirmations());
+        }
+        Map<String, String> savedRanks = apiClient.takeQueuedRankUpdates();
+        if (!savedRanks.isEmpty()) {
+            rankSyncManager.restorePending(savedRanks);
+            logger.info("🔄 [Startup] Restored {} rank updates saved at the last shutdown.", savedRanks.size());
+        }
+        this.friendRequestManager = new FriendRequestManager(dataDirectory, logger,
+                TimeUnit.MINUTES.toMillis(friendRequestTtlMinutes), friendRequestMaxPerPlayer, friendRequestPersist, sharedState);
+        friendRequestManager.load();
+        this.eventDedupManager = new EventDedupManager(dataDirectory, logger, TimeUnit.HOURS.toMillis(eventDedupRetentionHours));
+        eventDedupManager.load();
+        this.routingTable = new ServerRoutingTable(server, logger, routingPendingCapacity);
+        this.globalChatManager = new GlobalChatManager(server, logger, globalChatServers, routingTable,
+                globalChatMaxMessagesPer10s, globalChatQueueCapacity);
         logger.info("🔧 [Startup] Registering commands...");
         CommandManager commandManager = server.getCommandManager();
         CommandMeta flameMeta = commandManager.metaBuilder("flame").aliases("fw").build();
@@ -88,10 +281,69 @@ public class FlameWallProxyBridge {
         commandManager.register(linkMeta, new LinkCommand(this));
         logger.info("🔧 [Startup] Registering plugin channels...");
         server.getChannelRegistrar().register(FLAMEWALL_CHANNEL);
-        connectToWebSocket();
+        if (trafficCaptureEnabled) {
+            try {
+                this.trafficRecorder = new TrafficRecorder(dataDirectory.resolve("captures"), logger,
+                        trafficCaptureMaxFileMb * 1024L * 1024L, trafficCaptureMaxFiles);
+            } catch (IOException e) {
+                logger.error("❌ [Startup] Could not start traffic capture.", e);
+            }
+        }
+        connectToWebSocket(backendPool.choose(null));
+        if (backendPool.getBackends().size() > 1) {
+            this.backendProbeTask = server.getScheduler()
+                    .buildTask(this, () -> {
+                        apiClient.probeBackends();
+                        checkSocketBackend();
+                    })
+                    .repeat(backendHealthIntervalSeconds, TimeUnit.SECONDS)
+                    .delay(backendHealthIntervalSeconds, TimeUnit.SECONDS)
+                    .schedule();
+        }
         logger.info("⏰ [Startup] Starting scheduler for shop command checks...");
         this.pendingCommandsTask = server.getScheduler()
-                .buildTask(this, () -> apiClient.fetchAndExecutePendingCommands())
+                .buildTask(this, () -> {
+                    if (coordinator.isLeader()) {
+                        apiClient.fetchAndExecutePendingCommands();
+                    }
+                })
+                .repeat(1, TimeUnit.MINUTES)
+                .delay(1, TimeUnit.MINUTES)
+                .schedule();
+        long heartbeatSeconds = Math.max(1, coordinationLeaseSeconds / 3);
+        this.coordinationTask = server.getScheduler()
+                .buildTask(this, this::runCoordinationTick)
+                .repeat(heartbeatSeconds, TimeUnit.SECONDS)
+                .delay(heartbeatSeconds, TimeUnit.SECONDS)
+                .schedule();
+        this.rankSyncTask = server.getScheduler()
+                .buildTask(this, () -> rankSyncManager.flush())
+                .repeat(rankSyncFlushIntervalMs, TimeUnit.MILLISECONDS)
+                .delay(rankSyncFlushIntervalMs, TimeUnit.MILLISECONDS)
+                .schedule();
+        this.offlineReplayTask = server.getScheduler()
+                .buildTask(this, () -> apiClient.replayQueuedEvents())
+                .repeat(30, TimeUnit.SECONDS)
+                .delay(30, TimeUnit.SECONDS)
+                .schedule();
+        this.metricsTask = server.getScheduler()
+                .buildTask(this, () -> {
+                    apiClient.logMetrics();
+                    apiClient.getTracer().logAndReset();
+                })
+                .repeat(5, TimeUnit.MINUTES)
+                .delay(5, TimeUnit.MINUTES)
+                .schedule();
+        this.stateCleanupTask = server.getScheduler()
+                .buildTask(this, () -> {
+                    int expired = friendRequestManager.purgeExpired();
+                    if (expired > 0) {
+                        logger.info("💌 [Friends] Expired {} pending friend requests.", expired);
+                    }
+                    messageManager.purgeExpired();
+                    globalChatManager.purgeExpired();
+                    eventDedupManager.purgeExpired();
+                })
                 .repeat(1, TimeUnit.MINUTES)
                 .delay(1, TimeUnit.MINUTES)
                 .schedule();
@@ -112,6 +364,56 @@ public class FlameWallProxyBridge {
                 logger.info("config.properties not found, creating a new one with default settings...");
                 props.setProperty("backend-url", "http:
                 props.setProperty("api-key", "SuperSecretKeyForFlameWallNoMistakes123");
+                props.setProperty("rank-sync-flush-interval-ms", "250");
+                props.setProperty("friend-request-ttl-minutes", "60");
+                props.setProperty("friend-request-max-per-player", "20");
+                props.setProperty("friend-request-persist", "true");
+                props.setProperty("reply-target-grace-seconds", "300");
+                props.setProperty("pm-fast-path-ttl-seconds", "600");
+                props.setProperty("global-chat-servers", "");
+                props.setProperty("global-chat-max-messages-per-10s", "5");
+                props.setProperty("global-chat-queue-capacity", "1000");
+                props.setProperty("retry-max-attempts", "3");
+                props.setProperty("retry-base-delay-ms", "500");
+                props.setProperty("retry-max-delay-ms", "10000");
+                props.setProperty("circuit-failure-threshold", "5");
+                props.setProperty("circuit-open-seconds", "30");
+                props.setProperty("limiter-initial", "10");
+                props.setProperty("limiter-min", "2");
+                props.setProperty("limiter-max", "64");
+                props.setProperty("limiter-queue", "500");
+                props.setProperty("limiter-rtt-tolerance", "2.0");
+                props.setProperty("offline-queue-engine", "sqlite");
+                props.setProperty("journal-segment-mb", "16");
+                props.setProperty("journal-sync-interval-ms", "50");
+                props.setProperty("journal-group-commit", "true");
+                props.setProperty("shutdown-drain-seconds", "10");
+                props.setProperty("trace-slow-threshold-ms", "1000");
+                props.setProperty("trace-slow-log-size", "5");
+                props.setProperty("event-dedup-retention-hours", "72");
+                props.setProperty("shop-page-size", "100");
+                props.setProperty("traffic-capture-enabled", "false");
+                props.setProperty("traffic-capture-max-file-mb", "64");
+                props.setProperty("traffic-capture-max-files", "10");
+                props.setProperty("execution-mode", "callbacks");
+                props.setProperty("virtual-http-permits", "256");
+                props.setProperty("virtual-outbox-permits", "1");
+                props.setProperty("virtual-socket-permits", "1");
+                props.setProperty("coordination-backend", "local");
+                props.setProperty("coordination-file", "cluster.db");
+                props.setProperty("coordination-node-id", "");
+                props.setProperty("coordination-lease-seconds", "15");
+                props.setProperty("routing-pending-capacity", "100");
+                props.setProperty("backend-balance", "least-outstanding");
+                props.setProperty("backend-health-path", "/api");
+                props.setProperty("backend-health-interval-seconds", "10");
+                props.setProperty("backend-eject-after-failures", "3");
+                props.setProperty("backend-eject-seconds", "30");
+                props.setProperty("shop-fallback-group", "");
+                props.setProperty("socket-codec", "json");
+                for (RequestLane lane : RequestLane.values()) {
+                    props.setProperty("lane-" + lane.name().toLowerCase(), lane.getDefaultWeight() + ":" + lane.getDefaultShare());
+                }
                 try (FileOutputStream out = new FileOutputStream(configFile)) {
                     props.store(out, "FlameWall Proxy Bridge Configuration");
                 }
@@ -123,6 +425,62 @@ public class FlameWallProxyBridge {
 
             this.backendUrl = props.getProperty("backend-url", "http:
             this.apiKey = props.getProperty("api-key", "");
+            this.rankSyncFlushIntervalMs = Long.parseLong(props.getProperty("rank-sync-flush-interval-ms", "250"));
+            this.friendRequestTtlMinutes = Long.parseLong(props.getProperty("friend-request-ttl-minutes", "60"));
+            this.friendRequestMaxPerPlayer = Integer.parseInt(props.getProperty("friend-request-max-per-player", "20"));
+            this.friendRequestPersist = Boolean.parseBoolean(props.getProperty("friend-request-persist", "true"));
+            this.replyTargetGraceSeconds = Long.parseLong(props.getProperty("reply-target-grace-seconds", "300"));
+            this.pmFastPathTtlSeconds = Long.parseLong(props.getProperty("pm-fast-path-ttl-seconds", "600"));
+            this.globalChatServers = Arrays.stream(props.getProperty("global-chat-servers", "").split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .collect(Collectors.toList());
+            this.globalChatMaxMessagesPer10s = Integer.parseInt(props.getProperty("global-chat-max-messages-per-10s", "5"));
+            this.globalChatQueueCapacity = Integer.parseInt(props.getProperty("global-chat-queue-capacity", "1000"));
+            this.retryMaxAttempts = Integer.parseInt(props.getProperty("retry-max-attempts", "3"));
+            this.retryBaseDelayMs = Long.parseLong(props.getProperty("retry-base-delay-ms", "500"));
+            this.retryMaxDelayMs = Long.parseLong(props.getProperty("retry-max-delay-ms", "10000"));
+            this.circuitFailureThreshold = Integer.parseInt(props.getProperty("circuit-failure-threshold", "5"));
+            this.circuitOpenSeconds = Long.parseLong(props.getProperty("circuit-open-seconds", "30"));
+            this.limiterInitial = Integer.parseInt(props.getProperty("limiter-initial", "10"));
+            this.limiterMin = Integer.parseInt(props.getProperty("limiter-min", "2"));
+            this.limiterMax = Integer.parseInt(props.getProperty("limiter-max", "64"));
+            this.limiterQueue = Integer.parseInt(props.getProperty("limiter-queue", "500"));
+            this.limiterRttTolerance = Double.parseDouble(props.getProperty("limiter-rtt-tolerance", "2.0"));
+            this.offlineQueueEngine = props.getProperty("offline-queue-engine", "sqlite").trim().toLowerCase();
+            this.journalSegmentMb = Integer.parseInt(props.getProperty("journal-segment-mb", "16"));
+            this.journalSyncIntervalMs = Long.parseLong(props.getProperty("journal-sync-interval-ms", "50"));
+            this.journalGroupCommit = Boolean.parseBoolean(props.getProperty("journal-group-commit", "true"));
+            this.shutdownDrainSeconds = Long.parseLong(props.getProperty("shutdown-drain-seconds", "10"));
+            this.traceSlowThresholdMs = Long.parseLong(props.getProperty("trace-slow-threshold-ms", "1000"));
+            this.traceSlowLogSize = Integer.parseInt(props.getProperty("trace-slow-log-size", "5"));
+            this.eventDedupRetentionHours = Long.parseLong(props.getProperty("event-dedup-retention-hours", "72"));
+            this.shopPageSize = Math.max(1, Integer.parseInt(props.getProperty("shop-page-size", "100")));
+            this.trafficCaptureEnabled = Boolean.parseBoolean(props.getProperty("traffic-capture-enabled", "false"));
+            this.trafficCaptureMaxFileMb = Integer.parseInt(props.getProperty("traffic-capture-max-file-mb", "64"));
+            this.trafficCaptureMaxFiles = Integer.parseInt(props.getProperty("traffic-capture-max-files", "10"));
+            this.executionMode = props.getProperty("execution-mode", "callbacks").trim().toLowerCase();
+            virtualThreadPermits.put(BlockingWork.HTTP, Integer.parseInt(props.getProperty("virtual-http-permits", "256")));
+            virtualThreadPermits.put(BlockingWork.OUTBOX, Integer.parseInt(props.getProperty("virtual-outbox-permits", "1")));
+            virtualThreadPermits.put(BlockingWork.SOCKET, Integer.parseInt(props.getProperty("virtual-socket-permits", "1")));
+            this.coordinationBackend = props.getProperty("coordination-backend", "local").trim().toLowerCase();
+            this.coordinationFile = props.getProperty("coordination-file", "cluster.db").trim();
+            this.coordinationNodeId = props.getProperty("coordination-node-id", "").trim();
+            this.coordinationLeaseSeconds = Math.max(3, Long.parseLong(props.getProperty("coordination-lease-seconds", "15")));
+            this.routingPendingCapacity = Integer.parseInt(props.getProperty("routing-pending-capacity", "100"));
+            this.backendBalance = props.getProperty("backend-balance", "least-outstanding").trim().toLowerCase();
+            this.backendHealthPath = props.getProperty("backend-health-path", "/api").trim();
+            this.backendHealthIntervalSeconds = Math.max(1, Long.parseLong(props.getProperty("backend-health-interval-seconds", "10")));
+            this.backendEjectAfterFailures = Integer.parseInt(props.getProperty("backend-eject-after-failures", "3"));
+            this.backendEjectSeconds = Long.parseLong(props.getProperty("backend-eject-seconds", "30"));
+            this.shopFallbackGroup = props.getProperty("shop-fallback-group", "").trim().toLowerCase();
+            this.socketCodec = props.getProperty("socket-codec", "json").trim().toLowerCase();
+            for (RequestLane lane : RequestLane.values()) {
+                String setting = props.getProperty("lane-" + lane.name().toLowerCase());
+                if (setting != null) {
+                    laneSettings.put(lane, setting);
+                }
+            }
 
             if (this.apiKey.isEmpty()) {
                 logger.error("!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
@@ -132,7 +490,7 @@ public class FlameWallProxyBridge {
             }
             logger.info("✅ Configuration loaded successfully.");
 
-        } catch (IOException e) {
+        } catch (IOException | NumberFormatException e) {
             logger.error("❌ Failed to load or create config.properties!", e);
         }
     }
@@ -140,14 +498,67 @@ public class FlameWallProxyBridge {
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
         logger.info("🔌 [Shutdown] Disabling proxy plugin...");
-        if (pendingCommandsTask != null) {
-            pendingCommandsTask.cancel();
-            logger.info("⏰ [Shutdown] Scheduler stopped.");
-        }
         if (socket != null) {
             socket.disconnect();
             logger.info("🔌 [Shutdown] WebSocket connection closed.");
         }
+        for (ScheduledTask task : new ScheduledTask[]{pendingCommandsTask, rankSyncTask, stateCleanupTask, offlineReplayTask, metricsTask, coordinationTask, backendProbeTask}) {
+            if (task != null) {
+                task.cancel();
+            }
+        }
+        logger.info("⏰ [Shutdown] Scheduler stopped.");
+        if (rankSyncManager != null) {
+            rankSyncManager.flush();
+        }
+        if (apiClient != null) {
+            apiClient.drain(TimeUnit.SECONDS.toMillis(shutdownDrainSeconds));
+        }
+        if (rankSyncManager != null) {
+            int persisted = rankSyncManager.persistPending();
+            if (persisted > 0) {
+                logger.info("🔌 [Shutdown] Saved {} unsent rank updates for replay.", persisted);
+            }
+        }
+        if (friendRequestManager != null) {
+            friendRequestManager.save();
+        }
+        if (eventDedupManager != null) {
+            eventDedupManager.save();
+        }
+        if (globalChatManager != null) {
+            globalChatManager.shutdown();
+        }
+        if (trafficRecorder != null) {
+            trafficRecorder.close();
+        }
+        if (blockingExecutor != null) {
+            blockingExecutor.shutdown(TimeUnit.SECONDS.toMillis(shutdownDrainSeconds));
+        }
+        if (coordinator != null) {
+            coordinator.close();
+        }
+        if (offlineQueue != null) {
+            offlineQueue.close();
+        }
+    }
+
+    private boolean isDuplicateEvent(JSONObject payload) {
+        String serverId = payload.optString("server_id", "");
+        long seq = payload.optLong("seq", -1);
+        if (serverId.isEmpty() || seq < 0 || eventDedupManager == null) {
+            return false;
+        }
+        try {
+            UUID playerUuid = UUID.fromString(payload.getString("playerUuid"));
+            if (eventDedupManager.accept(serverId, playerUuid, seq)) {
+                return false;
+            }
+            logger.info("🧾 [Dedup] Dropping duplicate event batch {}/{}#{}.", serverId, playerUuid, seq);
+            return true;
+        } catch (IllegalArgumentException | JSONException e) {
+            return false;
+        }
     }
 
     @Subscribe
@@ -156,6 +567,15 @@ public class FlameWallProxyBridge {
         if (!event.getIdentifier().equals(FLAMEWALL_CHANNEL)) {
             return;
         }
+        event.setResult(PluginMessageEvent.ForwardResult.handled());
+        if (!(event.getSource() instanceof ServerConnection)) {
+            logger.warn("⚠️ [Security] Dropped a flamewall:main message that came from a client instead of a backend server.");
+            return;
+        }
+        ServerConnection connection = (ServerConnection) event.getSource();
+        if (trafficRecorder != null) {
+            trafficRecorder.recordPluginMessage(connection.getServerInfo().getName(), event.getData());
+        }
         logger.info("[DEBUG] Received a message on the flamewall:main channel.");
         logger.info("[DEBUG] Source: " + event.getSource().getClass().getName());
 
@@ -165,10 +585,14 @@ public class FlameWallProxyBridge {
         try {
             switch (subChannel) {
                 case "GameEvent": {
+                    long receivedAt = System.currentTimeMillis();
                     String eventJsonString = in.readUTF();
                     JSONObject payload = new JSONObject(eventJsonString);
+                    if (isDuplicateEvent(payload)) {
+                        break;
+                    }
                     if (apiClient != null) {
-                        apiClient.sendEvent(payload);
+                        apiClient.sendEvent(payload, apiClient.getTracer().start(payload, receivedAt));
                     }
                     break;
                 }
@@ -177,8 +601,17 @@ public class FlameWallProxyBridge {
                     JSONObject payload = new JSONObject(rankJsonString);
                     String uuid = payload.getString("minecraftUuid");
                     String rankName = payload.getString("newRankSystemName");
-                    if (apiClient != null) {
-                        apiClient.syncRank(uuid, rankName);
+                    if (rankSyncManager != null) {
+                        rankSyncManager.queueRank(uuid, rankName);
+                    }
+                    break;
+                }
+                case ServerRoutingTable.ANNOUNCE_SUBCHANNEL: {
+                    JSONObject payload = new JSONObject(in.readUTF());
+                    if (routingTable != null) {
+                        RegisteredServer source = connection.getServer();
+                        routingTable.announce(source, payload);
+                        routingTable.flush(source);
                     }
                     break;
                 }
@@ -205,13 +638,21 @@ public class FlameWallProxyBridge {
     @Subscribe
     public void onPlayerJoin(PostLoginEvent event) {
         logger.info("👤 [Status] Player {} joined the server.", event.getPlayer().getUsername());
+        messageManager.handleLogin(event.getPlayer().getUniqueId());
         sendStatusUpdate(event.getPlayer(), true);
     }
 
+    @Subscribe
+    public void onServerPostConnect(ServerPostConnectEvent event) {
+        if (routingTable != null) {
+            event.getPlayer().getCurrentServer().ifPresent(connection -> routingTable.flush(connection.getServer()));
+        }
+    }
+
     @Subscribe
     public void onPlayerQuit(DisconnectEvent event) {
         logger.info("👤 [Status] Player {} left the server.", event.getPlayer().getUsername());
-        pendingRequests.remove(event.getPlayer().getUniqueId());
+        messageManager.handleDisconnect(event.getPlayer().getUniqueId());
         sendStatusUpdate(event.getPlayer(), false);
     }
 
@@ -227,23 +668,74 @@ public class FlameWallProxyBridge {
         }
     }
 
-    public Map<UUID, Map<String, Integer>> getPendingRequests() {
-        return pendingRequests;
+    public int getShopPageSize() {
+        return shopPageSize;
+    }
+
+    public FriendRequestManager getFriendRequestManager() {
+        return friendRequestManager;
+    }
+
+    public GlobalChatManager getGlobalChatManager() {
+        return globalChatManager;
     }
 
-    public void sendJsonPayload(String eventName, JSONObject payload) {
+    public boolean sendJsonPayload(String eventName, JSONObject payload) {
         if (socket != null && socket.connected()) {
-            socket.emit(eventName, payload);
-        } else {
-            logger.warn("🔌 [WS] WebSocket is not connected. Could not send event: {}", eventName);
+            if (binarySocketCodec) {
+                socket.emit(eventName, (Object) MessagePackCodec.encode(payload));
+            } else {
+                socket.emit(eventName, payload);
+            }
+            return true;
         }
+        logger.warn("🔌 [WS] WebSocket is not connected. Could not send event: {}", eventName);
+        return false;
     }
 
-    private void connectToWebSocket() {
-        try {
-            final ChannelIdentifier bungeeChannel = MinecraftChannelIdentifier.create("bungeecord", "main");
+    public void showIncomingPrivateMessage(Player recipient, String senderUsername, String content) {
+        Component prefix = Component.text()
+                .append(Component.text("[", NamedTextColor.DARK_GRAY))
+                .append(Component.text(senderUsername, NamedTextColor.AQUA))
+                .append(Component.text(" -> ", NamedTextColor.GRAY))
+                .append(Component.text("Me", NamedTextColor.AQUA))
+                .append(Component.text("] ", NamedTextColor.DARK_GRAY))
+                .build();
+        Component messageBody = Component.text(content, NamedTextColor.WHITE);
+        recipient.sendMessage(prefix.append(messageBody));
+    }
 
-            String url = this.backendUrl;
+    public void showOutgoingPrivateMessage(Player sender, String recipientUsername, String content) {
+        Component prefix = Component.text()
+                .append(Component.text("[", NamedTextColor.DARK_GRAY))
+                .append(Component.text("Me", NamedTextColor.AQUA))
+                .append(Component.text(" -> ", NamedTextColor.GRAY))
+                .append(Component.text(recipientUsername, NamedTextColor.AQUA))
+                .append(Component.text("] ", NamedTextColor.DARK_GRAY))
+                .build();
+        Component messageBody = Component.text(content, NamedTextColor.WHITE);
+        sender.sendMessage(prefix.append(messageBody));
+    }
+
+    private synchronized void checkSocketBackend() {
+        BackendPool.Backend current = socketBackend;
+        if (current == null || socket == null || (socket.connected() && !current.isEjected())) {
+            return;
+        }
+        BackendPool.Backend next = backendPool.choose(current);
+        if (next != current && backendPool.isAvailable(next)) {
+            logger.warn("🔌 [WS] Backend {} is unavailable, moving the WebSocket to {}.", current.getUrl(), next.getUrl());
+            socket.off();
+            socket.disconnect();
+            connectToWebSocket(next);
+        }
+    }
+
+    private void connectToWebSocket(BackendPool.Backend backend) {
+        try {
+            this.socketBackend = backend;
+            this.binarySocketCodec = false;
+            String url = backend.getUrl();
             String apiKey = this.apiKey;
             if (apiKey == null || apiKey.isEmpty()) {
                 logger.error("🛑 CRITICAL: api-key is not set! The plugin will not work.");
@@ -251,6 +743,9 @@ public class FlameWallProxyBridge {
             }
             Map<String, List<String>> headers = new HashMap<>();
             headers.put("x-api-key", Collections.singletonList(apiKey));
+            if (MessagePackCodec.NAME.equals(socketCodec)) {
+                headers.put(SOCKET_CODEC_HEADER, Collections.singletonList(MessagePackCodec.NAME));
+            }
             IO.Options options = IO.Options.builder()
                     .setExtraHeaders(headers)
                     .setTransports(new String[]{"websocket"})
@@ -258,273 +753,296 @@ public class FlameWallProxyBridge {
                     .build();
             socket = IO.socket(URI.create(url), options);
             socket.on(Socket.EVENT_CONNECT, args -> logger.info("✅ [WS] Successfully connected to the website backend!"));
-            socket.on(Socket.EVENT_DISCONNECT, args -> logger.warn("🔌 [WS] Disconnected from the website backend. Reason: {}", args.length > 0 ? args[0] : "unknown"));
-            socket.on(Socket.EVENT_CONNECT_ERROR, args -> logger.error("❌ [WS] WebSocket connection error: {}", args.length > 0 ? args[0] : "unknown"));
-
-            socket.on("incomingFriendRequest", args -> {
-                logger.info("💌 [WS] Received incoming friend request from the website.");
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        UUID receiverUuid = UUID.fromString(data.getString("receiverUuid"));
-                        int requestId = data.getInt("requestId");
-                        JSONObject requesterData = data.getJSONObject("requester");
-                        String requesterUsername = requesterData.getString("username");
-                        String requesterMcUsername = requesterData.optString("minecraftUsername", null);
-                        String profileUrl = requesterData.getString("profileUrl");
-                        String rankName = requesterData.getString("rankName");
-                        int reputation = requesterData.getInt("reputation");
-                        pendingRequests.computeIfAbsent(receiverUuid, k -> new HashMap<>()).put(requesterUsername.toLowerCase(), requestId);
-
-                        server.getPlayer(receiverUuid).ifPresent(receiver -> {
-                            Component hoverText = Component.text()
-                                    .append(Component.text("Rank: ", NamedTextColor.GOLD))
-                                    .append(Component.text(rankName, NamedTextColor.WHITE))
-                                    .append(Component.newline())
-                                    .append(Component.text("Reputation: ", NamedTextColor.GOLD))
-                                    .append(Component.text(reputation, NamedTextColor.WHITE))
-                                    .append(Component.newline())
-                                    .append(Component.text("Click to view profile on website", NamedTextColor.GREEN))
-                                    .build();
-                            Component requesterComponent = Component.text(requesterUsername, NamedTextColor.AQUA);
-                            if (requesterMcUsername != null && !requesterMcUsername.isEmpty()) {
-                                requesterComponent = requesterComponent.append(
-                                        Component.text(" [" + requesterMcUsername + "]", NamedTextColor.GRAY)
-                                );
-                            }
-                            requesterComponent = requesterComponent
-                                    .hoverEvent(HoverEvent.showText(hoverText))
-                                    .clickEvent(ClickEvent.openUrl(profileUrl));
-
-                            receiver.sendMessage(Component.text("------------------------------------------").color(NamedTextColor.GOLD));
-                            receiver.sendMessage(Component.text("Player ").color(NamedTextColor.YELLOW)
-                                    .append(requesterComponent)
-                                    .append(Component.text(" wants to be your friend!", NamedTextColor.YELLOW)));
-                            Component acceptButton = Component.text("[ACCEPT]", NamedTextColor.GREEN)
-                                    .clickEvent(ClickEvent.runCommand("/flame friend accept " + requesterUsername))
-                                    .hoverEvent(HoverEvent.showText(Component.text("Click to accept " + requesterUsername)));
-                            Component denyButton = Component.text("[DENY]", NamedTextColor.RED)
-                                    .clickEvent(ClickEvent.runCommand("/flame friend deny " + requesterUsername))
-                                    .hoverEvent(HoverEvent.showText(Component.text("Click to deny " + requesterUsername)));
-
-                            receiver.sendMessage(Component.text("    ").append(acceptButton).append(Component.text("    ")).append(denyButton));
-                            receiver.sendMessage(Component.text("------------------------------------------").color(NamedTextColor.GOLD));
-                        });
-                    } catch (JSONException e) {
-                        logger.error("❌ [WS] Failed to parse 'incomingFriendRequest' JSON", e);
-                    }
+            socket.on(Socket.EVENT_DISCONNECT, args -> {
+                binarySocketCodec = false;
+                logger.warn("🔌 [WS] Disconnected from the website backend. Reason: {}", args.length > 0 ? args[0] : "unknown");
+            });
+            socket.on(SOCKET_CODEC_EVENT, args -> {
+                binarySocketCodec = MessagePackCodec.NAME.equals(socketCodec) && args.length > 0 && args[0] instanceof JSONObject
+                        && MessagePackCodec.NAME.equals(((JSONObject) args[0]).optString("codec"));
+                logger.info("🔌 [WS] Backend agreed on the {} payload encoding.", binarySocketCodec ? MessagePackCodec.NAME : "json");
+            });
+            socket.on(Socket.EVENT_CONNECT_ERROR, args -> {
+                logger.error("❌ [WS] WebSocket connection error: {}", args.length > 0 ? args[0] : "unknown");
+                if (backendPool.getBackends().size() > 1) {
+                    backendPool.recordFailure(backend, "websocket connect error");
+                    server.getScheduler().buildTask(this, this::checkSocketBackend).schedule();
                 }
             });
 
-            socket.on("webPrivateMessage", args -> {
-                logger.info("💬 [WS] Received private message from the website.");
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        UUID recipientUuid = UUID.fromString(data.getString("recipientUuid"));
-                        String senderUsername = data.getString("senderUsername");
-                        String content = data.getString("content");
-                        server.getPlayer(recipientUuid).ifPresent(recipient -> {
-                            Component prefix = Component.text().append(Component.text("[", NamedTextColor.DARK_GRAY)).append(Component.text(senderUsername, NamedTextColor.AQUA)).append(Component.text(" -> ", NamedTextColor.GRAY)).append(Component.text("Me", NamedTextColor.AQUA)).append(Component.text("] ", NamedTextColor.DARK_GRAY)).build();
-                            Component messageBody = Component.text(content, NamedTextColor.WHITE);
-                            Component fullMessage = prefix.append(messageBody).clickEvent(ClickEvent.suggestCommand("/flame msg " + senderUsername + " ")).hoverEvent(HoverEvent.showText(Component.text("Click to reply to " + senderUsername).color(NamedTextColor.GREEN)));
-                            recipient.sendMessage(fullMessage);
-                            server.getPlayer(senderUsername).ifPresent(sender -> messageManager.setLastPartner(recipient, sender));
-                        });
-                    } catch (JSONException e) {
-                        logger.error("❌ [WS] Failed to parse 'webPrivateMessage' JSON", e);
-                    }
+            registerSocketHandlers(socket);
+
+            socket.connect();
+            logger.info("🔌 [WS] Attempting to connect to the website backend at {}...", url);
+        } catch (Exception e) {
+            logger.error("❌ [WS] Could not initialize WebSocket connection: {}", e.getMessage(), e);
+        }
+    }
+
+    public void registerSocketHandlers(Emitter events) {
+        on(events, "incomingFriendRequest", args -> {
+            logger.info("💌 [WS] Received incoming friend request from the website.");
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    UUID receiverUuid = UUID.fromString(data.getString("receiverUuid"));
+                    int requestId = data.getInt("requestId");
+                    JSONObject requesterData = data.getJSONObject("requester");
+                    String requesterUsername = requesterData.getString("username");
+                    String requesterMcUsername = requesterData.optString("minecraftUsername", null);
+                    String profileUrl = requesterData.getString("profileUrl");
+                    String rankName = requesterData.getString("rankName");
+                    int reputation = requesterData.getInt("reputation");
+                    friendRequestManager.addRequest(receiverUuid, requesterUsername, requestId);
+
+                    server.getPlayer(receiverUuid).ifPresent(receiver -> {
+                        Component hoverText = Component.text()
+                                .append(Component.text("Rank: ", NamedTextColor.GOLD))
+                                .append(Component.text(rankName, NamedTextColor.WHITE))
+                                .append(Component.newline())
+                                .append(Component.text("Reputation: ", NamedTextColor.GOLD))
+                                .append(Component.text(reputation, NamedTextColor.WHITE))
+                                .append(Component.newline())
+                                .append(Component.text("Click to view profile on website", NamedTextColor.GREEN))
+                                .build();
+                        Component requesterComponent = Component.text(requesterUsername, NamedTextColor.AQUA);
+                        if (requesterMcUsername != null && !requesterMcUsername.isEmpty()) {
+                            requesterComponent = requesterComponent.append(
+                                    Component.text(" [" + requesterMcUsername + "]", NamedTextColor.GRAY)
+                            );
+                        }
+                        requesterComponent = requesterComponent
+                                .hoverEvent(HoverEvent.showText(hoverText))
+                                .clickEvent(ClickEvent.openUrl(profileUrl));
+
+                        receiver.sendMessage(Component.text("------------------------------------------").color(NamedTextColor.GOLD));
+                        receiver.sendMessage(Component.text("Player ").color(NamedTextColor.YELLOW)
+                                .append(requesterComponent)
+                                .append(Component.text(" wants to be your friend!", NamedTextColor.YELLOW)));
+                        Component acceptButton = Component.text("[ACCEPT]", NamedTextColor.GREEN)
+                                .clickEvent(ClickEvent.runCommand("/flame friend accept " + requesterUsername))
+                                .hoverEvent(HoverEvent.showText(Component.text("Click to accept " + requesterUsername)));
+                        Component denyButton = Component.text("[DENY]", NamedTextColor.RED)
+                                .clickEvent(ClickEvent.runCommand("/flame friend deny " + requesterUsername))
+                                .hoverEvent(HoverEvent.showText(Component.text("Click to deny " + requesterUsername)));
+
+                        receiver.sendMessage(Component.text("    ").append(acceptButton).append(Component.text("    ")).append(denyButton));
+                        receiver.sendMessage(Component.text("------------------------------------------").color(NamedTextColor.GOLD));
+                    });
+                } catch (JSONException e) {
+                    logger.error("❌ [WS] Failed to parse 'incomingFriendRequest' JSON", e);
                 }
-            });
+            }
+        });
 
-            socket.on("privateMessageError", args -> {
-                logger.warn("💬 [WS] Received a private message error from the website.");
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
-                        String errorMessage = data.getString("error");
-                        server.getPlayer(senderUuid).ifPresent(player -> {
-                            player.sendMessage(Component.text(errorMessage).color(NamedTextColor.RED));
-                        });
-                    } catch (Exception e) {
-                        logger.error("❌ [WS] Failed to parse 'privateMessageError' JSON", e);
-                    }
+        on(events, "webPrivateMessage", args -> {
+            logger.info("💬 [WS] Received private message from the website.");
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    UUID recipientUuid = UUID.fromString(data.getString("recipientUuid"));
+                    String senderUsername = data.getString("senderUsername");
+                    String content = data.getString("content");
+                    server.getPlayer(recipientUuid).ifPresent(recipient -> {
+                        Component prefix = Component.text().append(Component.text("[", NamedTextColor.DARK_GRAY)).append(Component.text(senderUsername, NamedTextColor.AQUA)).append(Component.text(" -> ", NamedTextColor.GRAY)).append(Component.text("Me", NamedTextColor.AQUA)).append(Component.text("] ", NamedTextColor.DARK_GRAY)).build();
+                        Component messageBody = Component.text(content, NamedTextColor.WHITE);
+                        Component fullMessage = prefix.append(messageBody).clickEvent(ClickEvent.suggestCommand("/flame msg " + senderUsername + " ")).hoverEvent(HoverEvent.showText(Component.text("Click to reply to " + senderUsername).color(NamedTextColor.GREEN)));
+                        recipient.sendMessage(fullMessage);
+                        server.getPlayer(senderUsername).ifPresent(sender -> messageManager.setLastPartner(recipient, sender));
+                    });
+                } catch (JSONException e) {
+                    logger.error("❌ [WS] Failed to parse 'webPrivateMessage' JSON", e);
                 }
-            });
+            }
+        });
 
-            socket.on("senderNotLinked", args -> {
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
-                        server.getPlayer(senderUuid).ifPresent(player -> {
-                            player.sendMessage(
-                                    Component.text("You must link your account on the website to use the integrated chat! Use /link to get a code.").color(NamedTextColor.RED)
-                            );
-                        });
-                    } catch (Exception e) {
-                        logger.error("❌ [WS] Failed to parse 'senderNotLinked' JSON", e);
-                    }
+        on(events, "privateMessageError", args -> {
+            logger.warn("💬 [WS] Received a private message error from the website.");
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
+                    String errorMessage = data.getString("error");
+                    messageManager.revokeRoutes(senderUuid);
+                    server.getPlayer(senderUuid).ifPresent(player -> {
+                        player.sendMessage(Component.text(errorMessage).color(NamedTextColor.RED));
+                    });
+                } catch (Exception e) {
+                    logger.error("❌ [WS] Failed to parse 'privateMessageError' JSON", e);
                 }
-            });
+            }
+        });
 
-            socket.on("deliverInGameDirectly", args -> {
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-
-                        UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
-                        String recipientUsername = data.getString("recipientUsername");
-                        String content = data.getString("content");
-
-                        Optional<Player> recipientOpt = server.getPlayer(recipientUsername);
-
-                        if (recipientOpt.isPresent()) {
-
-                            Player recipient = recipientOpt.get();
-
-                            server.getPlayer(senderUuid).ifPresent(sender -> {
-                                Component prefix = Component.text()
-                                        .append(Component.text("[", NamedTextColor.DARK_GRAY))
-                                        .append(Component.text(sender.getUsername(), NamedTextColor.AQUA))
-                                        .append(Component.text(" -> ", NamedTextColor.GRAY))
-                                        .append(Component.text("Me", NamedTextColor.AQUA))
-                                        .append(Component.text("] ", NamedTextColor.DARK_GRAY))
-                                        .build();
-                                Component messageBody = Component.text(content, NamedTextColor.WHITE);
-                                recipient.sendMessage(prefix.append(messageBody));
-                                messageManager.setLastPartner(recipient, sender);
-                            });
-                        } else {
-
-                            server.getPlayer(senderUuid).ifPresent(sender -> {
-                                sender.sendMessage(Component.text("Player '" + recipientUsername + "' not found or is offline.").color(NamedTextColor.RED));
-                            });
-                        }
-                    } catch (Exception e) {
-                        logger.error("❌ [WS] Failed to parse 'deliverInGameDirectly' JSON", e);
-                    }
+        on(events, "senderNotLinked", args -> {
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
+                    messageManager.revokeRoutes(senderUuid);
+                    server.getPlayer(senderUuid).ifPresent(player -> {
+                        player.sendMessage(
+                                Component.text("You must link your account on the website to use the integrated chat! Use /link to get a code.").color(NamedTextColor.RED)
+                        );
+                    });
+                } catch (Exception e) {
+                    logger.error("❌ [WS] Failed to parse 'senderNotLinked' JSON", e);
                 }
-            });
+            }
+        });
+
+        on(events, "deliverInGameDirectly", args -> {
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+
+                    UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
+                    String recipientUsername = data.getString("recipientUsername");
+                    String content = data.getString("content");
+
+                    Optional<Player> recipientOpt = server.getPlayer(recipientUsername);
+
+                    if (recipientOpt.isPresent()) {
+
+                        Player recipient = recipientOpt.get();
 
-            socket.on("inGameMessageSuccess", args -> {
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
-                        String recipientUsername = data.getString("recipientUsername");
-                        String content = data.getString("content");
                         server.getPlayer(senderUuid).ifPresent(sender -> {
-                            Component prefix = Component.text()
-                                    .append(Component.text("[", NamedTextColor.DARK_GRAY))
-                                    .append(Component.text("Me", NamedTextColor.AQUA))
-                                    .append(Component.text(" -> ", NamedTextColor.GRAY))
-                                    .append(Component.text(recipientUsername, NamedTextColor.AQUA))
-                                    .append(Component.text("] ", NamedTextColor.DARK_GRAY))
-                                    .build();
-                            Component messageBody = Component.text(content, NamedTextColor.WHITE);
-                            sender.sendMessage(prefix.append(messageBody));
-                            server.getPlayer(recipientUsername).ifPresent(recipient -> {
-                                messageManager.setLastPartner(sender, recipient);
-                            });
+                            showIncomingPrivateMessage(recipient, sender.getUsername(), content);
+                            messageManager.setLastPartner(recipient, sender);
+                            messageManager.markRouteVerified(sender.getUniqueId(), recipient.getUniqueId());
+                        });
+                    } else {
+
+                        server.getPlayer(senderUuid).ifPresent(sender -> {
+                            sender.sendMessage(Component.text("Player '" + recipientUsername + "' not found or is offline.").color(NamedTextColor.RED));
                         });
-                    } catch (Exception e) {
-                        logger.error("❌ [WS] Failed to parse 'inGameMessageSuccess' JSON", e);
                     }
+                } catch (Exception e) {
+                    logger.error("❌ [WS] Failed to parse 'deliverInGameDirectly' JSON", e);
                 }
-            });
-            socket.on("shop:new-command", args -> {
-                logger.info("🛒 [WS] Received 'shop:new-command' signal from website, fetching commands.");
-                apiClient.fetchAndExecutePendingCommands();
-            });
+            }
+        });
 
-            socket.on("globalMessageToGame", args -> {
-                logger.info("🌐 [Global Chat] Received message from the website.");
-                if (args.length > 0 && args[0] instanceof JSONObject) {
-                    JSONObject data = (JSONObject) args[0];
-                    try {
-                        int messageId = data.getInt("id");
-                        String content = data.getString("content");
-                        String authorName = data.getJSONObject("author").getString("username");
-                        Component prefix = Component.text()
-                                .append(Component.text("[", NamedTextColor.DARK_GRAY))
-                                .append(Component.text("Global Chat", NamedTextColor.GOLD))
-                                .append(Component.text("] ", NamedTextColor.DARK_GRAY))
-                                .build();
-                        Component authorComponent = Component.text(authorName, NamedTextColor.AQUA);
-                        Component messageComponent = Component.text(" » ", NamedTextColor.GRAY)
-                                .append(Component.text(content, NamedTextColor.WHITE));
-                        Component finalMessage = prefix.append(authorComponent).append(messageComponent)
-                                .clickEvent(ClickEvent.suggestCommand("/flame gcr " + messageId + " "))
-                                .hoverEvent(HoverEvent.showText(Component.text("Click to reply to " + authorName).color(NamedTextColor.GREEN)));
-                        server.getAllPlayers().forEach(p -> p.sendMessage(finalMessage));
-                    } catch (Exception e) {
-                        logger.error("❌ [Global Chat] Failed to parse 'globalMessageToGame' JSON", e);
-                    }
+        on(events, "inGameMessageSuccess", args -> {
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    UUID senderUuid = UUID.fromString(data.getString("senderUuid"));
+                    String recipientUsername = data.getString("recipientUsername");
+                    String content = data.getString("content");
+                    server.getPlayer(senderUuid).ifPresent(sender -> {
+                        showOutgoingPrivateMessage(sender, recipientUsername, content);
+                        server.getPlayer(recipientUsername).ifPresent(recipient -> {
+                            messageManager.setLastPartner(sender, recipient);
+                            messageManager.markRouteVerified(sender.getUniqueId(), recipient.getUniqueId());
+                        });
+                    });
+                } catch (Exception e) {
+                    logger.error("❌ [WS] Failed to parse 'inGameMessageSuccess' JSON", e);
                 }
-            });
+            }
+        });
+        on(events, "shop:new-command", args -> {
+            if (!coordinator.isLeader()) {
+                logger.info("🛒 [WS] Received 'shop:new-command' signal, leaving it to the leader proxy.");
+                return;
+            }
+            logger.info("🛒 [WS] Received 'shop:new-command' signal from website, fetching commands.");
+            apiClient.fetchAndExecutePendingCommands();
+        });
 
-            socket.on("requestTargets", args -> {
-                logger.info("✅ [WS] Received request for target sync from the website. Forwarding via Bungee channel...");
-                server.getServer("survival").ifPresent(registeredServer -> {
-                    ByteArrayDataOutput out = ByteStreams.newDataOutput();
-                    out.writeUTF("Forward");
-                    out.writeUTF("survival");
-                    out.writeUTF("flamewall:main");
-                    ByteArrayDataOutput msgbytes = ByteStreams.newDataOutput();
-                    msgbytes.writeUTF("RequestTargetsFromProxy");
-                    out.writeShort(msgbytes.toByteArray().length);
-                    out.write(msgbytes.toByteArray());
-                    registeredServer.sendPluginMessage(bungeeChannel, out.toByteArray());
-                    logger.info("✅ [Proxy] 'RequestTargetsFromProxy' message sent to 'survival' server.");
-                });
-            });
+        on(events, "globalMessageToGame", args -> {
+            logger.info("🌐 [Global Chat] Received message from the website.");
+            if (args.length > 0 && args[0] instanceof JSONObject) {
+                JSONObject data = (JSONObject) args[0];
+                try {
+                    int messageId = data.getInt("id");
+                    String content = data.getString("content");
+                    JSONObject author = data.getJSONObject("author");
+                    String authorName = author.getString("username");
+                    String authorUuid = author.optString("minecraft_uuid", null);
+                    globalChatManager.broadcast(messageId, authorName, authorUuid, content);
+                } catch (Exception e) {
+                    logger.error("❌ [Global Chat] Failed to parse 'globalMessageToGame' JSON", e);
+                }
+            }
+        });
 
-            socket.connect();
-            logger.info("🔌 [WS] Attempting to connect to the website backend at {}...", url);
-        } catch (Exception e) {
-            logger.error("❌ [WS] Could not initialize WebSocket connection: {}", e.getMessage(), e);
-        }
+        on(events, "requestTargets", args -> {
+            if (!coordinator.isLeader()) {
+                return;
+            }
+            ByteArrayDataOutput out = ByteStreams.newDataOutput();
+            out.writeUTF("RequestTargetsFromProxy");
+            byte[] message = out.toByteArray();
+            Collection<RegisteredServer> targets = routingTable.isEmpty()
+                    ? server.getAllServers() : routingTable.onePerGroup("targets");
+            logger.info("✅ [WS] Received request for target sync from the website. Asking {} servers...", targets.size());
+            int buffered = 0;
+            for (RegisteredServer target : targets) {
+                if (!routingTable.send(target, FLAMEWALL_CHANNEL, message)) {
+                    buffered++;
+                }
+            }
+            logger.info("✅ [Proxy] 'RequestTargetsFromProxy' sent to {} servers, {} buffered until a player connects.",
+                    targets.size() - buffered, buffered);
+        });
     }
 
-    public void processPendingCommands(JSONArray commands) {
-        List<Integer> executedIds = new ArrayList<>();
-        for (int i = 0; i < commands.length(); i++) {
-            try {
-                JSONObject cmdObj = commands.getJSONObject(i);
-                String commandStr = cmdObj.getString("command");
-                int commandId = cmdObj.getInt("id");
-                logger.info("✔️ [Shop] Processing command ID {}: '{}'", commandId, commandStr);
-                String[] parts = commandStr.split(" ");
-                String playerName = "";
-                for (String part : parts) {
-                    if (server.getPlayer(part).isPresent()) {
-                        playerName = part;
-                        break;
-                    }
-                }
-                if (playerName.isEmpty()) {
-                    logger.warn("⚠️ [Shop] Could not find an online player in command to execute: '{}'", commandStr);
-                    continue;
-                }
-                final String finalPlayerName = playerName;
-                server.getPlayer(playerName).ifPresent(player -> {
-                    player.getCurrentServer().ifPresent(serverConnection -> {
-                        ByteArrayDataOutput out = ByteStreams.newDataOutput();
-                        out.writeUTF("ExecuteCommand");
-                        out.writeUTF(commandStr);
-                        serverConnection.sendPluginMessage(FLAMEWALL_CHANNEL, out.toByteArray());
-                        executedIds.add(commandId);
-                        logger.info("✅ [Shop] Sent command ID {} to server {} for player {}", commandId, serverConnection.getServerInfo().getName(), finalPlayerName);
-                    });
-                });
-            } catch (JSONException e) {
-                logger.error("❌ [Shop] Failed to parse command object from JSON array at index " + i, e);
+    private void on(Emitter events, String event, Emitter.Listener listener) {
+        events.on(event, rawArgs -> {
+            Object[] args = decodeSocketArgs(event, rawArgs);
+            if (args == null) {
+                return;
+            }
+            if (trafficRecorder != null) {
+                trafficRecorder.recordSocketEvent(event, args);
             }
+            if (blockingExecutor != null) {
+                blockingExecutor.execute(BlockingWork.SOCKET, () -> listener.call(args));
+            } else {
+                listener.call(args);
+            }
+        });
+    }
+
+    private Object[] decodeSocketArgs(String event, Object[] args) {
+        if (args.length == 0 || !(args[0] instanceof byte[])) {
+            return args;
         }
-        if (!executedIds.isEmpty()) {
-            apiClient.clearExecutedCommands(executedIds);
+        Object[] decoded = args.clone();
+        try {
+            decoded[0] = MessagePackCodec.decode((byte[]) args[0]);
+        } catch (IOException e) {
+            logger.warn("⚠️ [WS] Dropping '{}', could not decode its binary payload: {}", event, e.getMessage());
+            return null;
         }
+        return decoded;
+    }
+
+    public void dispatchShopCommand(ShopCommandBundler bundler, int commandId, String command, boolean global) {
+        if (shopHandoff != null) {
+            shopHandoff.dispatch(bundler, commandId, command, global);
+        } else {
+            bundler.add(commandId, command, global);
+        }
+    }
+
+    public List<Integer> flushShopCommands(ShopCommandBundler bundler) {
+        List<Integer> sent = bundler.flush();
+        if (shopHandoff != null) {
+            shopHandoff.release(bundler.getUnsentIds());
+            shopHandoff.awaitConfirmation(sent);
+        }
+        return sent;
+    }
+
+    public void confirmShopCommands(List<Integer> commandIds) {
+        if (shopHandoff != null) {
+            shopHandoff.confirmed(commandIds);
+        }
+    }
+
+    public ShopCommandBundler newShopCommandBundler() {
+        return new ShopCommandBundler(server, logger, FLAMEWALL_CHANNEL, routingTable, shopFallbackGroup);
     }
 }
\ No newline at end of file
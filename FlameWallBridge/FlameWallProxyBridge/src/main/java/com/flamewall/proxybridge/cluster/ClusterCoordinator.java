@@ -0,0 +1,28 @@
+package com.flamewall.proxybridge.cluster;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface ClusterCoordinator {
+    String getNodeId();
+
+    boolean isClustered();
+
+    boolean isLeader();
+
+    void tick();
+
+    Optional<String> get(String namespace, String key);
+
+    void put(String namespace, String key, String value, long ttlMillis);
+
+    boolean putIfAbsent(String namespace, String key, String value, long ttlMillis);
+
+    boolean replace(String namespace, String key, String expected, String value, long ttlMillis);
+
+    boolean remove(String namespace, String key);
+
+    Map<String, String> entries(String namespace);
+
+    void close();
+}
@@ -0,0 +1,103 @@
+package com.flamewall.proxybridge.cluster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LocalCoordinator implements ClusterCoordinator {
+    private final String nodeId;
+    private final Map<String, Map<String, Entry>> namespaces = new ConcurrentHashMap<>();
+
+    public LocalCoordinator(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return true;
+    }
+
+    @Override
+    public void tick() {
+        long now = System.currentTimeMillis();
+        namespaces.values().forEach(entries -> entries.values().removeIf(entry -> entry.expiresAt <= now));
+    }
+
+    @Override
+    public Optional<String> get(String namespace, String key) {
+        Entry entry = namespace(namespace).get(key);
+        return entry != null && entry.isLive(System.currentTimeMillis()) ? Optional.of(entry.value) : Optional.empty();
+    }
+
+    @Override
+    public void put(String namespace, String key, String value, long ttlMillis) {
+        namespace(namespace).put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public boolean putIfAbsent(String namespace, String key, String value, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Entry created = new Entry(value, now + ttlMillis);
+        return namespace(namespace).merge(key, created, (current, update) -> current.isLive(now) ? current : update) == created;
+    }
+
+    @Override
+    public boolean replace(String namespace, String key, String expected, String value, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Entry updated = new Entry(value, now + ttlMillis);
+        return namespace(namespace).computeIfPresent(key, (k, current) ->
+                current.isLive(now) && current.value.equals(expected) ? updated : current) == updated;
+    }
+
+    @Override
+    public boolean remove(String namespace, String key) {
+        Entry removed = namespace(namespace).remove(key);
+        return removed != null && removed.isLive(System.currentTimeMillis());
+    }
+
+    @Override
+    public Map<String, String> entries(String namespace) {
+        long now = System.currentTimeMillis();
+        Map<String, String> live = new HashMap<>();
+        namespace(namespace).forEach((key, entry) -> {
+            if (entry.isLive(now)) {
+                live.put(key, entry.value);
+            }
+        });
+        return live;
+    }
+
+    @Override
+    public void close() {
+        namespaces.clear();
+    }
+
+    private Map<String, Entry> namespace(String namespace) {
+        return namespaces.computeIfAbsent(namespace, name -> new ConcurrentHashMap<>());
+    }
+
+    private static final class Entry {
+        private final String value;
+        private final long expiresAt;
+
+        private Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isLive(long now) {
+            return expiresAt > now;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.flamewall.proxybridge.cluster;
+
+import com.flamewall.proxybridge.manager.ShopCommandBundler;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class ShopCommandHandoff {
+    private static final String NAMESPACE = "shop-handoff";
+    private static final String PENDING = "pending:";
+    private static final String PENDING_GLOBAL = "pending-global:";
+    private static final String CLAIMED = "claimed:";
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ClusterCoordinator coordinator;
+    private final Logger logger;
+    private final Set<Integer> unconfirmed = ConcurrentHashMap.newKeySet();
+
+    public ShopCommandHandoff(ClusterCoordinator coordinator, Logger logger) {
+        this.coordinator = coordinator;
+        this.logger = logger;
+    }
+
+    public void offer(int commandId, String command, boolean global) {
+        if (coordinator.putIfAbsent(NAMESPACE, String.valueOf(commandId), pending(command, global), TTL_MILLIS)) {
+            logger.info("🤝 [Cluster] Handed off shop command {} to the other proxies.", commandId);
+        }
+    }
+
+    public boolean dispatch(ShopCommandBundler bundler, int commandId, String command, boolean global) {
+        if (!bundler.canRoute(command, global)) {
+            offer(commandId, command, global);
+            return false;
+        }
+        String key = String.valueOf(commandId);
+        String claimed = CLAIMED + coordinator.getNodeId();
+        if (!coordinator.putIfAbsent(NAMESPACE, key, claimed, TTL_MILLIS)
+                && !coordinator.replace(NAMESPACE, key, pending(command, global), claimed, TTL_MILLIS)) {
+            return false;
+        }
+        if (bundler.add(commandId, command, global)) {
+            return true;
+        }
+        coordinator.replace(NAMESPACE, key, claimed, pending(command, global), TTL_MILLIS);
+        return false;
+    }
+
+    public int claim(ShopCommandBundler bundler) {
+        int claimed = 0;
+        for (Map.Entry<String, String> entry : coordinator.entries(NAMESPACE).entrySet()) {
+            String value = entry.getValue();
+            boolean global = value.startsWith(PENDING_GLOBAL);
+            if (!global && !value.startsWith(PENDING)) {
+                continue;
+            }
+            String command = value.substring(global ? PENDING_GLOBAL.length() : PENDING.length());
+            if (bundler.canRoute(command, global) && dispatch(bundler, Integer.parseInt(entry.getKey()), command, global)) {
+                claimed++;
+            }
+        }
+        if (claimed > 0) {
+            logger.info("🤝 [Cluster] Claimed {} shop commands for players on this proxy.", claimed);
+        }
+        return claimed;
+    }
+
+    public void release(List<Integer> commandIds) {
+        for (int commandId : commandIds) {
+            coordinator.remove(NAMESPACE, String.valueOf(commandId));
+        }
+    }
+
+    // Executed commands keep their claim until the website confirms them, so a confirmation stuck in the
+    // offline queue cannot let the leader hand the purchase out a second time.
+    public void awaitConfirmation(List<Integer> commandIds) {
+        unconfirmed.addAll(commandIds);
+    }
+
+    public void confirmed(List<Integer> commandIds) {
+        for (int commandId : commandIds) {
+            if (unconfirmed.remove(commandId)) {
+                coordinator.remove(NAMESPACE, String.valueOf(commandId));
+            }
+        }
+    }
+
+    public void refresh() {
+        String claimed = CLAIMED + coordinator.getNodeId();
+        for (int commandId : unconfirmed) {
+            coordinator.put(NAMESPACE, String.valueOf(commandId), claimed, TTL_MILLIS);
+        }
+    }
+
+    private static String pending(String command, boolean global) {
+        return (global ? PENDING_GLOBAL : PENDING) + command;
+    }
+}
@@ -0,0 +1,212 @@
+package com.flamewall.proxybridge.cluster;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// SQLite locking is not reliable on network filesystems, so the file should live on a local disk.
+public class SqliteCoordinator implements ClusterCoordinator {
+    private static final String LEADER_LEASE = "singleton-duties";
+
+    private final String nodeId;
+    private final Logger logger;
+    private final long leaseMillis;
+    private Connection connection;
+    private volatile long leaderUntil;
+
+    public SqliteCoordinator(Path databaseFile, String nodeId, long leaseMillis, Logger logger) throws SQLException {
+        this.nodeId = nodeId;
+        this.logger = logger;
+        this.leaseMillis = leaseMillis;
+        try {
+            Files.createDirectories(databaseFile.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new SQLException("Could not create directory for " + databaseFile, e);
+        }
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.toAbsolutePath());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("CREATE TABLE IF NOT EXISTS leases (name TEXT PRIMARY KEY, owner TEXT NOT NULL, expires_at INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS shared_state (namespace TEXT NOT NULL, state_key TEXT NOT NULL, state_value TEXT NOT NULL, "
+                    + "expires_at INTEGER NOT NULL, PRIMARY KEY (namespace, state_key))");
+        }
+        logger.info("🤝 [Cluster] Node '{}' coordinating through {}.", nodeId, databaseFile.toAbsolutePath());
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return System.currentTimeMillis() < leaderUntil;
+    }
+
+    @Override
+    public synchronized void tick() {
+        if (connection == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean wasLeader = isLeader();
+        String sql = "INSERT INTO leases(name, owner, expires_at) VALUES(?, ?, ?) "
+                + "ON CONFLICT(name) DO UPDATE SET owner = excluded.owner, expires_at = excluded.expires_at "
+                + "WHERE leases.owner = excluded.owner OR leases.expires_at < ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, LEADER_LEASE);
+            pstmt.setString(2, nodeId);
+            pstmt.setLong(3, now + leaseMillis);
+            pstmt.setLong(4, now);
+            leaderUntil = pstmt.executeUpdate() > 0 ? now + leaseMillis : 0;
+        } catch (SQLException e) {
+            leaderUntil = 0;
+            logger.error("❌ [Cluster] Could not renew the leader lease.", e);
+        }
+        if (isLeader() != wasLeader) {
+            logger.info("🤝 [Cluster] Node '{}' {} the leader for singleton duties.", nodeId, isLeader() ? "is now" : "is no longer");
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM shared_state WHERE expires_at <= ?")) {
+            pstmt.setLong(1, now);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("⚠️ [Cluster] Could not purge expired shared state: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Optional<String> get(String namespace, String key) {
+        if (connection == null) return Optional.empty();
+        String sql = "SELECT state_value FROM shared_state WHERE namespace = ? AND state_key = ? AND expires_at > ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, namespace);
+            pstmt.setString(2, key);
+            pstmt.setLong(3, System.currentTimeMillis());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Optional.of(rs.getString(1)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not read shared state {}/{}.", namespace, key, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public synchronized void put(String namespace, String key, String value, long ttlMillis) {
+        if (connection == null) return;
+        String sql = "INSERT OR REPLACE INTO shared_state(namespace, state_key, state_value, expires_at) VALUES(?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, namespace);
+            pstmt.setString(2, key);
+            pstmt.setString(3, value);
+            pstmt.setLong(4, System.currentTimeMillis() + ttlMillis);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not write shared state {}/{}.", namespace, key, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean putIfAbsent(String namespace, String key, String value, long ttlMillis) {
+        if (connection == null) return false;
+        long now = System.currentTimeMillis();
+        String sql = "INSERT INTO shared_state(namespace, state_key, state_value, expires_at) VALUES(?, ?, ?, ?) "
+                + "ON CONFLICT(namespace, state_key) DO UPDATE SET state_value = excluded.state_value, expires_at = excluded.expires_at "
+                + "WHERE shared_state.expires_at <= ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, namespace);
+            pstmt.setString(2, key);
+            pstmt.setString(3, value);
+            pstmt.setLong(4, now + ttlMillis);
+            pstmt.setLong(5, now);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not write shared state {}/{}.", namespace, key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean replace(String namespace, String key, String expected, String value, long ttlMillis) {
+        if (connection == null) return false;
+        long now = System.currentTimeMillis();
+        String sql = "UPDATE shared_state SET state_value = ?, expires_at = ? WHERE namespace = ? AND state_key = ? AND state_value = ? AND expires_at > ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, value);
+            pstmt.setLong(2, now + ttlMillis);
+            pstmt.setString(3, namespace);
+            pstmt.setString(4, key);
+            pstmt.setString(5, expected);
+            pstmt.setLong(6, now);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not update shared state {}/{}.", namespace, key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(String namespace, String key) {
+        if (connection == null) return false;
+        String sql = "DELETE FROM shared_state WHERE namespace = ? AND state_key = ? AND expires_at > ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, namespace);
+            pstmt.setString(2, key);
+            pstmt.setLong(3, System.currentTimeMillis());
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not remove shared state {}/{}.", namespace, key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Map<String, String> entries(String namespace) {
+        Map<String, String> entries = new HashMap<>();
+        if (connection == null) return entries;
+        String sql = "SELECT state_key, state_value FROM shared_state WHERE namespace = ? AND expires_at > ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, namespace);
+            pstmt.setLong(2, System.currentTimeMillis());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("❌ [Cluster] Could not list shared state in {}.", namespace, e);
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) return;
+        try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM leases WHERE name = ? AND owner = ?")) {
+            pstmt.setString(1, LEADER_LEASE);
+            pstmt.setString(2, nodeId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("⚠️ [Cluster] Could not release the leader lease: {}", e.getMessage());
+        }
+        leaderUntil = 0;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("⚠️ [Cluster] Could not close the coordination database: {}", e.getMessage());
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,236 @@
+package com.flamewall.proxybridge.codec;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class MessagePackCodec {
+    public static final String NAME = "msgpack";
+
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode payload", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Object decode(byte[] data) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            Object value = read(in);
+            if (in.hasRemaining()) {
+                throw new IOException("Trailing bytes after MessagePack value: " + in.remaining());
+            }
+            return value;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed MessagePack payload", e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            out.writeByte(0xc0);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? 0xc3 : 0xc2);
+        } else if (value instanceof String) {
+            writeString(out, (String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeInteger(out, ((Number) value).longValue());
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            writeInteger(out, ((BigInteger) value).longValue());
+        } else if (value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0 && ((BigDecimal) value).toBigInteger().bitLength() < 64) {
+            writeInteger(out, ((BigDecimal) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeByte(0xcb);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            writeHeader(out, object.length(), 0x80, 0xde, 0xdf);
+            for (String key : object.keySet()) {
+                writeString(out, key);
+                write(out, object.opt(key));
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            writeHeader(out, array.length(), 0x90, 0xdc, 0xdd);
+            for (int i = 0; i < array.length(); i++) {
+                write(out, array.opt(i));
+            }
+        } else if (value instanceof byte[]) {
+            byte[] data = (byte[]) value;
+            if (data.length <= 0xff) {
+                out.writeByte(0xc4);
+                out.writeByte(data.length);
+            } else if (data.length <= 0xffff) {
+                out.writeByte(0xc5);
+                out.writeShort(data.length);
+            } else {
+                out.writeByte(0xc6);
+                out.writeInt(data.length);
+            }
+            out.write(data);
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeInteger(DataOutputStream out, long value) throws IOException {
+        if (value >= 0) {
+            if (value <= 0x7f) {
+                out.writeByte((int) value);
+            } else if (value <= 0xff) {
+                out.writeByte(0xcc);
+                out.writeByte((int) value);
+            } else if (value <= 0xffff) {
+                out.writeByte(0xcd);
+                out.writeShort((int) value);
+            } else if (value <= 0xffffffffL) {
+                out.writeByte(0xce);
+                out.writeInt((int) value);
+            } else {
+                out.writeByte(0xcf);
+                out.writeLong(value);
+            }
+        } else if (value >= -32) {
+            out.writeByte((int) value);
+        } else if (value >= Byte.MIN_VALUE) {
+            out.writeByte(0xd0);
+            out.writeByte((int) value);
+        } else if (value >= Short.MIN_VALUE) {
+            out.writeByte(0xd1);
+            out.writeShort((int) value);
+        } else if (value >= Integer.MIN_VALUE) {
+            out.writeByte(0xd2);
+            out.writeInt((int) value);
+        } else {
+            out.writeByte(0xd3);
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length <= 31) {
+            out.writeByte(0xa0 | utf8.length);
+        } else if (utf8.length <= 0xff) {
+            out.writeByte(0xd9);
+            out.writeByte(utf8.length);
+        } else if (utf8.length <= 0xffff) {
+            out.writeByte(0xda);
+            out.writeShort(utf8.length);
+        } else {
+            out.writeByte(0xdb);
+            out.writeInt(utf8.length);
+        }
+        out.write(utf8);
+    }
+
+    private static void writeHeader(DataOutputStream out, int size, int fixPrefix, int prefix16, int prefix32) throws IOException {
+        if (size <= 15) {
+            out.writeByte(fixPrefix | size);
+        } else if (size <= 0xffff) {
+            out.writeByte(prefix16);
+            out.writeShort(size);
+        } else {
+            out.writeByte(prefix32);
+            out.writeInt(size);
+        }
+    }
+
+    private static Object read(ByteBuffer in) throws IOException {
+        int b = in.get() & 0xff;
+        if (b <= 0x7f) {
+            return b;
+        } else if (b <= 0x8f) {
+            return readMap(in, b & 0x0f);
+        } else if (b <= 0x9f) {
+            return readArray(in, b & 0x0f);
+        } else if (b <= 0xbf) {
+            return readString(in, b & 0x1f);
+        } else if (b >= 0xe0) {
+            return (int) (byte) b;
+        }
+        switch (b) {
+            case 0xc0: return JSONObject.NULL;
+            case 0xc2: return false;
+            case 0xc3: return true;
+            case 0xc4: return readBytes(in, in.get() & 0xff);
+            case 0xc5: return readBytes(in, in.getShort() & 0xffff);
+            case 0xc6: return readBytes(in, length(in.getInt()));
+            case 0xca: return (double) in.getFloat();
+            case 0xcb: return in.getDouble();
+            case 0xcc: return in.get() & 0xff;
+            case 0xcd: return in.getShort() & 0xffff;
+            case 0xce: return narrow(in.getInt() & 0xffffffffL);
+            case 0xcf: {
+                long value = in.getLong();
+                if (value < 0) {
+                    return new BigInteger(Long.toUnsignedString(value));
+                }
+                return narrow(value);
+            }
+            case 0xd0: return (int) in.get();
+            case 0xd1: return (int) in.getShort();
+            case 0xd2: return in.getInt();
+            case 0xd3: return narrow(in.getLong());
+            case 0xd9: return readString(in, in.get() & 0xff);
+            case 0xda: return readString(in, in.getShort() & 0xffff);
+            case 0xdb: return readString(in, length(in.getInt()));
+            case 0xdc: return readArray(in, in.getShort() & 0xffff);
+            case 0xdd: return readArray(in, length(in.getInt()));
+            case 0xde: return readMap(in, in.getShort() & 0xffff);
+            case 0xdf: return readMap(in, length(in.getInt()));
+            default: throw new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(b));
+        }
+    }
+
+    private static JSONObject readMap(ByteBuffer in, int size) throws IOException {
+        JSONObject object = new JSONObject();
+        for (int i = 0; i < size; i++) {
+            Object key = read(in);
+            object.put(key instanceof String ? (String) key : String.valueOf(key), read(in));
+        }
+        return object;
+    }
+
+    private static JSONArray readArray(ByteBuffer in, int size) throws IOException {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            array.put(read(in));
+        }
+        return array;
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static byte[] readBytes(ByteBuffer in, int length) {
+        byte[] data = new byte[length];
+        in.get(data);
+        return data;
+    }
+
+    private static int length(int value) throws IOException {
+        if (value < 0) {
+            throw new IOException("MessagePack length too large: " + (value & 0xffffffffL));
+        }
+        return value;
+    }
+
+    private static Object narrow(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (Object) (int) value : (Object) value;
+    }
+}
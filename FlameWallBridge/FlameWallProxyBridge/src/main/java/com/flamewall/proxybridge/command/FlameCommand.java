@@ -15,8 +15,8 @@ import org.slf4j.Logger;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -84,11 +84,19 @@ public class FlameCommand implements SimpleCommand {
             return;
         }
         String messageContent = String.join(" ", args);
+        if (!plugin.getGlobalChatManager().tryAcquire(sender.getUniqueId())) {
+            sender.sendMessage(Component.text("You are sending messages too quickly. Please slow down.").color(NamedTextColor.RED));
+            return;
+        }
         try {
             JSONObject payload = new JSONObject();
             payload.put("senderUuid", sender.getUniqueId().toString());
             payload.put("content", messageContent);
-            plugin.sendJsonPayload("gameGlobalChatMessage", payload);
+            if (plugin.sendJsonPayload("gameGlobalChatMessage", payload)) {
+                plugin.getGlobalChatManager().echoToSender(sender, messageContent);
+            } else {
+                sender.sendMessage(Component.text("Global chat is currently unavailable.").color(NamedTextColor.RED));
+            }
         } catch (Exception e) {
             sender.sendMessage(Component.text("An error occurred while sending your message.").color(NamedTextColor.RED));
             logger.error("Could not send GC message to backend", e);
@@ -103,11 +111,19 @@ public class FlameCommand implements SimpleCommand {
         try {
             int parentId = Integer.parseInt(args[0]);
             String messageContent = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+            if (!plugin.getGlobalChatManager().tryAcquire(sender.getUniqueId())) {
+                sender.sendMessage(Component.text("You are sending messages too quickly. Please slow down.").color(NamedTextColor.RED));
+                return;
+            }
             JSONObject payload = new JSONObject();
             payload.put("senderUuid", sender.getUniqueId().toString());
             payload.put("content", messageContent);
             payload.put("parentId", parentId);
-            plugin.sendJsonPayload("gameGlobalChatReply", payload);
+            if (plugin.sendJsonPayload("gameGlobalChatReply", payload)) {
+                plugin.getGlobalChatManager().echoToSender(sender, messageContent);
+            } else {
+                sender.sendMessage(Component.text("Global chat is currently unavailable.").color(NamedTextColor.RED));
+            }
         } catch (NumberFormatException e) {
             sender.sendMessage(Component.text("Invalid message ID for reply.").color(NamedTextColor.RED));
         } catch (Exception e) {
@@ -153,15 +169,13 @@ public class FlameCommand implements SimpleCommand {
                     player.sendMessage(Component.text("Usage: /flame friend accept <player>").color(NamedTextColor.RED));
                     return;
                 }
-                String requesterName = actionArgs[0].toLowerCase();
-                Map<String, Integer> playerRequests = plugin.getPendingRequests().get(player.getUniqueId());
+                OptionalInt requestId = plugin.getFriendRequestManager().takeRequest(player.getUniqueId(), actionArgs[0]);
 
-                if (playerRequests == null || !playerRequests.containsKey(requesterName)) {
+                if (requestId.isEmpty()) {
                     player.sendMessage(Component.text("You don't have a friend request from " + actionArgs[0] + ".").color(NamedTextColor.RED));
                     return;
                 }
-                int requestId = playerRequests.remove(requesterName);
-                apiClient.acceptFriendRequest(player, requestId);
+                apiClient.acceptFriendRequest(player, requestId.getAsInt());
                 break;
             }
             case "deny": {
@@ -169,15 +183,13 @@ public class FlameCommand implements SimpleCommand {
                     player.sendMessage(Component.text("Usage: /flame friend deny <player>").color(NamedTextColor.RED));
                     return;
                 }
-                String requesterName = actionArgs[0].toLowerCase();
-                Map<String, Integer> playerRequests = plugin.getPendingRequests().get(player.getUniqueId());
+                OptionalInt requestId = plugin.getFriendRequestManager().takeRequest(player.getUniqueId(), actionArgs[0]);
 
-                if (playerRequests == null || !playerRequests.containsKey(requesterName)) {
+                if (requestId.isEmpty()) {
                     player.sendMessage(Component.text("You don't have a friend request from " + actionArgs[0] + ".").color(NamedTextColor.RED));
                     return;
                 }
-                int requestId = playerRequests.remove(requesterName);
-                apiClient.denyFriendRequest(player, requestId);
+                apiClient.denyFriendRequest(player, requestId.getAsInt());
                 break;
             }
             default:
@@ -198,12 +210,24 @@ public class FlameCommand implements SimpleCommand {
             sender.sendMessage(Component.text("You cannot send a message to yourself.").color(NamedTextColor.RED));
             return;
         }
+        Player localRecipient = server.getPlayer(recipientName)
+                .filter(recipient -> messageManager.isRouteVerified(sender.getUniqueId(), recipient.getUniqueId()))
+                .orElse(null);
         try {
             JSONObject payload = new JSONObject();
             payload.put("senderUuid", sender.getUniqueId().toString());
             payload.put("recipientUsername", recipientName);
             payload.put("content", message);
-            plugin.sendJsonPayload("inGamePrivateMessage", payload);
+            payload.put("deliveredLocally", localRecipient != null);
+            if (!plugin.sendJsonPayload("inGamePrivateMessage", payload)) {
+                sender.sendMessage(Component.text("Could not send your message, the website is unreachable. Please try again shortly.").color(NamedTextColor.RED));
+                return;
+            }
+            if (localRecipient != null) {
+                plugin.showIncomingPrivateMessage(localRecipient, sender.getUsername(), message);
+                plugin.showOutgoingPrivateMessage(sender, localRecipient.getUsername(), message);
+                messageManager.setLastPartner(sender, localRecipient);
+            }
         } catch (Exception e) {
             sender.sendMessage(Component.text("An internal error occurred while packaging the message.").color(NamedTextColor.RED));
             logger.error("Could not create PM payload for " + sender.getUsername(), e);
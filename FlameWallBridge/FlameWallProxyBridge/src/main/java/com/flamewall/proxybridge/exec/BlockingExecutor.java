@@ -0,0 +1,11 @@
+package com.flamewall.proxybridge.exec;
+
+public interface BlockingExecutor {
+    void execute(BlockingWork kind, Runnable task);
+
+    int getActive(BlockingWork kind);
+
+    int getWaiting(BlockingWork kind);
+
+    void shutdown(long timeoutMillis);
+}
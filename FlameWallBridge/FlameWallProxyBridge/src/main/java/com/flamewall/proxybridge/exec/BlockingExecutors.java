@@ -0,0 +1,28 @@
+package com.flamewall.proxybridge.exec;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+
+public class BlockingExecutors {
+    private static final String VIRTUAL_THREAD_EXECUTOR = "com.flamewall.proxybridge.exec.VirtualThreadExecutor";
+
+    public static BlockingExecutor virtualThreads(Map<BlockingWork, Integer> permits, Logger logger) {
+        if (Runtime.version().feature() < 21) {
+            logger.warn("⚠️ [Startup] execution-mode=virtual needs Java 21, running on Java {}. Falling back to callbacks.",
+                    Runtime.version().feature());
+            return null;
+        }
+        try {
+            Object executor = Class.forName(VIRTUAL_THREAD_EXECUTOR)
+                    .getConstructor(Map.class, Logger.class)
+                    .newInstance(permits, logger);
+            return (BlockingExecutor) executor;
+        } catch (ClassNotFoundException e) {
+            logger.warn("⚠️ [Startup] execution-mode=virtual needs a build made with the java21 profile (mvn -Pjava21 package). Falling back to callbacks.");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.error("❌ [Startup] Could not start the virtual thread executor, falling back to callbacks.", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.flamewall.proxybridge.exec;
+
+public enum BlockingWork {
+    HTTP,
+    OUTBOX,
+    SOCKET
+}
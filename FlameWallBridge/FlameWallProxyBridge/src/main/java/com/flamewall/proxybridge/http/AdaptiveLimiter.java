@@ -0,0 +1,247 @@
+package com.flamewall.proxybridge.http;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class AdaptiveLimiter {
+    public enum ShedPolicy { DROP_OLDEST, REJECT_NEW }
+
+    private static final double DECREASE_FACTOR = 0.9;
+    private static final long BASELINE_RESET_NANOS = 60_000_000_000L;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final double rttTolerance;
+    private final Map<RequestLane, Lane> lanes = new EnumMap<>(RequestLane.class);
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private long baselineSetAt;
+    private long lastRttNanos;
+    private long shedCount;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, double rttTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.rttTolerance = Math.max(1.0, rttTolerance);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        for (RequestLane lane : RequestLane.values()) {
+            lanes.put(lane, new Lane(lane.getDefaultWeight(), lane.getDefaultShare()));
+        }
+    }
+
+    public synchronized void configureLane(RequestLane lane, int weight, double share) {
+        Lane state = lanes.get(lane);
+        state.weight = Math.max(1, weight);
+        state.share = Math.min(1.0, Math.max(0.0, share));
+    }
+
+    public void submit(RequestLane lane, Runnable task, ShedPolicy policy, Runnable onShed) {
+        Runnable toShed = null;
+        boolean runNow = false;
+        synchronized (this) {
+            Lane state = lanes.get(lane);
+            if (state.queue.isEmpty() && hasCapacity(state)) {
+                startOn(state);
+                runNow = true;
+            } else if (queued < maxQueued) {
+                enqueue(state, new Pending(task, policy, onShed));
+            } else if ((toShed = removeOldestDroppable(state)) != null) {
+                enqueue(state, new Pending(task, policy, onShed));
+                shedCount++;
+            } else {
+                toShed = onShed;
+                shedCount++;
+                state.shed++;
+            }
+        }
+        if (toShed != null) {
+            toShed.run();
+        }
+        if (runNow) {
+            task.run();
+        }
+    }
+
+    public void release(RequestLane lane, long rttNanos, boolean failed) {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            inFlight = Math.max(0, inFlight - 1);
+            Lane finished = lanes.get(lane);
+            finished.inFlight = Math.max(0, finished.inFlight - 1);
+            adjustLimit(rttNanos, failed);
+            long now = System.nanoTime();
+            Lane next;
+            while ((next = nextReadyLane()) != null) {
+                Pending pending = next.queue.pollFirst();
+                queued--;
+                long waited = now - pending.enqueuedAt;
+                next.dequeued++;
+                next.totalQueueNanos += waited;
+                next.maxQueueNanos = Math.max(next.maxQueueNanos, waited);
+                next.pass += 1.0 / next.weight;
+                startOn(next);
+                ready.add(pending.task);
+            }
+        }
+        ready.forEach(Runnable::run);
+    }
+
+    private Lane nextReadyLane() {
+        Lane best = null;
+        for (Lane lane : lanes.values()) {
+            if (!lane.queue.isEmpty() && hasCapacity(lane) && (best == null || lane.pass < best.pass)) {
+                best = lane;
+            }
+        }
+        return best;
+    }
+
+    private boolean hasCapacity(Lane lane) {
+        int currentLimit = (int) limit;
+        int laneLimit = Math.max(1, (int) Math.ceil(currentLimit * lane.share));
+        return inFlight < currentLimit && lane.inFlight < laneLimit;
+    }
+
+    private void startOn(Lane lane) {
+        inFlight++;
+        lane.inFlight++;
+    }
+
+    private void enqueue(Lane lane, Pending pending) {
+        if (lane.queue.isEmpty()) {
+            double minPass = Double.MAX_VALUE;
+            for (Lane other : lanes.values()) {
+                if (!other.queue.isEmpty()) {
+                    minPass = Math.min(minPass, other.pass);
+                }
+            }
+            lane.pass = Math.max(lane.pass, minPass == Double.MAX_VALUE ? lane.pass : minPass);
+        }
+        lane.queue.addLast(pending);
+        queued++;
+    }
+
+    private void adjustLimit(long rttNanos, boolean failed) {
+        long now = System.nanoTime();
+        if (!failed && rttNanos > 0) {
+            lastRttNanos = rttNanos;
+            if (rttNanos < baselineRttNanos || now - baselineSetAt > BASELINE_RESET_NANOS) {
+                baselineRttNanos = rttNanos;
+                baselineSetAt = now;
+            }
+        }
+        if (failed || rttNanos > baselineRttNanos * rttTolerance) {
+            limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+        } else if (inFlight + 1 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private Runnable removeOldestDroppable(Lane preferred) {
+        Runnable dropped = removeOldestDroppableFrom(preferred);
+        if (dropped != null) {
+            return dropped;
+        }
+        for (RequestLane lane : new RequestLane[]{RequestLane.BULK, RequestLane.CONTROL}) {
+            dropped = removeOldestDroppableFrom(lanes.get(lane));
+            if (dropped != null) {
+                return dropped;
+            }
+        }
+        return null;
+    }
+
+    private Runnable removeOldestDroppableFrom(Lane lane) {
+        for (Iterator<Pending> it = lane.queue.iterator(); it.hasNext(); ) {
+            Pending pending = it.next();
+            if (pending.policy == ShedPolicy.DROP_OLDEST) {
+                it.remove();
+                queued--;
+                lane.shed++;
+                return pending.onShed;
+            }
+        }
+        return null;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized long getShedCount() {
+        return shedCount;
+    }
+
+    public synchronized long getLastRttMillis() {
+        return lastRttNanos / 1_000_000;
+    }
+
+    public synchronized int getInFlight(RequestLane lane) {
+        return lanes.get(lane).inFlight;
+    }
+
+    public synchronized int getQueued(RequestLane lane) {
+        return lanes.get(lane).queue.size();
+    }
+
+    public synchronized long getShedCount(RequestLane lane) {
+        return lanes.get(lane).shed;
+    }
+
+    public synchronized double getAverageQueueMillis(RequestLane lane) {
+        Lane state = lanes.get(lane);
+        return state.dequeued == 0 ? 0 : state.totalQueueNanos / 1_000_000.0 / state.dequeued;
+    }
+
+    public synchronized long getMaxQueueMillis(RequestLane lane) {
+        return lanes.get(lane).maxQueueNanos / 1_000_000;
+    }
+
+    private static final class Lane {
+        private final Deque<Pending> queue = new ArrayDeque<>();
+        private int weight;
+        private double share;
+        private int inFlight;
+        private double pass;
+        private long shed;
+        private long dequeued;
+        private long totalQueueNanos;
+        private long maxQueueNanos;
+
+        private Lane(int weight, double share) {
+            this.weight = weight;
+            this.share = share;
+        }
+    }
+
+    private static final class Pending {
+        private final Runnable task;
+        private final ShedPolicy policy;
+        private final Runnable onShed;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Pending(Runnable task, ShedPolicy policy, Runnable onShed) {
+            this.task = task;
+            this.policy = policy;
+            this.onShed = onShed;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.flamewall.proxybridge.http;
+
+public enum ApiEndpoint {
+    EVENT_INGEST("event-ingest", true, RequestLane.BULK, AdaptiveLimiter.ShedPolicy.DROP_OLDEST),
+    RANK_SYNC("rank-sync", true, RequestLane.CONTROL, AdaptiveLimiter.ShedPolicy.REJECT_NEW),
+    SHOP("shop", true, RequestLane.CONTROL, AdaptiveLimiter.ShedPolicy.REJECT_NEW),
+    FRIENDSHIPS("friendships", false, RequestLane.INTERACTIVE, AdaptiveLimiter.ShedPolicy.REJECT_NEW),
+    TARGETS("register-targets", true, RequestLane.BULK, AdaptiveLimiter.ShedPolicy.DROP_OLDEST);
+
+    private final String key;
+    private final boolean idempotent;
+    private final RequestLane lane;
+    private final AdaptiveLimiter.ShedPolicy shedPolicy;
+
+    ApiEndpoint(String key, boolean idempotent, RequestLane lane, AdaptiveLimiter.ShedPolicy shedPolicy) {
+        this.key = key;
+        this.idempotent = idempotent;
+        this.lane = lane;
+        this.shedPolicy = shedPolicy;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public RequestLane getLane() {
+        return lane;
+    }
+
+    public AdaptiveLimiter.ShedPolicy getShedPolicy() {
+        return shedPolicy;
+    }
+}
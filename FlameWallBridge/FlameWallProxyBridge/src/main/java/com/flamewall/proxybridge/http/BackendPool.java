@@ -0,0 +1,248 @@
+package com.flamewall.proxybridge.http;
+
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Spreads requests over several website instances. An instance is ejected after repeated failures; once the
+// ejection window is over it gets one trial request at a time, and a successful trial or health probe readmits it.
+public class BackendPool {
+    public enum Balance { LEAST_OUTSTANDING, LATENCY }
+
+    private static final double RTT_SMOOTHING = 0.2;
+
+    private final List<Backend> backends;
+    private final Logger logger;
+    private final Balance balance;
+    private final String healthPath;
+    private final int ejectAfterFailures;
+    private final long ejectMillis;
+
+    public BackendPool(List<String> urls, Logger logger, Balance balance, String healthPath, int ejectAfterFailures, long ejectMillis) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one backend URL is required");
+        }
+        List<Backend> backends = new ArrayList<>();
+        for (String url : urls) {
+            // Normalised the way OkHttp prints request URLs, so route() can swap the prefix reliably.
+            HttpUrl parsed = HttpUrl.parse(url);
+            String normalized = parsed != null ? parsed.toString() : url;
+            backends.add(new Backend(normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized));
+        }
+        this.backends = Collections.unmodifiableList(backends);
+        this.logger = logger;
+        this.balance = balance;
+        this.healthPath = healthPath;
+        this.ejectAfterFailures = Math.max(1, ejectAfterFailures);
+        this.ejectMillis = ejectMillis;
+    }
+
+    public List<Backend> getBackends() {
+        return backends;
+    }
+
+    public String getPrimaryUrl() {
+        return backends.get(0).url;
+    }
+
+    public Backend choose(Backend avoid) {
+        return choose(avoid, null);
+    }
+
+    public Dispatch dispatch(Dispatch previous) {
+        Dispatch dispatch = new Dispatch();
+        Backend backend = choose(previous != null ? previous.backend : null, dispatch);
+        synchronized (backend) {
+            dispatch.ejections = backend.ejections;
+        }
+        dispatch.backend = backend;
+        backend.outstanding.incrementAndGet();
+        return dispatch;
+    }
+
+    private Backend choose(Backend avoid, Dispatch trial) {
+        long now = System.currentTimeMillis();
+        Backend best;
+        do {
+            best = null;
+            for (Backend backend : backends) {
+                if (backend == avoid && backends.size() > 1) {
+                    continue;
+                }
+                if (backend.isAvailable(now) && (best == null || isBetter(backend, best))) {
+                    best = backend;
+                }
+            }
+        } while (trial != null && best != null && !best.reserve(trial));
+        if (best != null) {
+            return best;
+        }
+        if (avoid != null && avoid.isAvailable(now) && (trial == null || avoid.reserve(trial))) {
+            return avoid;
+        }
+        // Everything is ejected: fail open to the instance that comes back soonest rather than refusing outright.
+        for (Backend backend : backends) {
+            if (best == null || backend.ejectedUntil < best.ejectedUntil) {
+                best = backend;
+            }
+        }
+        return best;
+    }
+
+    public Request route(Request request, Backend backend) {
+        String url = request.url().toString();
+        String primary = getPrimaryUrl();
+        if (backend.url.equals(primary) || !url.startsWith(primary)) {
+            return request;
+        }
+        return request.newBuilder().url(backend.url + url.substring(primary.length())).build();
+    }
+
+    public void onComplete(Dispatch dispatch, long rttNanos, boolean failed) {
+        Backend backend = dispatch.backend;
+        backend.outstanding.decrementAndGet();
+        backend.trial.compareAndSet(dispatch, null);
+        if (failed) {
+            boolean sentBeforeEjection;
+            synchronized (backend) {
+                sentBeforeEjection = dispatch.ejections != backend.ejections;
+            }
+            if (!sentBeforeEjection) {
+                recordFailure(backend, "request failed");
+            }
+        } else if (backend.recordSuccess(rttNanos)) {
+            logger.info("✅ [API] Backend {} answered again and is back in rotation.", backend.url);
+        }
+    }
+
+    public void recordFailure(Backend backend, String reason) {
+        boolean ejected;
+        int failures;
+        synchronized (backend) {
+            failures = ++backend.consecutiveFailures;
+            ejected = failures >= ejectAfterFailures && !backend.ejected;
+            if (ejected) {
+                backend.ejections++;
+            }
+            if (ejected || backend.ejected) {
+                backend.ejected = true;
+                backend.ejectedUntil = System.currentTimeMillis() + ejectMillis;
+            }
+        }
+        if (ejected) {
+            logger.warn("⚡ [API] Ejected backend {} after {} consecutive failures ({}).", backend.url, failures, reason);
+        }
+    }
+
+    public void probe(OkHttpClient client, String apiKey) {
+        for (Backend backend : backends) {
+            long startedAt = System.nanoTime();
+            Request request = new Request.Builder()
+                    .url(backend.url + healthPath)
+                    .header("x-api-key", apiKey)
+                    .get()
+                    .build();
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                    recordFailure(backend, "health probe: " + e.getMessage());
+                }
+
+                @Override
+                public void onResponse(@NotNull Call call, @NotNull Response response) {
+                    int code = response.code();
+                    response.close();
+                    if (code < 500) {
+                        if (backend.recordSuccess(System.nanoTime() - startedAt)) {
+                            logger.info("✅ [API] Backend {} passed its health probe and is back in rotation.", backend.url);
+                        }
+                    } else {
+                        recordFailure(backend, "health probe: HTTP " + code);
+                    }
+                }
+            });
+        }
+    }
+
+    public boolean isAvailable(Backend backend) {
+        return backend.isAvailable(System.currentTimeMillis());
+    }
+
+    private boolean isBetter(Backend candidate, Backend current) {
+        if (balance == Balance.LATENCY) {
+            double candidateScore = candidate.rttMillis * (candidate.outstanding.get() + 1);
+            double currentScore = current.rttMillis * (current.outstanding.get() + 1);
+            return candidateScore < currentScore;
+        }
+        int difference = candidate.outstanding.get() - current.outstanding.get();
+        return difference < 0 || (difference == 0 && candidate.rttMillis < current.rttMillis);
+    }
+
+    public static final class Backend {
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicReference<Dispatch> trial = new AtomicReference<>();
+        private volatile double rttMillis;
+        private int consecutiveFailures;
+        private int ejections;
+        private volatile boolean ejected;
+        private volatile long ejectedUntil;
+
+        private Backend(String url) {
+            this.url = url;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public double getRttMillis() {
+            return rttMillis;
+        }
+
+        public boolean isEjected() {
+            return ejected;
+        }
+
+        private boolean isAvailable(long now) {
+            return !ejected || (now >= ejectedUntil && trial.get() == null);
+        }
+
+        private boolean reserve(Dispatch dispatch) {
+            return !ejected || trial.compareAndSet(null, dispatch);
+        }
+
+        private synchronized boolean recordSuccess(long rttNanos) {
+            double sample = rttNanos / 1_000_000.0;
+            rttMillis = rttMillis == 0 ? sample : rttMillis + RTT_SMOOTHING * (sample - rttMillis);
+            consecutiveFailures = 0;
+            trial.set(null);
+            boolean readmitted = ejected;
+            ejected = false;
+            return readmitted;
+        }
+    }
+
+    public static final class Dispatch {
+        private Backend backend;
+        private int ejections;
+
+        private Dispatch() {
+        }
+
+        public Backend getBackend() {
+            return backend;
+        }
+    }
+}
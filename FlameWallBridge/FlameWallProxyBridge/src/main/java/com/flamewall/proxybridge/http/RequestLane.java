@@ -0,0 +1,23 @@
+package com.flamewall.proxybridge.http;
+
+public enum RequestLane {
+    INTERACTIVE(8, 1.0),
+    CONTROL(4, 0.5),
+    BULK(1, 0.6);
+
+    private final int defaultWeight;
+    private final double defaultShare;
+
+    RequestLane(int defaultWeight, double defaultShare) {
+        this.defaultWeight = defaultWeight;
+        this.defaultShare = defaultShare;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public double getDefaultShare() {
+        return defaultShare;
+    }
+}
@@ -1,14 +1,15 @@
 package com.flamewall.proxybridge.manager;
 
+import com.flamewall.proxybridge.storage.EventQueueStore;
 import org.slf4j.Logger;
 import java.io.File;
 import java.nio.file.Path;
 import java.sql.*;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class DatabaseManager {
+public class DatabaseManager implements EventQueueStore {
     private final Logger logger;
     private Connection connection;
 
@@ -30,19 +31,31 @@ public class DatabaseManager {
     }
 
     private void createTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS queued_events (id INTEGER PRIMARY KEY AUTOINCREMENT, event_json TEXT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP);";
+        String sql = "CREATE TABLE IF NOT EXISTS queued_events (id INTEGER PRIMARY KEY AUTOINCREMENT, event_json TEXT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, priority INTEGER NOT NULL DEFAULT 0);";
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(sql);
+            boolean hasPriority = false;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(queued_events);")) {
+                while (rs.next()) {
+                    hasPriority |= "priority".equals(rs.getString("name"));
+                }
+            }
+            if (!hasPriority) {
+                stmt.execute("ALTER TABLE queued_events ADD COLUMN priority INTEGER NOT NULL DEFAULT 0;");
+            }
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_queued_events_priority ON queued_events(priority DESC, id);");
         } catch (SQLException e) {
             logger.error("Could not create queued_events table!", e);
         }
     }
 
-    public void queueEvent(String jsonPayload) {
+    @Override
+    public synchronized void queueEvent(String jsonPayload, boolean priority) {
         if (connection == null) return;
-        String sql = "INSERT INTO queued_events(event_json) VALUES(?)";
+        String sql = "INSERT INTO queued_events(event_json, priority) VALUES(?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, jsonPayload);
+            pstmt.setInt(2, priority ? 1 : 0);
             pstmt.executeUpdate();
             logger.info("Website offline. Queued 1 event to local database.");
         } catch (SQLException e) {
@@ -50,14 +63,17 @@ public class DatabaseManager {
         }
     }
 
-    public Map<Integer, String> getQueuedEvents() {
-        if (connection == null) return new HashMap<>();
-        Map<Integer, String> events = new HashMap<>();
-        String sql = "SELECT id, event_json FROM queued_events ORDER BY id ASC LIMIT 100;";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                events.put(rs.getInt("id"), rs.getString("event_json"));
+    @Override
+    public synchronized Map<Long, String> getQueuedEvents(int limit) {
+        Map<Long, String> events = new LinkedHashMap<>();
+        if (connection == null) return events;
+        String sql = "SELECT id, event_json FROM queued_events ORDER BY priority DESC, id ASC LIMIT ?;";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    events.put(rs.getLong("id"), rs.getString("event_json"));
+                }
             }
         } catch (SQLException e) {
             logger.error("Could not retrieve queued events from SQLite!", e);
@@ -65,12 +81,13 @@ public class DatabaseManager {
         return events;
     }
 
-    public void deleteEvents(List<Integer> ids) {
+    @Override
+    public synchronized void deleteEvents(List<Long> ids) {
         if (connection == null || ids.isEmpty()) return;
         String sql = "DELETE FROM queued_events WHERE id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            for (Integer id : ids) {
-                pstmt.setInt(1, id);
+            for (Long id : ids) {
+                pstmt.setLong(1, id);
                 pstmt.addBatch();
             }
             pstmt.executeBatch();
@@ -80,7 +97,20 @@ public class DatabaseManager {
         }
     }
 
-    public void close() {
+    @Override
+    public synchronized long size() {
+        if (connection == null) return 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM queued_events;")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Could not count queued events in SQLite!", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
@@ -0,0 +1,161 @@
+package com.flamewall.proxybridge.manager;
+
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventDedupManager {
+    private static final int FILE_VERSION = 1;
+    private static final int WINDOW = 64;
+
+    private final Logger logger;
+    private final Path storeFile;
+    private final long retentionMillis;
+    private final Map<String, Integer> serverIndexes = new ConcurrentHashMap<>();
+    private final List<String> serverIds = Collections.synchronizedList(new ArrayList<>());
+    // Per player: [lastSeen, hwm(server 0), window(server 0), hwm(server 1), window(server 1), ...]
+    private final Map<UUID, long[]> marks = new ConcurrentHashMap<>();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+
+    public EventDedupManager(Path dataDirectory, Logger logger, long retentionMillis) {
+        this.logger = logger;
+        this.storeFile = dataDirectory.resolve("event-dedup.dat");
+        this.retentionMillis = retentionMillis;
+    }
+
+    public boolean accept(String serverId, UUID playerUuid, long seq) {
+        int slot = 1 + 2 * indexOf(serverId);
+        long now = System.currentTimeMillis();
+        boolean[] accepted = {false};
+        marks.compute(playerUuid, (uuid, current) -> {
+            long[] row = current;
+            if (row == null || row.length <= slot + 1) {
+                row = row == null ? new long[slot + 2] : Arrays.copyOf(row, slot + 2);
+            }
+            row[0] = now;
+            long hwm = row[slot];
+            long window = row[slot + 1];
+            if (seq > hwm) {
+                long shift = seq - hwm;
+                row[slot + 1] = (shift >= WINDOW ? 0 : window << shift) | 1L;
+                row[slot] = seq;
+                accepted[0] = true;
+            } else if (hwm - seq < WINDOW) {
+                long bit = 1L << (hwm - seq);
+                if ((window & bit) == 0) {
+                    row[slot + 1] = window | bit;
+                    accepted[0] = true;
+                }
+            }
+            return row;
+        });
+        (accepted[0] ? acceptedCount : duplicateCount).incrementAndGet();
+        return accepted[0];
+    }
+
+    public int purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        int before = marks.size();
+        marks.values().removeIf(row -> row[0] < cutoff);
+        return before - marks.size();
+    }
+
+    public int size() {
+        return marks.size();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    public void load() {
+        if (!Files.exists(storeFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(storeFile)))) {
+            if (in.readInt() != FILE_VERSION) {
+                logger.warn("🧾 [Dedup] Unknown format of {}, starting with an empty table.", storeFile.getFileName());
+                return;
+            }
+            int servers = in.readInt();
+            for (int i = 0; i < servers; i++) {
+                indexOf(in.readUTF());
+            }
+            int players = in.readInt();
+            for (int p = 0; p < players; p++) {
+                UUID playerUuid = new UUID(in.readLong(), in.readLong());
+                long[] row = new long[in.readInt()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = in.readLong();
+                }
+                marks.put(playerUuid, row);
+            }
+            int purged = purgeExpired();
+            logger.info("🧾 [Dedup] Restored sequence marks for {} players ({} expired).", marks.size(), purged);
+        } catch (IOException e) {
+            logger.error("❌ [Dedup] Failed to load sequence marks from " + storeFile, e);
+        }
+    }
+
+    public void save() {
+        purgeExpired();
+        Path tempFile = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(storeFile.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                List<String> servers;
+                synchronized (serverIds) {
+                    servers = new ArrayList<>(serverIds);
+                }
+                out.writeInt(FILE_VERSION);
+                out.writeInt(servers.size());
+                for (String serverId : servers) {
+                    out.writeUTF(serverId);
+                }
+                List<Map.Entry<UUID, long[]>> snapshot = new ArrayList<>();
+                for (UUID playerUuid : marks.keySet()) {
+                    marks.computeIfPresent(playerUuid, (uuid, row) -> {
+                        snapshot.add(Map.entry(uuid, row.clone()));
+                        return row;
+                    });
+                }
+                out.writeInt(snapshot.size());
+                for (Map.Entry<UUID, long[]> entry : snapshot) {
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    long[] row = entry.getValue();
+                    int length = Math.min(row.length, 1 + 2 * servers.size());
+                    out.writeInt(length);
+                    for (int i = 0; i < length; i++) {
+                        out.writeLong(row[i]);
+                    }
+                }
+            }
+            Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("🧾 [Dedup] Saved sequence marks for {} players.", marks.size());
+        } catch (IOException e) {
+            logger.error("❌ [Dedup] Failed to save sequence marks to " + storeFile, e);
+        }
+    }
+
+    private int indexOf(String serverId) {
+        return serverIndexes.computeIfAbsent(serverId, id -> {
+            synchronized (serverIds) {
+                serverIds.add(id);
+                return serverIds.size() - 1;
+            }
+        });
+    }
+}
@@ -0,0 +1,213 @@
+package com.flamewall.proxybridge.manager;
+
+import com.flamewall.proxybridge.cluster.ClusterCoordinator;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FriendRequestManager {
+    private static final int FILE_VERSION = 1;
+    private static final String SHARED_NAMESPACE = "friend-request";
+
+    private final Logger logger;
+    private final Path storeFile;
+    private final long ttlMillis;
+    private final int maxPerPlayer;
+    private final Map<UUID, List<PendingRequest>> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<String, String> requesterKeys = new ConcurrentHashMap<>();
+    private final ClusterCoordinator sharedState;
+
+    public FriendRequestManager(Path dataDirectory, Logger logger, long ttlMillis, int maxPerPlayer, boolean persistent,
+                                ClusterCoordinator sharedState) {
+        this.logger = logger;
+        this.sharedState = sharedState;
+        this.storeFile = persistent ? dataDirectory.resolve("pending-friend-requests.dat") : null;
+        this.ttlMillis = ttlMillis;
+        this.maxPerPlayer = Math.max(1, maxPerPlayer);
+    }
+
+    public void addRequest(UUID receiverUuid, String requesterName, int requestId) {
+        String requesterKey = internKey(requesterName);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        pendingRequests.compute(receiverUuid, (uuid, requests) -> {
+            List<PendingRequest> list = requests != null ? requests : new ArrayList<>(2);
+            list.removeIf(request -> request.requesterKey.equals(requesterKey));
+            list.add(new PendingRequest(requesterKey, requestId, expiresAt));
+            while (list.size() > maxPerPlayer) {
+                PendingRequest evicted = list.remove(0);
+                logger.info("💌 [Friends] Dropped oldest pending request #{} for {} (limit of {} reached).", evicted.requestId, uuid, maxPerPlayer);
+            }
+            return list;
+        });
+        if (sharedState != null) {
+            sharedState.put(SHARED_NAMESPACE, sharedKey(receiverUuid, requesterKey), String.valueOf(requestId), ttlMillis);
+        }
+    }
+
+    public OptionalInt takeRequest(UUID receiverUuid, String requesterName) {
+        String requesterKey = requesterName.toLowerCase();
+        long now = System.currentTimeMillis();
+        int[] found = {-1};
+        pendingRequests.computeIfPresent(receiverUuid, (uuid, requests) -> {
+            for (int i = 0; i < requests.size(); i++) {
+                PendingRequest request = requests.get(i);
+                if (request.requesterKey.equals(requesterKey)) {
+                    requests.remove(i);
+                    if (request.expiresAt > now) {
+                        found[0] = request.requestId;
+                    }
+                    break;
+                }
+            }
+            return requests.isEmpty() ? null : requests;
+        });
+        if (sharedState != null) {
+            String key = sharedKey(receiverUuid, requesterKey);
+            Optional<String> shared = found[0] < 0 ? sharedState.get(SHARED_NAMESPACE, key) : Optional.empty();
+            boolean taken = sharedState.remove(SHARED_NAMESPACE, key);
+            if (shared.isPresent() && taken) {
+                try {
+                    found[0] = Integer.parseInt(shared.get());
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return found[0] < 0 ? OptionalInt.empty() : OptionalInt.of(found[0]);
+    }
+
+    private static String sharedKey(UUID receiverUuid, String requesterKey) {
+        return receiverUuid + ":" + requesterKey;
+    }
+
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int[] removed = {0};
+        Set<String> liveKeys = new HashSet<>();
+        for (UUID receiverUuid : pendingRequests.keySet()) {
+            pendingRequests.computeIfPresent(receiverUuid, (uuid, requests) -> {
+                int before = requests.size();
+                requests.removeIf(request -> request.expiresAt <= now);
+                removed[0] += before - requests.size();
+                requests.forEach(request -> liveKeys.add(request.requesterKey));
+                return requests.isEmpty() ? null : requests;
+            });
+        }
+        requesterKeys.keySet().retainAll(liveKeys);
+        return removed[0];
+    }
+
+    public int size() {
+        int total = 0;
+        for (List<PendingRequest> requests : pendingRequests.values()) {
+            total += requests.size();
+        }
+        return total;
+    }
+
+    public void load() {
+        if (storeFile == null || !Files.exists(storeFile)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(storeFile)))) {
+            if (in.readInt() != FILE_VERSION) {
+                logger.warn("💌 [Friends] Unknown format of {}, ignoring stored friend requests.", storeFile.getFileName());
+                return;
+            }
+            int players = in.readInt();
+            for (int p = 0; p < players; p++) {
+                UUID receiverUuid = new UUID(in.readLong(), in.readLong());
+                int count = in.readInt();
+                for (int r = 0; r < count; r++) {
+                    String requesterKey = internKey(in.readUTF());
+                    int requestId = in.readInt();
+                    long expiresAt = in.readLong();
+                    if (expiresAt > now) {
+                        pendingRequests.computeIfAbsent(receiverUuid, k -> new ArrayList<>(2))
+                                .add(new PendingRequest(requesterKey, requestId, expiresAt));
+                        loaded++;
+                    }
+                }
+            }
+            logger.info("💌 [Friends] Restored {} pending friend requests from disk.", loaded);
+        } catch (IOException e) {
+            logger.error("❌ [Friends] Failed to load pending friend requests from " + storeFile, e);
+        }
+    }
+
+    public void save() {
+        if (storeFile == null) {
+            return;
+        }
+        purgeExpired();
+        Path tempFile = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(storeFile.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                List<Map.Entry<UUID, List<PendingRequest>>> snapshot = new ArrayList<>();
+                for (UUID receiverUuid : pendingRequests.keySet()) {
+                    List<PendingRequest> copy = copyOf(receiverUuid);
+                    if (!copy.isEmpty()) {
+                        snapshot.add(Map.entry(receiverUuid, copy));
+                    }
+                }
+                out.writeInt(FILE_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<UUID, List<PendingRequest>> entry : snapshot) {
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeInt(entry.getValue().size());
+                    for (PendingRequest request : entry.getValue()) {
+                        out.writeUTF(request.requesterKey);
+                        out.writeInt(request.requestId);
+                        out.writeLong(request.expiresAt);
+                    }
+                }
+            }
+            Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("💌 [Friends] Saved {} pending friend requests to disk.", size());
+        } catch (IOException e) {
+            logger.error("❌ [Friends] Failed to save pending friend requests to " + storeFile, e);
+        }
+    }
+
+    private List<PendingRequest> copyOf(UUID receiverUuid) {
+        List<PendingRequest> copy = new ArrayList<>();
+        pendingRequests.computeIfPresent(receiverUuid, (uuid, requests) -> {
+            copy.addAll(requests);
+            return requests;
+        });
+        return copy;
+    }
+
+    private String internKey(String requesterName) {
+        String key = requesterName.toLowerCase();
+        String existing = requesterKeys.putIfAbsent(key, key);
+        return existing != null ? existing : key;
+    }
+
+    private static final class PendingRequest {
+        private final String requesterKey;
+        private final int requestId;
+        private final long expiresAt;
+
+        private PendingRequest(String requesterKey, int requestId, long expiresAt) {
+            this.requesterKey = requesterKey;
+            this.requestId = requestId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
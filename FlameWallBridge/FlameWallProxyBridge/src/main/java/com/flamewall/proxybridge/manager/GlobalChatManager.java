@@ -0,0 +1,220 @@
+package com.flamewall.proxybridge.manager;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GlobalChatManager {
+    private static final int RECENT_MESSAGE_IDS = 512;
+    private static final long RATE_WINDOW_MILLIS = 10_000;
+    private static final long ECHO_TTL_MILLIS = 30_000;
+
+    private final ProxyServer server;
+    private final Logger logger;
+    private final Set<String> allowedServers;
+    private final ServerRoutingTable routingTable;
+    private final int maxMessagesPerWindow;
+    private final ThreadPoolExecutor broadcastExecutor;
+
+    private final Set<Integer> recentMessageIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > RECENT_MESSAGE_IDS;
+        }
+    });
+    private final Map<UUID, long[]> rateWindows = new ConcurrentHashMap<>();
+    private final Map<UUID, Deque<PendingEcho>> pendingEchoes = new ConcurrentHashMap<>();
+
+    private final AtomicLong broadcastCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public GlobalChatManager(ProxyServer server, Logger logger, Collection<String> allowedServers, ServerRoutingTable routingTable,
+                             int maxMessagesPerWindow, int queueCapacity) {
+        this.server = server;
+        this.logger = logger;
+        this.allowedServers = new HashSet<>();
+        allowedServers.forEach(name -> this.allowedServers.add(name.toLowerCase()));
+        this.routingTable = routingTable;
+        this.maxMessagesPerWindow = maxMessagesPerWindow;
+        this.broadcastExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "FlameWall-GlobalChat");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean tryAcquire(UUID sender) {
+        if (maxMessagesPerWindow <= 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        boolean[] allowed = {false};
+        rateWindows.compute(sender, (key, window) -> {
+            if (window == null || now - window[0] >= RATE_WINDOW_MILLIS) {
+                window = new long[]{now, 0};
+            }
+            if (window[1] < maxMessagesPerWindow) {
+                window[1]++;
+                allowed[0] = true;
+            }
+            return window;
+        });
+        if (!allowed[0]) {
+            rateLimitedCount.incrementAndGet();
+        }
+        return allowed[0];
+    }
+
+    public void echoToSender(Player sender, String content) {
+        pendingEchoes.computeIfAbsent(sender.getUniqueId(), uuid -> new ConcurrentLinkedDeque<>())
+                .add(new PendingEcho(content, System.currentTimeMillis() + ECHO_TTL_MILLIS));
+        sender.sendMessage(render(sender.getUsername(), content, -1));
+    }
+
+    public void broadcast(int messageId, String authorName, String authorUuid, String content) {
+        synchronized (recentMessageIds) {
+            if (!recentMessageIds.add(messageId)) {
+                duplicateCount.incrementAndGet();
+                logger.info("🌐 [Global Chat] Skipping duplicate message #{}.", messageId);
+                return;
+            }
+        }
+        Component finalMessage = render(authorName, content, messageId);
+        try {
+            broadcastExecutor.execute(() -> {
+                UUID echoedSender = consumeEcho(authorUuid, content);
+                int delivered = 0;
+                for (Player player : server.getAllPlayers()) {
+                    if (player.getUniqueId().equals(echoedSender) || !isOnAllowedServer(player)) {
+                        continue;
+                    }
+                    player.sendMessage(finalMessage);
+                    delivered++;
+                }
+                broadcastCount.incrementAndGet();
+                logger.info("🌐 [Global Chat] Message #{} delivered to {} players.", messageId, delivered);
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (recentMessageIds) {
+                recentMessageIds.remove(messageId);
+            }
+            droppedCount.incrementAndGet();
+            logger.warn("🌐 [Global Chat] Broadcast queue is full, dropping message #{}.", messageId);
+        }
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        rateWindows.values().removeIf(window -> now - window[0] >= RATE_WINDOW_MILLIS);
+        pendingEchoes.values().forEach(echoes -> echoes.removeIf(echo -> echo.expiresAt <= now));
+        pendingEchoes.values().removeIf(Deque::isEmpty);
+    }
+
+    public void shutdown() {
+        broadcastExecutor.shutdown();
+        try {
+            if (!broadcastExecutor.awaitTermination(2, TimeUnit.SECONDS)) {
+                broadcastExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            broadcastExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueuedBroadcasts() {
+        return broadcastExecutor.getQueue().size();
+    }
+
+    public long getBroadcastCount() {
+        return broadcastCount.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private UUID consumeEcho(String authorUuid, String content) {
+        if (authorUuid == null || authorUuid.isEmpty()) {
+            return null;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(authorUuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Deque<PendingEcho> echoes = pendingEchoes.get(uuid);
+        if (echoes == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (Iterator<PendingEcho> it = echoes.iterator(); it.hasNext(); ) {
+            PendingEcho echo = it.next();
+            if (echo.expiresAt > now && echo.content.equals(content)) {
+                it.remove();
+                return uuid;
+            }
+        }
+        return null;
+    }
+
+    private boolean isOnAllowedServer(Player player) {
+        if (allowedServers.isEmpty()) {
+            return true;
+        }
+        return player.getCurrentServer()
+                .map(connection -> allowedServers.contains(connection.getServerInfo().getName().toLowerCase())
+                        || (routingTable != null && routingTable.getGroup(connection.getServer()).map(allowedServers::contains).orElse(false)))
+                .orElse(false);
+    }
+
+    private Component render(String authorName, String content, int messageId) {
+        Component prefix = Component.text()
+                .append(Component.text("[", NamedTextColor.DARK_GRAY))
+                .append(Component.text("Global Chat", NamedTextColor.GOLD))
+                .append(Component.text("] ", NamedTextColor.DARK_GRAY))
+                .build();
+        Component authorComponent = Component.text(authorName, NamedTextColor.AQUA);
+        Component messageComponent = Component.text(" » ", NamedTextColor.GRAY)
+                .append(Component.text(content, NamedTextColor.WHITE));
+        Component finalMessage = prefix.append(authorComponent).append(messageComponent);
+        if (messageId < 0) {
+            return finalMessage;
+        }
+        return finalMessage
+                .clickEvent(ClickEvent.suggestCommand("/flame gcr " + messageId + " "))
+                .hoverEvent(HoverEvent.showText(Component.text("Click to reply to " + authorName).color(NamedTextColor.GREEN)));
+    }
+
+    private static final class PendingEcho {
+        private final String content;
+        private final long expiresAt;
+
+        private PendingEcho(String content, long expiresAt) {
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,20 +1,137 @@
-
 package com.flamewall.proxybridge.manager;
 
+import com.flamewall.proxybridge.cluster.ClusterCoordinator;
 import com.velocitypowered.api.proxy.Player;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class PrivateMessageManager {
-    private final Map<UUID, UUID> lastMessagePartners = new HashMap<>();
+    private static final long ONLINE = Long.MAX_VALUE;
+    private static final String SHARED_NAMESPACE = "reply-target";
+    private static final long SHARED_ONLINE_TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    private final Map<UUID, ReplyTarget> lastMessagePartners = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, Long>> verifiedRoutes = new ConcurrentHashMap<>();
+    private final long relogGraceMillis;
+    private final long verifiedRouteTtlMillis;
+    private final ClusterCoordinator sharedState;
+
+    public PrivateMessageManager(long relogGraceMillis, long verifiedRouteTtlMillis, ClusterCoordinator sharedState) {
+        this.relogGraceMillis = relogGraceMillis;
+        this.verifiedRouteTtlMillis = verifiedRouteTtlMillis;
+        this.sharedState = sharedState;
+    }
 
     public void setLastPartner(Player player1, Player player2) {
-        lastMessagePartners.put(player1.getUniqueId(), player2.getUniqueId());
-        lastMessagePartners.put(player2.getUniqueId(), player1.getUniqueId());
+        lastMessagePartners.put(player1.getUniqueId(), new ReplyTarget(player2.getUniqueId(), ONLINE));
+        lastMessagePartners.put(player2.getUniqueId(), new ReplyTarget(player1.getUniqueId(), ONLINE));
+        if (sharedState != null) {
+            sharedState.put(SHARED_NAMESPACE, player1.getUniqueId().toString(), player2.getUniqueId().toString(), SHARED_ONLINE_TTL_MILLIS);
+            sharedState.put(SHARED_NAMESPACE, player2.getUniqueId().toString(), player1.getUniqueId().toString(), SHARED_ONLINE_TTL_MILLIS);
+        }
     }
 
     public UUID getReplyTarget(Player sender) {
-        return lastMessagePartners.get(sender.getUniqueId());
+        ReplyTarget target = lastMessagePartners.get(sender.getUniqueId());
+        if (target == null) {
+            return sharedPartner(sender.getUniqueId()).orElse(null);
+        }
+        if (target.expiresAt <= System.currentTimeMillis()) {
+            lastMessagePartners.remove(sender.getUniqueId(), target);
+            return null;
+        }
+        return target.partner;
+    }
+
+    public boolean isRouteVerified(UUID senderUuid, UUID recipientUuid) {
+        Map<UUID, Long> routes = verifiedRoutes.get(senderUuid);
+        if (routes == null) {
+            return false;
+        }
+        Long expiresAt = routes.get(recipientUuid);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            routes.remove(recipientUuid, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void markRouteVerified(UUID senderUuid, UUID recipientUuid) {
+        if (verifiedRouteTtlMillis <= 0) {
+            return;
+        }
+        verifiedRoutes.computeIfAbsent(senderUuid, uuid -> new ConcurrentHashMap<>())
+                .put(recipientUuid, System.currentTimeMillis() + verifiedRouteTtlMillis);
+    }
+
+    public void revokeRoutes(UUID senderUuid) {
+        verifiedRoutes.remove(senderUuid);
+    }
+
+    public void handleLogin(UUID playerUuid) {
+        lastMessagePartners.computeIfPresent(playerUuid, (uuid, target) ->
+                target.expiresAt > System.currentTimeMillis() ? new ReplyTarget(target.partner, ONLINE) : null);
+        if (sharedState != null && !lastMessagePartners.containsKey(playerUuid)) {
+            sharedPartner(playerUuid).ifPresent(partner -> {
+                lastMessagePartners.put(playerUuid, new ReplyTarget(partner, ONLINE));
+                sharedState.put(SHARED_NAMESPACE, playerUuid.toString(), partner.toString(), SHARED_ONLINE_TTL_MILLIS);
+            });
+        }
+    }
+
+    public void handleDisconnect(UUID playerUuid) {
+        verifiedRoutes.remove(playerUuid);
+        if (relogGraceMillis <= 0) {
+            lastMessagePartners.remove(playerUuid);
+            if (sharedState != null) {
+                sharedState.remove(SHARED_NAMESPACE, playerUuid.toString());
+            }
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + relogGraceMillis;
+        ReplyTarget target = lastMessagePartners.computeIfPresent(playerUuid, (uuid, current) -> new ReplyTarget(current.partner, expiresAt));
+        if (sharedState != null && target != null) {
+            sharedState.put(SHARED_NAMESPACE, playerUuid.toString(), target.partner.toString(), relogGraceMillis);
+        }
+    }
+
+    private Optional<UUID> sharedPartner(UUID playerUuid) {
+        if (sharedState == null) {
+            return Optional.empty();
+        }
+        try {
+            return sharedState.get(SHARED_NAMESPACE, playerUuid.toString()).map(UUID::fromString);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = lastMessagePartners.size();
+        lastMessagePartners.values().removeIf(target -> target.expiresAt <= now);
+        verifiedRoutes.values().forEach(routes -> routes.values().removeIf(expiresAt -> expiresAt <= now));
+        verifiedRoutes.values().removeIf(Map::isEmpty);
+        return before - lastMessagePartners.size();
+    }
+
+    public int size() {
+        return lastMessagePartners.size();
+    }
+
+    private static final class ReplyTarget {
+        private final UUID partner;
+        private final long expiresAt;
+
+        private ReplyTarget(UUID partner, long expiresAt) {
+            this.partner = partner;
+            this.expiresAt = expiresAt;
+        }
     }
-}
\ No newline at end of file
+}
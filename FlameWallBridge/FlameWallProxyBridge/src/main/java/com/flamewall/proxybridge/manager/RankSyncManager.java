@@ -0,0 +1,137 @@
+package com.flamewall.proxybridge.manager;
+
+import com.flamewall.proxybridge.ApiClient;
+import com.flamewall.proxybridge.http.ApiEndpoint;
+import org.slf4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RankSyncManager {
+    // Matches the @ArrayMaxSize on the website's rank-sync batch endpoint.
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final ApiClient apiClient;
+    private final Logger logger;
+    private final Map<String, String> pendingRanks = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushInProgress = new AtomicBoolean(false);
+
+    private final AtomicLong receivedUpdates = new AtomicLong();
+    private final AtomicLong sentUpdates = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong droppedUpdates = new AtomicLong();
+    private volatile long lastFlushLatencyMs = -1;
+    private volatile long maxFlushLatencyMs = 0;
+
+    public RankSyncManager(ApiClient apiClient, Logger logger) {
+        this.apiClient = apiClient;
+        this.logger = logger;
+    }
+
+    public void queueRank(String playerUuid, String rankName) {
+        receivedUpdates.incrementAndGet();
+        pendingRanks.put(playerUuid, rankName);
+    }
+
+    public void restorePending(Map<String, String> ranks) {
+        ranks.forEach(pendingRanks::putIfAbsent);
+    }
+
+    public void flush() {
+        if (pendingRanks.isEmpty() || !apiClient.isAvailable(ApiEndpoint.RANK_SYNC)
+                || !flushInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (String uuid : pendingRanks.keySet()) {
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+            String rank = pendingRanks.get(uuid);
+            if (rank != null && pendingRanks.remove(uuid, rank)) {
+                batch.put(uuid, rank);
+            }
+        }
+        if (batch.isEmpty()) {
+            flushInProgress.set(false);
+            return;
+        }
+        long startedAt = System.nanoTime();
+        apiClient.syncRanks(batch, status -> {
+            long latencyMs = (System.nanoTime() - startedAt) / 1_000_000;
+            lastFlushLatencyMs = latencyMs;
+            maxFlushLatencyMs = Math.max(maxFlushLatencyMs, latencyMs);
+            if (status >= 200 && status < 300) {
+                sentUpdates.addAndGet(batch.size());
+                long flushes = flushCount.incrementAndGet();
+                logger.info("🔄 [RankSync] Flushed {} rank updates in {} ms (flush #{}, coalescing ratio {}).",
+                        batch.size(), latencyMs, flushes, String.format("%.2f", getCoalescingRatio()));
+            } else if (isRetryable(status)) {
+                batch.forEach(pendingRanks::putIfAbsent);
+                logger.warn("🔄 [RankSync] Batch of {} rank updates failed after {} ms, re-queued for the next flush.", batch.size(), latencyMs);
+            } else {
+                droppedUpdates.addAndGet(batch.size());
+                logger.error("🔄 [RankSync] Website rejected a batch of {} rank updates with HTTP {}, dropping it.", batch.size(), status);
+            }
+            flushInProgress.set(false);
+        });
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 0 || status == 408 || status == 429 || status >= 500;
+    }
+
+    public int persistPending() {
+        Map<String, String> leftover = new LinkedHashMap<>();
+        int persisted = 0;
+        for (String uuid : pendingRanks.keySet()) {
+            String rank = pendingRanks.remove(uuid);
+            if (rank != null) {
+                leftover.put(uuid, rank);
+                persisted++;
+            }
+            if (leftover.size() >= MAX_BATCH_SIZE) {
+                apiClient.queueRankUpdatesOffline(leftover);
+                leftover = new LinkedHashMap<>();
+            }
+        }
+        apiClient.queueRankUpdatesOffline(leftover);
+        return persisted;
+    }
+
+    public int getPendingCount() {
+        return pendingRanks.size();
+    }
+
+    public long getReceivedUpdates() {
+        return receivedUpdates.get();
+    }
+
+    public long getSentUpdates() {
+        return sentUpdates.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getDroppedUpdates() {
+        return droppedUpdates.get();
+    }
+
+    public double getCoalescingRatio() {
+        long sent = sentUpdates.get();
+        return sent == 0 ? 1.0 : (double) (receivedUpdates.get() - pendingRanks.size()) / sent;
+    }
+
+    public long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    public long getMaxFlushLatencyMs() {
+        return maxFlushLatencyMs;
+    }
+}
@@ -0,0 +1,184 @@
+package com.flamewall.proxybridge.manager;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ServerRoutingTable {
+    public static final String ANNOUNCE_SUBCHANNEL = "AnnounceServer";
+
+    private final ProxyServer server;
+    private final Logger logger;
+    private final int pendingCapacity;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Map<String, Deque<PendingMessage>> pending = new ConcurrentHashMap<>();
+
+    public ServerRoutingTable(ProxyServer server, Logger logger, int pendingCapacity) {
+        this.server = server;
+        this.logger = logger;
+        this.pendingCapacity = pendingCapacity;
+    }
+
+    public void announce(RegisteredServer source, JSONObject announcement) {
+        String serverName = source.getServerInfo().getName();
+        Set<String> capabilities = new HashSet<>();
+        JSONArray announced = announcement.optJSONArray("capabilities");
+        if (announced != null) {
+            for (int i = 0; i < announced.length(); i++) {
+                capabilities.add(announced.optString(i, "").toLowerCase());
+            }
+        }
+        Route route = new Route(announcement.optString("serverGroup", serverName).toLowerCase(),
+                announcement.optString("serverId", ""), capabilities);
+        Route previous = routes.put(serverName.toLowerCase(), route);
+        if (!route.equals(previous)) {
+            logger.info("🧭 [Routing] Server {} joined group '{}' with capabilities {}.", serverName, route.group, capabilities);
+        }
+    }
+
+    public Optional<String> getGroup(RegisteredServer target) {
+        Route route = routes.get(target.getServerInfo().getName().toLowerCase());
+        return route != null ? Optional.of(route.group) : Optional.empty();
+    }
+
+    public boolean isEmpty() {
+        return routes.isEmpty();
+    }
+
+    public Set<String> getGroups() {
+        Set<String> groups = new TreeSet<>();
+        routes.values().forEach(route -> groups.add(route.group));
+        return groups;
+    }
+
+    public List<RegisteredServer> serversInGroup(String group) {
+        List<RegisteredServer> servers = new ArrayList<>();
+        for (RegisteredServer registered : server.getAllServers()) {
+            Route route = routes.get(registered.getServerInfo().getName().toLowerCase());
+            if (route != null && route.group.equalsIgnoreCase(group)) {
+                servers.add(registered);
+            }
+        }
+        return servers;
+    }
+
+    public List<RegisteredServer> onePerGroup(String capability) {
+        Map<String, RegisteredServer> chosen = new TreeMap<>();
+        for (RegisteredServer registered : server.getAllServers()) {
+            Route route = routes.get(registered.getServerInfo().getName().toLowerCase());
+            if (route == null || !route.capabilities.contains(capability)) {
+                continue;
+            }
+            RegisteredServer current = chosen.get(route.group);
+            if (current == null || (current.getPlayersConnected().isEmpty() && !registered.getPlayersConnected().isEmpty())) {
+                chosen.put(route.group, registered);
+            }
+        }
+        return new ArrayList<>(chosen.values());
+    }
+
+    public Optional<RegisteredServer> findCarrier(String group) {
+        for (RegisteredServer registered : serversInGroup(group)) {
+            if (!registered.getPlayersConnected().isEmpty()) {
+                return Optional.of(registered);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean send(RegisteredServer target, ChannelIdentifier channel, byte[] message) {
+        String key = target.getServerInfo().getName().toLowerCase();
+        Deque<PendingMessage> queue = pending.get(key);
+        if (queue != null) {
+            flush(target);
+        }
+        if ((queue == null || queue.isEmpty()) && target.sendPluginMessage(channel, message)) {
+            return true;
+        }
+        if (pendingCapacity <= 0) {
+            logger.warn("⚠️ [Routing] Could not send to {}, nobody is connected to carry it.", target.getServerInfo().getName());
+            return false;
+        }
+        queue = pending.computeIfAbsent(key, name -> new ArrayDeque<>());
+        synchronized (queue) {
+            while (queue.size() >= pendingCapacity) {
+                queue.pollFirst();
+                logger.warn("⚠️ [Routing] Buffer for {} is full, dropping the oldest message.", target.getServerInfo().getName());
+            }
+            queue.addLast(new PendingMessage(channel, message));
+        }
+        return false;
+    }
+
+    public int flush(RegisteredServer target) {
+        Deque<PendingMessage> queue = pending.get(target.getServerInfo().getName().toLowerCase());
+        if (queue == null) {
+            return 0;
+        }
+        int sent = 0;
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                return 0;
+            }
+            PendingMessage message;
+            while ((message = queue.peekFirst()) != null && target.sendPluginMessage(message.channel, message.data)) {
+                queue.pollFirst();
+                sent++;
+            }
+        }
+        if (sent > 0) {
+            logger.info("🧭 [Routing] Forwarded {} buffered messages to {}.", sent, target.getServerInfo().getName());
+        }
+        return sent;
+    }
+
+    public int getPendingCount() {
+        int count = 0;
+        for (Deque<PendingMessage> queue : pending.values()) {
+            synchronized (queue) {
+                count += queue.size();
+            }
+        }
+        return count;
+    }
+
+    private static final class Route {
+        private final String group;
+        private final String serverId;
+        private final Set<String> capabilities;
+
+        private Route(String group, String serverId, Set<String> capabilities) {
+            this.group = group;
+            this.serverId = serverId;
+            this.capabilities = capabilities;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Route)) return false;
+            Route other = (Route) o;
+            return group.equals(other.group) && serverId.equals(other.serverId) && capabilities.equals(other.capabilities);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, serverId, capabilities);
+        }
+    }
+
+    private static final class PendingMessage {
+        private final ChannelIdentifier channel;
+        private final byte[] data;
+
+        private PendingMessage(ChannelIdentifier channel, byte[] data) {
+            this.channel = channel;
+            this.data = data;
+        }
+    }
+}
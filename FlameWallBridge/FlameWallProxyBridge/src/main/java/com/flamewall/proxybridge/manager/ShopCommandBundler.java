@@ -0,0 +1,122 @@
+package com.flamewall.proxybridge.manager;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class ShopCommandBundler {
+    public static final String BUNDLE_SUBCHANNEL = "ExecuteCommandBundle";
+    // Serverbound plugin messages are capped at 32767 bytes.
+    private static final int MAX_BUNDLE_BYTES = 30000;
+
+    private final ProxyServer server;
+    private final Logger logger;
+    private final ChannelIdentifier channel;
+    private final ServerRoutingTable routingTable;
+    private final String fallbackGroup;
+    private final Map<RegisteredServer, Bundle> bundles = new LinkedHashMap<>();
+    private final List<Integer> sentIds = new ArrayList<>();
+    private final List<Integer> unsentIds = new ArrayList<>();
+
+    public ShopCommandBundler(ProxyServer server, Logger logger, ChannelIdentifier channel,
+                              ServerRoutingTable routingTable, String fallbackGroup) {
+        this.server = server;
+        this.logger = logger;
+        this.channel = channel;
+        this.routingTable = routingTable;
+        this.fallbackGroup = fallbackGroup;
+    }
+
+    public boolean add(int commandId, String command) {
+        return add(commandId, command, false);
+    }
+
+    public boolean add(int commandId, String command, boolean global) {
+        logger.info("✔️ [Shop] Processing command ID {}: '{}'", commandId, command);
+        Optional<RegisteredServer> route = findTarget(command, global);
+        if (route.isEmpty()) {
+            logger.warn("⚠️ [Shop] Could not find an online player in command to execute: '{}'", command);
+            return false;
+        }
+        RegisteredServer target = route.get();
+        int size = Integer.BYTES + 2 + command.getBytes(StandardCharsets.UTF_8).length;
+        Bundle bundle = bundles.computeIfAbsent(target, key -> new Bundle());
+        if (!bundle.ids.isEmpty() && bundle.bytes + size > MAX_BUNDLE_BYTES) {
+            send(target, bundle);
+            bundle = new Bundle();
+            bundles.put(target, bundle);
+        }
+        bundle.ids.add(commandId);
+        bundle.commands.add(command);
+        bundle.bytes += size;
+        return true;
+    }
+
+    public List<Integer> getUnsentIds() {
+        return unsentIds;
+    }
+
+    public boolean canRoute(String command, boolean global) {
+        return findTarget(command, global).isPresent();
+    }
+
+    public List<Integer> flush() {
+        bundles.forEach(this::send);
+        bundles.clear();
+        List<Integer> ids = new ArrayList<>(sentIds);
+        sentIds.clear();
+        return ids;
+    }
+
+    private Optional<RegisteredServer> findTarget(String command, boolean global) {
+        for (String part : command.split(" ")) {
+            Optional<Player> player = server.getPlayer(part);
+            if (player.isPresent()) {
+                return player.get().getCurrentServer().map(ServerConnection::getServer);
+            }
+        }
+        if (global && routingTable != null && !fallbackGroup.isEmpty()) {
+            return routingTable.findCarrier(fallbackGroup);
+        }
+        return Optional.empty();
+    }
+
+    private void send(RegisteredServer target, Bundle bundle) {
+        if (bundle.ids.isEmpty()) {
+            return;
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(BUNDLE_SUBCHANNEL);
+        out.writeInt(bundle.ids.size());
+        for (int i = 0; i < bundle.ids.size(); i++) {
+            out.writeInt(bundle.ids.get(i));
+            out.writeUTF(bundle.commands.get(i));
+        }
+        String serverName = target.getServerInfo().getName();
+        if (target.sendPluginMessage(channel, out.toByteArray())) {
+            sentIds.addAll(bundle.ids);
+            logger.info("✅ [Shop] Sent bundle of {} commands {} to server {}", bundle.ids.size(), bundle.ids, serverName);
+        } else {
+            unsentIds.addAll(bundle.ids);
+            logger.warn("⚠️ [Shop] Could not send bundle of {} commands to server {}, nobody is connected to carry it", bundle.ids.size(), serverName);
+        }
+    }
+
+    private static final class Bundle {
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<String> commands = new ArrayList<>();
+        private int bytes = 2 + BUNDLE_SUBCHANNEL.length() + Integer.BYTES;
+    }
+}
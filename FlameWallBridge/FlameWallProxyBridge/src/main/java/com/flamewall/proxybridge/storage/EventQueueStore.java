@@ -0,0 +1,21 @@
+package com.flamewall.proxybridge.storage;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EventQueueStore {
+    default void queueEvent(String jsonPayload) {
+        queueEvent(jsonPayload, false);
+    }
+
+    // Priority records are handed out ahead of every ordinary record, oldest first within each class.
+    void queueEvent(String jsonPayload, boolean priority);
+
+    Map<Long, String> getQueuedEvents(int limit);
+
+    void deleteEvents(List<Long> ids);
+
+    long size();
+
+    void close();
+}
@@ -0,0 +1,511 @@
+package com.flamewall.proxybridge.storage;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only queue split into fixed-size memory-mapped segments. Each record is framed as
+ * [length][crc32][payload]; a zero length marks the end of written data and a high bit of the length
+ * marks a priority record, which is handed out ahead of the others. Acknowledged records are
+ * tracked in a per-segment ack file and a segment is deleted once every record in it is acknowledged.
+ * With group commit an append returns only after a force() that covers it; appends that arrive while a force
+ * is running share the next one. Without it an append returns once the record is in the mapped segment, and
+ * the background sync flushes it within the sync interval, so a power loss can take the records since then.
+ */
+public class SegmentJournalStore implements EventQueueStore {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_SUFFIX = ".ack";
+    private static final int HEADER_BYTES = 8;
+    private static final int PRIORITY_FLAG = 0x40000000;
+    private static final int LENGTH_MASK = PRIORITY_FLAG - 1;
+
+    private final Logger logger;
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ScheduledExecutorService syncExecutor;
+    private final Object syncLock = new Object();
+    private final Object commitLock = new Object();
+    private final AtomicBoolean syncQueued = new AtomicBoolean();
+    private final boolean groupCommit;
+
+    private Segment active;
+    private long liveRecords;
+    private long droppedRecords;
+    private long appendedTicket;
+    private long syncedTicket;
+    private long failedTicket;
+    private boolean closed;
+
+    public SegmentJournalStore(Path directory, Logger logger, int segmentBytes, long syncIntervalMillis,
+                               boolean groupCommit) throws IOException {
+        this.logger = logger;
+        this.directory = directory;
+        this.segmentBytes = Math.max(64 * 1024, segmentBytes);
+        this.groupCommit = groupCommit;
+        Files.createDirectories(directory);
+        recover();
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FlameWall-JournalSync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, syncIntervalMillis);
+        syncExecutor.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("📒 [Journal] Opened offline journal with {} segments and {} pending events.", segments.size(), liveRecords);
+    }
+
+    @Override
+    public void queueEvent(String jsonPayload, boolean priority) {
+        byte[] payload = jsonPayload.getBytes(StandardCharsets.UTF_8);
+        int frameBytes = HEADER_BYTES + payload.length;
+        if (frameBytes > segmentBytes) {
+            logger.warn("📒 [Journal] Event of {} bytes does not fit in a segment, dropping it.", payload.length);
+            synchronized (this) {
+                droppedRecords++;
+            }
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long ticket;
+        synchronized (this) {
+            if (closed) {
+                droppedRecords++;
+                logger.warn("📒 [Journal] Offline journal is closed, dropping an event queued during shutdown.");
+                return;
+            }
+            try {
+                if (active == null || active.writePosition + frameBytes > segmentBytes) {
+                    rollSegment();
+                }
+                MappedByteBuffer buffer = active.buffer;
+                int position = active.writePosition;
+                buffer.putInt(position + 4, (int) crc.getValue());
+                buffer.put(position + HEADER_BYTES, payload);
+                if (position + frameBytes + HEADER_BYTES <= segmentBytes) {
+                    buffer.putInt(position + frameBytes, 0);
+                }
+                buffer.putInt(position, priority ? payload.length | PRIORITY_FLAG : payload.length);
+                active.addRecord(position, priority);
+                active.writePosition += frameBytes;
+                liveRecords++;
+                ticket = ++appendedTicket;
+            } catch (IOException e) {
+                droppedRecords++;
+                logger.error("❌ [Journal] Could not append event to the offline journal!", e);
+                return;
+            }
+        }
+        if (groupCommit) {
+            awaitCommit(ticket);
+        }
+    }
+
+    private void awaitCommit(long ticket) {
+        if (syncQueued.compareAndSet(false, true)) {
+            try {
+                syncExecutor.execute(this::sync);
+            } catch (RejectedExecutionException e) {
+                sync();
+            }
+        }
+        synchronized (commitLock) {
+            while (syncedTicket < ticket && failedTicket < ticket) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized Map<Long, String> getQueuedEvents(int limit) {
+        Map<Long, String> events = new LinkedHashMap<>();
+        List<Long> corrupt = new ArrayList<>();
+        collect(events, corrupt, limit, true);
+        collect(events, corrupt, limit, false);
+        if (!corrupt.isEmpty()) {
+            logger.warn("📒 [Journal] Discarding {} records that failed their checksum.", corrupt.size());
+            deleteEvents(corrupt);
+        }
+        return events;
+    }
+
+    private void collect(Map<Long, String> events, List<Long> corrupt, int limit, boolean priority) {
+        for (Segment segment : segments.values()) {
+            if (events.size() >= limit) {
+                break;
+            }
+            BitSet candidates = (BitSet) segment.priority.clone();
+            if (!priority) {
+                candidates.flip(0, segment.recordCount);
+            }
+            candidates.andNot(segment.acked);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            try (FileChannel channel = segment.buffer == null ? FileChannel.open(segment.file, StandardOpenOption.READ) : null) {
+                for (int ordinal = candidates.nextSetBit(0); ordinal >= 0 && events.size() < limit;
+                     ordinal = candidates.nextSetBit(ordinal + 1)) {
+                    long id = (segment.index << 32) | ordinal;
+                    byte[] payload = readRecord(segment, channel, segment.positions[ordinal]);
+                    if (payload == null) {
+                        corrupt.add(id);
+                    } else {
+                        events.put(id, new String(payload, StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("❌ [Journal] Could not read segment " + segment.file.getFileName(), e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteEvents(List<Long> ids) {
+        Set<Segment> touched = new HashSet<>();
+        for (Long id : ids) {
+            Segment segment = segments.get(id >>> 32);
+            int ordinal = (int) (id & 0xFFFFFFFFL);
+            if (segment == null || ordinal >= segment.recordCount || segment.acked.get(ordinal)) {
+                continue;
+            }
+            segment.acked.set(ordinal);
+            segment.ackedCount++;
+            segment.pendingAcks.add(ordinal);
+            liveRecords--;
+            touched.add(segment);
+        }
+        for (Segment segment : touched) {
+            if (segment != active && segment.ackedCount == segment.recordCount) {
+                deleteSegment(segment);
+            } else {
+                writeAcks(segment);
+            }
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return liveRecords;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        syncExecutor.shutdown();
+        sync();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.closeAcks(logger);
+            }
+            if (active != null) {
+                active.buffer = null;
+                active = null;
+            }
+        }
+    }
+
+    private void sync() {
+        synchronized (syncLock) {
+            syncQueued.set(false);
+            Segment segment;
+            MappedByteBuffer buffer = null;
+            int from = 0;
+            int to = 0;
+            long ticket;
+            Map<Segment, FileChannel> dirtyAcks = new LinkedHashMap<>();
+            synchronized (this) {
+                ticket = appendedTicket;
+                segment = active;
+                if (segment != null && segment.writePosition > segment.syncedPosition) {
+                    buffer = segment.buffer;
+                    from = segment.syncedPosition;
+                    to = segment.writePosition;
+                }
+                for (Segment candidate : segments.values()) {
+                    if (candidate.ackDirty) {
+                        candidate.ackDirty = false;
+                        dirtyAcks.put(candidate, candidate.ackChannel);
+                    }
+                }
+            }
+            boolean forced = true;
+            if (buffer != null) {
+                try {
+                    buffer.force(from, to - from);
+                    synchronized (this) {
+                        segment.syncedPosition = Math.max(segment.syncedPosition, to);
+                    }
+                } catch (UncheckedIOException e) {
+                    forced = false;
+                    logger.error("❌ [Journal] Could not flush " + segment.file.getFileName() + " to disk!", e);
+                }
+            }
+            synchronized (commitLock) {
+                if (forced) {
+                    syncedTicket = Math.max(syncedTicket, ticket);
+                } else {
+                    failedTicket = Math.max(failedTicket, ticket);
+                }
+                commitLock.notifyAll();
+            }
+            for (Map.Entry<Segment, FileChannel> entry : dirtyAcks.entrySet()) {
+                try {
+                    entry.getValue().force(false);
+                } catch (ClosedChannelException e) {
+                    // Closed by closeAcks, which forces the channel itself.
+                } catch (IOException e) {
+                    logger.error("❌ [Journal] Could not sync ack file of " + entry.getKey().file.getFileName(), e);
+                    synchronized (this) {
+                        entry.getKey().ackDirty |= entry.getKey().ackChannel == entry.getValue();
+                    }
+                }
+            }
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+            active.syncedPosition = active.writePosition;
+            active.buffer = null;
+            if (active.ackedCount == active.recordCount) {
+                deleteSegment(active);
+            }
+        }
+        long index = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Segment segment = new Segment(index, segmentPath(index, SEGMENT_SUFFIX), segmentPath(index, ACK_SUFFIX));
+        segment.buffer = map(segment.file);
+        segments.put(index, segment);
+        active = segment;
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private byte[] readRecord(Segment segment, FileChannel channel, int position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        byte[] payload;
+        if (channel == null) {
+            int length = segment.buffer.getInt(position) & LENGTH_MASK;
+            header.putInt(0, length).putInt(4, segment.buffer.getInt(position + 4));
+            payload = new byte[length];
+            segment.buffer.get(position + HEADER_BYTES, payload);
+        } else {
+            readFully(channel, header, position);
+            ByteBuffer body = ByteBuffer.allocate(header.getInt(0) & LENGTH_MASK);
+            readFully(channel, body, position + HEADER_BYTES);
+            payload = body.array();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == header.getInt(4) ? payload : null;
+    }
+
+    private void writeAcks(Segment segment) {
+        if (segment.pendingAcks.isEmpty()) {
+            return;
+        }
+        try {
+            if (segment.ackChannel == null) {
+                segment.ackChannel = FileChannel.open(segment.ackFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(segment.pendingAcks.size() * 4);
+            segment.pendingAcks.forEach(buffer::putInt);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segment.ackChannel.write(buffer);
+            }
+            segment.pendingAcks.clear();
+            segment.ackDirty = true;
+        } catch (IOException e) {
+            logger.error("❌ [Journal] Could not write acks for " + segment.file.getFileName(), e);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        segment.closeAcks(logger);
+        segments.remove(segment.index);
+        try {
+            Files.deleteIfExists(segment.ackFile);
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            logger.warn("📒 [Journal] Could not delete acknowledged segment {}: {}", segment.file.getFileName(), e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long index;
+            try {
+                index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Segment segment = new Segment(index, file, segmentPath(index, ACK_SUFFIX));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                segment.writePosition = scan(segment, channel);
+            }
+            segment.syncedPosition = segment.writePosition;
+            loadAcks(segment);
+            segments.put(index, segment);
+        }
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment != segments.lastEntry().getValue() && segment.ackedCount == segment.recordCount) {
+                deleteSegment(segment);
+            } else {
+                liveRecords += segment.recordCount - segment.ackedCount;
+            }
+        }
+        if (!segments.isEmpty()) {
+            Segment last = segments.lastEntry().getValue();
+            if (Files.size(last.file) == segmentBytes) {
+                last.buffer = map(last.file);
+                if (last.writePosition + HEADER_BYTES <= segmentBytes) {
+                    last.buffer.putInt(last.writePosition, 0);
+                }
+                active = last;
+            }
+        }
+    }
+
+    private int scan(Segment segment, FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + HEADER_BYTES <= fileSize) {
+            header.clear();
+            readFully(channel, header, position);
+            int raw = header.getInt(0);
+            int length = raw & LENGTH_MASK;
+            if (raw <= 0 || length == 0 || position + HEADER_BYTES + (long) length > fileSize) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(channel, body, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(body.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                logger.warn("📒 [Journal] Torn record at offset {} of {}, truncating segment there.", position, segment.file.getFileName());
+                break;
+            }
+            segment.addRecord(position, (raw & PRIORITY_FLAG) != 0);
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void loadAcks(Segment segment) throws IOException {
+        if (!Files.exists(segment.ackFile)) {
+            return;
+        }
+        ByteBuffer acks = ByteBuffer.wrap(Files.readAllBytes(segment.ackFile));
+        while (acks.remaining() >= 4) {
+            int ordinal = acks.getInt();
+            if (ordinal >= 0 && ordinal < segment.recordCount && !segment.acked.get(ordinal)) {
+                segment.acked.set(ordinal);
+                segment.ackedCount++;
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private Path segmentPath(long index, String suffix) {
+        return directory.resolve(String.format("%020d%s", index, suffix));
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final Path file;
+        private final Path ackFile;
+        private final BitSet acked = new BitSet();
+        private final BitSet priority = new BitSet();
+        private final List<Integer> pendingAcks = new ArrayList<>();
+        private MappedByteBuffer buffer;
+        private FileChannel ackChannel;
+        private boolean ackDirty;
+        private int[] positions = new int[256];
+        private int recordCount;
+        private int ackedCount;
+        private int writePosition;
+        private int syncedPosition;
+
+        private Segment(long index, Path file, Path ackFile) {
+            this.index = index;
+            this.file = file;
+            this.ackFile = ackFile;
+        }
+
+        private void addRecord(int position, boolean isPriority) {
+            if (recordCount == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            priority.set(recordCount, isPriority);
+            positions[recordCount++] = position;
+        }
+
+        private void closeAcks(Logger logger) {
+            if (ackChannel == null) {
+                return;
+            }
+            try {
+                ackChannel.force(false);
+                ackChannel.close();
+            } catch (IOException e) {
+                logger.error("❌ [Journal] Could not close ack file of " + file.getFileName(), e);
+            }
+            ackChannel = null;
+            ackDirty = false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.flamewall.proxybridge.trace;
+
+public class EventTrace {
+    private final String id;
+    private final long capturedAt;
+    private final long sentAt;
+    private final long receivedAt;
+    private volatile long dispatchedAt;
+    private volatile int attempts;
+    private long completedAt;
+    private boolean delivered;
+
+    EventTrace(String id, long capturedAt, long sentAt, long receivedAt) {
+        this.id = id;
+        this.capturedAt = capturedAt;
+        this.sentAt = sentAt;
+        this.receivedAt = receivedAt;
+    }
+
+    public void markDispatched() {
+        dispatchedAt = System.currentTimeMillis();
+        attempts++;
+    }
+
+    void markCompleted(boolean delivered) {
+        this.completedAt = System.currentTimeMillis();
+        this.delivered = delivered;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    long captureToSend() {
+        return sentAt - capturedAt;
+    }
+
+    long channel() {
+        return receivedAt - sentAt;
+    }
+
+    long proxyQueue() {
+        return (dispatchedAt > 0 ? dispatchedAt : completedAt) - receivedAt;
+    }
+
+    long http() {
+        return dispatchedAt > 0 ? completedAt - dispatchedAt : 0;
+    }
+
+    long total() {
+        return completedAt - capturedAt;
+    }
+
+    String describe() {
+        return String.format("trace=%s total=%dms [capture→send %dms, spigot→proxy %dms, proxy→dispatch %dms, http %dms] attempts=%d delivered=%s",
+                id, total(), captureToSend(), channel(), proxyQueue(), http(), attempts, delivered);
+    }
+}
@@ -0,0 +1,109 @@
+package com.flamewall.proxybridge.trace;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+public class EventTracer {
+    public enum Hop {
+        CAPTURE_TO_SEND("capture→send", EventTrace::captureToSend),
+        CHANNEL("spigot→proxy", EventTrace::channel),
+        PROXY_QUEUE("proxy→dispatch", EventTrace::proxyQueue),
+        HTTP("dispatch→complete", EventTrace::http),
+        TOTAL("end-to-end", EventTrace::total);
+
+        private final String label;
+        private final ToLongFunction<EventTrace> duration;
+
+        Hop(String label, ToLongFunction<EventTrace> duration) {
+            this.label = label;
+            this.duration = duration;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final Logger logger;
+    private final long slowThresholdMillis;
+    private final int slowLogSize;
+    private final Map<Hop, LatencyHistogram> histograms = new EnumMap<>(Hop.class);
+    private final PriorityQueue<EventTrace> slowest = new PriorityQueue<>((a, b) -> Long.compare(a.total(), b.total()));
+    private long slowCount;
+
+    public EventTracer(Logger logger, long slowThresholdMillis, int slowLogSize) {
+        this.logger = logger;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.slowLogSize = Math.max(0, slowLogSize);
+        for (Hop hop : Hop.values()) {
+            histograms.put(hop, new LatencyHistogram());
+        }
+    }
+
+    public EventTrace start(JSONObject payload, long receivedAt) {
+        Object raw = payload.remove("trace");
+        if (!(raw instanceof JSONObject)) {
+            return null;
+        }
+        JSONObject trace = (JSONObject) raw;
+        long capturedAt = trace.optLong("capturedAt", receivedAt);
+        return new EventTrace(trace.optString("id", "?"), capturedAt, trace.optLong("sentAt", capturedAt), receivedAt);
+    }
+
+    public void complete(EventTrace trace, boolean delivered) {
+        if (trace == null) {
+            return;
+        }
+        trace.markCompleted(delivered);
+        for (Hop hop : Hop.values()) {
+            histograms.get(hop).record(hop.duration.applyAsLong(trace));
+        }
+        if (slowLogSize > 0 && trace.total() >= slowThresholdMillis) {
+            synchronized (slowest) {
+                slowCount++;
+                slowest.add(trace);
+                if (slowest.size() > slowLogSize) {
+                    slowest.poll();
+                }
+            }
+        }
+    }
+
+    public LatencyHistogram getHistogram(Hop hop) {
+        return histograms.get(hop);
+    }
+
+    public void logAndReset() {
+        for (Hop hop : Hop.values()) {
+            LatencyHistogram.Snapshot snapshot = histograms.get(hop).snapshotAndReset();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            logger.info("⏱️ [Trace] {} n={} mean={}ms p50={}ms p95={}ms p99={}ms max={}ms",
+                    hop.getLabel(), snapshot.getCount(), String.format("%.1f", snapshot.getMeanMillis()),
+                    snapshot.percentile(0.50), snapshot.percentile(0.95), snapshot.percentile(0.99), snapshot.getMaxMillis());
+        }
+        EventTrace[] worst;
+        long slow;
+        synchronized (slowest) {
+            worst = slowest.toArray(new EventTrace[0]);
+            slow = slowCount;
+            slowest.clear();
+            slowCount = 0;
+        }
+        if (worst.length == 0) {
+            return;
+        }
+        Arrays.sort(worst, (a, b) -> Long.compare(b.total(), a.total()));
+        logger.warn("🐢 [Trace] {} event batches took longer than {} ms, slowest {}:", slow, slowThresholdMillis, worst.length);
+        for (EventTrace trace : worst) {
+            logger.warn("🐢 [Trace] {}", trace.describe());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.flamewall.proxybridge.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    private static final int BUCKETS = 20;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMillis = new AtomicLong();
+    private volatile long maxMillis;
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sumMillis.addAndGet(value);
+        if (value > maxMillis) {
+            synchronized (this) {
+                maxMillis = Math.max(maxMillis, value);
+            }
+        }
+    }
+
+    public synchronized Snapshot snapshotAndReset() {
+        long[] bucketCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = counts.getAndSet(i, 0);
+        }
+        Snapshot snapshot = new Snapshot(bucketCounts, count.getAndSet(0), sumMillis.getAndSet(0), maxMillis);
+        maxMillis = 0;
+        return snapshot;
+    }
+
+    private static int bucketOf(long millis) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] bucketCounts;
+        private final long count;
+        private final long sumMillis;
+        private final long maxMillis;
+
+        private Snapshot(long[] bucketCounts, long count, long sumMillis, long maxMillis) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sumMillis = sumMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : (double) sumMillis / count;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long percentile(double fraction) {
+            long total = 0;
+            for (long bucketCount : bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxMillis);
+                }
+            }
+            return maxMillis;
+        }
+    }
+}
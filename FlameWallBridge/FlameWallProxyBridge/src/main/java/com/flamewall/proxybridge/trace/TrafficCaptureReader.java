@@ -0,0 +1,149 @@
+package com.flamewall.proxybridge.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TrafficCaptureReader implements Closeable {
+    private final Iterator<Path> files;
+    private DataInputStream in;
+    private long timestampMicros;
+    private long truncatedFiles;
+
+    public TrafficCaptureReader(List<Path> files) {
+        this.files = new ArrayList<>(files).iterator();
+    }
+
+    public static List<Path> listCaptures(Path fileOrDirectory) throws IOException {
+        if (!Files.isDirectory(fileOrDirectory)) {
+            return List.of(fileOrDirectory);
+        }
+        try (Stream<Path> listing = Files.list(fileOrDirectory)) {
+            return listing.filter(path -> path.getFileName().toString().endsWith(TrafficRecorder.FILE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public Entry next() throws IOException {
+        while (true) {
+            if (in == null && !openNext()) {
+                return null;
+            }
+            int kind = in.read();
+            if (kind < 0) {
+                closeCurrent();
+                continue;
+            }
+            try {
+                timestampMicros += readVarLong(in);
+                String name = in.readUTF();
+                byte[] payload = new byte[(int) readVarLong(in)];
+                in.readFully(payload);
+                return new Entry((byte) kind, timestampMicros, name, payload);
+            } catch (EOFException e) {
+                truncatedFiles++;
+                closeCurrent();
+            }
+        }
+    }
+
+    public long getTruncatedFiles() {
+        return truncatedFiles;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+    }
+
+    private boolean openNext() throws IOException {
+        while (files.hasNext()) {
+            Path file = files.next();
+            DataInputStream candidate = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+            try {
+                if (candidate.readInt() != TrafficRecorder.MAGIC || candidate.readUnsignedShort() != TrafficRecorder.VERSION) {
+                    throw new IOException(file + " is not a FlameWall traffic capture (version " + TrafficRecorder.VERSION + ")");
+                }
+                timestampMicros = TimeUnit.MILLISECONDS.toMicros(candidate.readLong());
+            } catch (EOFException e) {
+                candidate.close();
+                continue;
+            } catch (IOException e) {
+                candidate.close();
+                throw e;
+            }
+            in = candidate;
+            return true;
+        }
+        return false;
+    }
+
+    private void closeCurrent() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in traffic capture");
+    }
+
+    public static final class Entry {
+        private final byte kind;
+        private final long timestampMicros;
+        private final String name;
+        private final byte[] payload;
+
+        private Entry(byte kind, long timestampMicros, String name, byte[] payload) {
+            this.kind = kind;
+            this.timestampMicros = timestampMicros;
+            this.name = name;
+            this.payload = payload;
+        }
+
+        public boolean isPluginMessage() {
+            return kind == TrafficRecorder.KIND_PLUGIN_MESSAGE;
+        }
+
+        public boolean isSocketEvent() {
+            return kind == TrafficRecorder.KIND_SOCKET_EVENT;
+        }
+
+        public long getTimestampMicros() {
+            return timestampMicros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public String getPayloadAsString() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.flamewall.proxybridge.trace;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TrafficRecorder {
+    // File: [magic "FWCP"][version u16][start epoch millis], then records:
+    // [kind u8][micros since previous record, varint][name UTF][payload length, varint][payload]
+    public static final int MAGIC = 0x46574350;
+    public static final int VERSION = 1;
+    public static final byte KIND_PLUGIN_MESSAGE = 1;
+    public static final byte KIND_SOCKET_EVENT = 2;
+    public static final String FILE_SUFFIX = ".fwcap";
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final Path directory;
+    private final Logger logger;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private DataOutputStream out;
+    private long lastRecordNanos;
+    private int fileSequence;
+
+    public TrafficRecorder(Path directory, Logger logger, long maxFileBytes, int maxFiles) throws IOException {
+        this.directory = directory;
+        this.logger = logger;
+        this.maxFileBytes = Math.max(64 * 1024, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        Files.createDirectories(directory);
+        this.writerThread = new Thread(this::writeLoop, "FlameWall-TrafficCapture");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("🎥 [Capture] Recording bridge traffic to {} (rotating at {} MB, keeping {} files).",
+                directory, this.maxFileBytes / (1024 * 1024), this.maxFiles);
+    }
+
+    public void recordPluginMessage(String source, byte[] data) {
+        offer(new Record(KIND_PLUGIN_MESSAGE, System.nanoTime(), source, data));
+    }
+
+    public void recordSocketEvent(String event, Object[] args) {
+        JSONArray encoded = new JSONArray();
+        for (Object arg : args) {
+            if (arg == null) {
+                encoded.put(JSONObject.NULL);
+            } else if (arg instanceof JSONObject || arg instanceof JSONArray || arg instanceof String
+                    || arg instanceof Number || arg instanceof Boolean) {
+                encoded.put(arg);
+            } else {
+                encoded.put(String.valueOf(arg));
+            }
+        }
+        offer(new Record(KIND_SOCKET_EVENT, System.nanoTime(), event, encoded.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("🎥 [Capture] Stopped recording: {} records captured, {} dropped.", recordedCount.get(), droppedCount.get());
+    }
+
+    private void offer(Record record) {
+        if (!running || !queue.offer(record)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (running || !queue.isEmpty()) {
+                Record record = queue.poll(1, TimeUnit.SECONDS);
+                if (record == null) {
+                    if (out != null) {
+                        out.flush();
+                    }
+                    continue;
+                }
+                write(record);
+            }
+        } catch (IOException e) {
+            running = false;
+            logger.error("❌ [Capture] Failed to write traffic capture, recording stopped.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            droppedCount.addAndGet(queue.size());
+            queue.clear();
+            closeFile();
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        if (out == null || out.size() >= maxFileBytes) {
+            rotate();
+        }
+        out.writeByte(record.kind);
+        writeVarLong(out, Math.max(0, TimeUnit.NANOSECONDS.toMicros(record.nanos - lastRecordNanos)));
+        lastRecordNanos = Math.max(lastRecordNanos, record.nanos);
+        out.writeUTF(record.name);
+        writeVarLong(out, record.payload.length);
+        out.write(record.payload);
+        recordedCount.incrementAndGet();
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path file = directory.resolve(String.format("capture-%s-%03d%s", stamp, fileSequence++ % 1000, FILE_SUFFIX));
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        lastRecordNanos = System.nanoTime();
+        pruneOldFiles();
+    }
+
+    private void pruneOldFiles() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("⚠️ [Capture] Failed to close capture file: {}", e.getMessage());
+        }
+        out = null;
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static final class Record {
+        private final byte kind;
+        private final long nanos;
+        private final String name;
+        private final byte[] payload;
+
+        private Record(byte kind, long nanos, String name, byte[] payload) {
+            this.kind = kind;
+            this.nanos = nanos;
+            this.name = name != null ? name : "";
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.flamewall.proxybridge.exec;
+
+import org.slf4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadExecutor implements BlockingExecutor {
+    private final Logger logger;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("FlameWall-Virtual-", 0).factory());
+    private final Map<BlockingWork, Semaphore> permits = new EnumMap<>(BlockingWork.class);
+    private final Map<BlockingWork, Integer> limits = new EnumMap<>(BlockingWork.class);
+    private final Map<BlockingWork, Mailbox> mailboxes = new EnumMap<>(BlockingWork.class);
+
+    public VirtualThreadExecutor(Map<BlockingWork, Integer> permits, Logger logger) {
+        this.logger = logger;
+        for (BlockingWork kind : BlockingWork.values()) {
+            int limit = Math.max(1, permits.getOrDefault(kind, 1));
+            limits.put(kind, limit);
+            if (limit == 1) {
+                mailboxes.put(kind, new Mailbox(kind));
+            } else {
+                this.permits.put(kind, new Semaphore(limit, true));
+            }
+        }
+        logger.info("🧵 [Exec] Running blocking work on virtual threads (permits {}).", limits);
+    }
+
+    @Override
+    public void execute(BlockingWork kind, Runnable task) {
+        Mailbox mailbox = mailboxes.get(kind);
+        if (mailbox != null) {
+            mailbox.submit(task);
+            return;
+        }
+        Semaphore semaphore = permits.get(kind);
+        try {
+            executor.execute(() -> {
+                semaphore.acquireUninterruptibly();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("❌ [Exec] Unhandled error in {} task.", kind, e);
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    @Override
+    public int getActive(BlockingWork kind) {
+        Mailbox mailbox = mailboxes.get(kind);
+        if (mailbox != null) {
+            return mailbox.active ? 1 : 0;
+        }
+        return limits.get(kind) - permits.get(kind).availablePermits();
+    }
+
+    @Override
+    public int getWaiting(BlockingWork kind) {
+        Mailbox mailbox = mailboxes.get(kind);
+        if (mailbox != null) {
+            return mailbox.waiting.get();
+        }
+        return permits.get(kind).getQueueLength();
+    }
+
+    @Override
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("⚠️ [Exec] Virtual thread tasks still running after {} ms, interrupting them.", timeoutMillis);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Tasks of a single-permit kind run one after another on one virtual thread, in submission order.
+    private final class Mailbox {
+        private final BlockingWork kind;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean active;
+
+        private Mailbox(BlockingWork kind) {
+            this.kind = kind;
+        }
+
+        private void submit(Runnable task) {
+            tasks.add(task);
+            waiting.incrementAndGet();
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                waiting.decrementAndGet();
+                active = true;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("❌ [Exec] Unhandled error in {} task.", kind, e);
+                } finally {
+                    active = false;
+                }
+            }
+            draining.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.flamewall.spigothelper;
+
+import com.flamewall.spigothelper.api.FlameWallEventService;
+import com.flamewall.spigothelper.util.TargetScanner;
+import org.bukkit.Bukkit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventSubmissionService implements FlameWallEventService, Runnable {
+    private final FlameWallSpigotHelper plugin;
+    private final GameEventListener listener;
+    private final int capacity;
+    private final int maxPerTick;
+    private final Queue<Submission> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public EventSubmissionService(FlameWallSpigotHelper plugin, GameEventListener listener, int capacity, int maxPerTick) {
+        this.plugin = plugin;
+        this.listener = listener;
+        this.capacity = Math.max(1, capacity);
+        this.maxPerTick = Math.max(1, maxPerTick);
+    }
+
+    @Override
+    public boolean submit(UUID playerUuid, String eventType, String target, int count, Map<String, ?> attributes) {
+        if (playerUuid == null || eventType == null || eventType.isEmpty() || target == null || count <= 0 || plugin.isShuttingDown()) {
+            return false;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        String type = eventType.startsWith("GAME_EVENT:") ? eventType : "GAME_EVENT:" + eventType;
+        queue.offer(new Submission(playerUuid, type + ":" + target, count,
+                attributes == null || attributes.isEmpty() ? null : new HashMap<>(attributes)));
+        return true;
+    }
+
+    @Override
+    public void registerTargets(String pluginName, Map<String, ? extends Collection<String>> targetsByCategory) {
+        JSONObject targets = new JSONObject();
+        targetsByCategory.forEach((category, keys) -> targets.put(category, new JSONArray(keys)));
+        JSONObject payload = new JSONObject();
+        payload.put("pluginName", pluginName);
+        payload.put("targets", targets);
+        TargetScanner.registerCustomTargets(payload);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (PlayerStateListener.haveInitialTargetsBeenSent()) {
+                plugin.forwardMessageToProxy(null, "RegisterTargets", payload.toString());
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        Submission submission;
+        int drained = 0;
+        while (drained < maxPerTick && (submission = queue.poll()) != null) {
+            queued.decrementAndGet();
+            listener.queueSubmittedEvent(submission.playerUuid, submission.fullType, submission.count, submission.attributes);
+            drained++;
+        }
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static final class Submission {
+        private final UUID playerUuid;
+        private final String fullType;
+        private final int count;
+        private final Map<String, Object> attributes;
+
+        private Submission(UUID playerUuid, String fullType, int count, Map<String, Object> attributes) {
+            this.playerUuid = playerUuid;
+            this.fullType = fullType;
+            this.count = count;
+            this.attributes = attributes;
+        }
+    }
+}
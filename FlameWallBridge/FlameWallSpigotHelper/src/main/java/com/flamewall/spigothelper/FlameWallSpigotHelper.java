@@ -3,29 +3,105 @@ package com.flamewall.spigothelper;
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import com.flamewall.spigothelper.api.FlameWallEventService;
+import com.flamewall.spigothelper.util.SequenceAllocator;
+import com.flamewall.spigothelper.util.TickMonitor;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 import org.jetbrains.annotations.NotNull;
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 
 public class FlameWallSpigotHelper extends JavaPlugin implements PluginMessageListener {
+    private static final String OUTBOX_FILE = "pending-messages.dat";
+    private static final List<String> CAPABILITIES = List.of("commands", "command-bundles", "targets", "game-events", "rank-sync");
+
+    private final Deque<byte[]> outbox = new ArrayDeque<>();
+    private volatile boolean shuttingDown;
+    private String serverGroup;
+    private int outboxCapacity;
+    private SequenceAllocator sequenceAllocator;
+    private TickMonitor tickMonitor;
+    private PlayerStateListener playerStateListener;
+    private GameEventListener gameEventListener;
+    private EventSubmissionService eventService;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        this.serverGroup = getConfig().getString("server-group", "default");
+        this.outboxCapacity = getConfig().getInt("outbox-capacity", 1000);
+        this.sequenceAllocator = new SequenceAllocator(getDataFolder(), getLogger(),
+                getConfig().getString("server-id", ""), getConfig().getInt("sequence-block-size", 1000),
+                getConfig().getLong("sequence-retention-hours", 72));
         if (getServer().getPluginManager().getPlugin("PlaceholderAPI") == null) {
             getLogger().severe("!!! PlaceholderAPI не найден! Плагин не сможет синхронизировать ранги. !!!");
         }
-        getServer().getPluginManager().registerEvents(new PlayerStateListener(this), this);
-        getServer().getPluginManager().registerEvents(new GameEventListener(this), this);
+        this.playerStateListener = new PlayerStateListener(this);
+        getServer().getPluginManager().registerEvents(playerStateListener, this);
+        this.tickMonitor = new TickMonitor(getLogger(), getConfig().getConfigurationSection("capture"));
+        Bukkit.getScheduler().runTaskTimer(this, tickMonitor, 1L, 1L);
+        this.gameEventListener = new GameEventListener(this);
+        getServer().getPluginManager().registerEvents(gameEventListener, this);
+        long flushTicks = Math.max(1, getConfig().getLong("capture.aggregate-flush-seconds", 5)) * 20L;
+        Bukkit.getScheduler().runTaskTimer(this, gameEventListener::flushAggregates, flushTicks, flushTicks);
+        this.eventService = new EventSubmissionService(this, gameEventListener,
+                getConfig().getInt("api.queue-capacity", 10000), getConfig().getInt("api.max-per-tick", 500));
+        Bukkit.getScheduler().runTaskTimer(this, eventService, 1L, 1L);
+        getServer().getServicesManager().register(FlameWallEventService.class, eventService, this, ServicePriority.Normal);
         this.getServer().getMessenger().registerIncomingPluginChannel(this, "flamewall:main", this);
         this.getServer().getMessenger().registerOutgoingPluginChannel(this, "flamewall:main");
+        loadOutbox();
+        Player carrier = anyOnlinePlayer();
+        if (carrier != null) {
+            announceToProxy(carrier);
+        }
         getLogger().info("FlameWall Spigot Helper включен.");
     }
 
+    @Override
+    public void onDisable() {
+        shuttingDown = true;
+        if (eventService != null) {
+            eventService.run();
+        }
+        if (gameEventListener != null) {
+            gameEventListener.flushAggregates();
+        }
+        Player carrier = anyOnlinePlayer();
+        if (carrier != null) {
+            flushOutbox(carrier);
+        }
+        saveOutbox();
+        if (sequenceAllocator != null) {
+            sequenceAllocator.close();
+        }
+    }
+
+    public SequenceAllocator getSequenceAllocator() {
+        return sequenceAllocator;
+    }
+
+    public TickMonitor getTickMonitor() {
+        return tickMonitor;
+    }
+
+    public String getServerGroup() {
+        return serverGroup;
+    }
+
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
     @Override
     public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, @NotNull byte[] message) {
 
@@ -36,23 +112,130 @@ public class FlameWallSpigotHelper extends JavaPlugin implements PluginMessageLi
             if ("ExecuteCommand".equals(subChannel)) {
                 String commandToExecute = in.readUTF();
                 Bukkit.getScheduler().runTask(this, () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), commandToExecute));
+            } else if ("ExecuteCommandBundle".equals(subChannel)) {
+                int count = in.readInt();
+                int[] commandIds = new int[count];
+                String[] commands = new String[count];
+                for (int i = 0; i < count; i++) {
+                    commandIds[i] = in.readInt();
+                    commands[i] = in.readUTF();
+                }
+                Bukkit.getScheduler().runTask(this, () -> {
+                    for (int i = 0; i < count; i++) {
+                        try {
+                            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), commands[i]);
+                        } catch (Exception e) {
+                            getLogger().severe("Не удалось выполнить команду #" + commandIds[i] + ": " + e.getMessage());
+                        }
+                    }
+                });
+            } else if ("RequestTargetsFromProxy".equals(subChannel)) {
+                Bukkit.getScheduler().runTask(this, () -> playerStateListener.sendTargets(player));
             }
         } catch (Exception e) {
             getLogger().severe("Не удалось обработать сообщение от прокси-плагина: " + e.getMessage());
         }
     }
 
+    public void announceToProxy(Player carrier) {
+        JSONObject payload = new JSONObject();
+        payload.put("serverGroup", serverGroup);
+        payload.put("serverId", sequenceAllocator.getServerId());
+        payload.put("capabilities", new JSONArray(CAPABILITIES));
+        forwardMessageToProxy(carrier, "AnnounceServer", payload.toString());
+    }
+
     public void forwardMessageToProxy(Player player, String subChannel, String data) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(subChannel);
+        out.writeUTF(data);
+        forwardRawToProxy(player, out.toByteArray());
+    }
+
+    public void forwardRawToProxy(Player player, byte[] message) {
         if (player == null || !player.isOnline()) {
-            player = Bukkit.getOnlinePlayers().stream().findAny().orElse(null);
+            player = anyOnlinePlayer();
             if (player == null) {
-                getLogger().warning("Cannot forward message to proxy, no players online.");
+                bufferMessage(message);
                 return;
             }
         }
-        ByteArrayDataOutput out = ByteStreams.newDataOutput();
-        out.writeUTF(subChannel);
-        out.writeUTF(data);
-        player.sendPluginMessage(this, "flamewall:main", out.toByteArray());
+        player.sendPluginMessage(this, "flamewall:main", message);
+    }
+
+    private static Player anyOnlinePlayer() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            return player;
+        }
+        return null;
+    }
+
+    public void flushOutbox(Player carrier) {
+        byte[] message;
+        int sent = 0;
+        while (carrier.isOnline() && (message = pollOutbox()) != null) {
+            forwardRawToProxy(carrier, message);
+            sent++;
+        }
+        if (sent > 0) {
+            getLogger().info("Forwarded " + sent + " buffered messages to the proxy.");
+        }
+    }
+
+    private synchronized byte[] pollOutbox() {
+        return outbox.pollFirst();
+    }
+
+    private synchronized void bufferMessage(byte[] message) {
+        int capacity = outboxCapacity;
+        if (capacity <= 0) {
+            getLogger().warning("Cannot forward message to proxy, no players online.");
+            return;
+        }
+        while (outbox.size() >= capacity) {
+            outbox.pollFirst();
+            getLogger().warning("Outbox is full, dropping the oldest buffered message.");
+        }
+        outbox.addLast(message);
+    }
+
+    private synchronized void loadOutbox() {
+        File file = new File(getDataFolder(), OUTBOX_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] message = new byte[in.readInt()];
+                in.readFully(message);
+                outbox.addLast(message);
+            }
+            getLogger().info("Restored " + count + " buffered messages for the proxy.");
+        } catch (IOException e) {
+            getLogger().severe("Could not read " + OUTBOX_FILE + ": " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            getLogger().warning("Could not delete " + OUTBOX_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void saveOutbox() {
+        if (outbox.isEmpty()) {
+            return;
+        }
+        File file = new File(getDataFolder(), OUTBOX_FILE);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(outbox.size());
+            for (byte[] message : outbox) {
+                out.writeInt(message.length);
+                out.write(message);
+            }
+            getLogger().info("Saved " + outbox.size() + " unsent messages for the next start.");
+        } catch (IOException e) {
+            getLogger().severe("Could not save unsent messages to " + OUTBOX_FILE + ": " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
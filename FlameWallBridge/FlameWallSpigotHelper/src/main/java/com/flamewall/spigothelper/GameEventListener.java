@@ -1,10 +1,14 @@
 package com.flamewall.spigothelper;
 
+import com.flamewall.spigothelper.util.CaptureLevel;
+import com.flamewall.spigothelper.util.EventKeys;
+import com.flamewall.spigothelper.util.JsonEventWriter;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -15,159 +19,256 @@ import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.inventory.CraftItemEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
-import org.json.JSONObject;
-import org.json.JSONArray;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GameEventListener implements Listener {
+    private static final Material[] MATERIALS = Material.values();
 
     private final FlameWallSpigotHelper plugin;
+    private final Map<UUID, Map<String, Integer>> pendingCounts = new HashMap<>();
+    private final int[] inventoryCounts = new int[MATERIALS.length];
+    private final int[] inventoryOrder = new int[MATERIALS.length];
 
     public GameEventListener(FlameWallSpigotHelper plugin) {
         this.plugin = plugin;
     }
 
-    private void queueEvent(Player player, String eventType, String target) {
-        JSONObject batchPayload = new JSONObject();
-        String serverGroup = plugin.getConfig().getString("server-group", "default");
-        batchPayload.put("server_group", serverGroup);
-
-        batchPayload.put("playerUuid", player.getUniqueId().toString());
+    private void queueEvent(Player player, String fullType) {
+        if (plugin.isShuttingDown() || fullType == null) return;
+        CaptureLevel level = plugin.getTickMonitor().getLevel();
+        if (level == CaptureLevel.AGGREGATE) {
+            pendingCounts.computeIfAbsent(player.getUniqueId(), uuid -> new LinkedHashMap<>()).merge(fullType, 1, Integer::sum);
+            return;
+        }
+        long capturedAt = System.currentTimeMillis();
+        JsonEventWriter writer = beginBatch(player.getUniqueId(), level);
+        writer.beginObject().name("eventType").value(fullType).endObject();
+        finishBatch(writer, player, player, level, capturedAt);
+    }
 
-        JSONObject singleEvent = new JSONObject();
-        singleEvent.put("eventType", eventType + ":" + target);
+    public void queueSubmittedEvent(UUID playerUuid, String fullType, int count, Map<String, Object> attributes) {
+        CaptureLevel level = plugin.getTickMonitor().getLevel();
+        if (level == CaptureLevel.AGGREGATE) {
+            pendingCounts.computeIfAbsent(playerUuid, uuid -> new LinkedHashMap<>()).merge(fullType, count, Integer::sum);
+            return;
+        }
+        long capturedAt = System.currentTimeMillis();
+        Player player = Bukkit.getPlayer(playerUuid);
+        JsonEventWriter writer = beginBatch(playerUuid, level);
+        writer.beginObject().name("eventType").value(fullType);
+        if (count > 1) {
+            writer.name("count").value(count);
+        }
+        if (attributes != null) {
+            writer.name("attributes").value((Object) attributes);
+        }
+        writer.endObject();
+        finishBatch(writer, player, player, level, capturedAt);
+    }
 
-        JSONArray eventsArray = new JSONArray();
-        eventsArray.put(singleEvent);
+    public void flushAggregates() {
+        if (pendingCounts.isEmpty()) return;
+        long capturedAt = System.currentTimeMillis();
+        for (Map.Entry<UUID, Map<String, Integer>> entry : pendingCounts.entrySet()) {
+            JsonEventWriter writer = beginBatch(entry.getKey(), CaptureLevel.AGGREGATE);
+            for (Map.Entry<String, Integer> count : entry.getValue().entrySet()) {
+                writer.beginObject().name("eventType").value(count.getKey()).name("count").value(count.getValue().intValue()).endObject();
+            }
+            finishBatch(writer, Bukkit.getPlayer(entry.getKey()), null, CaptureLevel.AGGREGATE, capturedAt);
+        }
+        pendingCounts.clear();
+    }
 
-        batchPayload.put("events", eventsArray);
-        batchPayload.put("snapshot", createPlayerAndWorldSnapshot(player));
+    private JsonEventWriter beginBatch(UUID playerUuid, CaptureLevel level) {
+        JsonEventWriter writer = JsonEventWriter.acquire("GameEvent");
+        writer.beginObject()
+                .name("server_group").value(plugin.getServerGroup())
+                .name("playerUuid").value(playerUuid)
+                .name("server_id").value(plugin.getSequenceAllocator().getServerId())
+                .name("seq").value(plugin.getSequenceAllocator().next(playerUuid))
+                .name("capture_level").value(level.name())
+                .name("events").beginArray();
+        return writer;
+    }
 
-        plugin.forwardMessageToProxy(player, "GameEvent", batchPayload.toString());
+    private void finishBatch(JsonEventWriter writer, Player carrier, Player subject, CaptureLevel level, long capturedAt) {
+        writer.endArray().name("snapshot");
+        writeSnapshot(writer, subject, level);
+        writer.name("trace").beginObject()
+                .name("id").hexValue(ThreadLocalRandom.current().nextLong())
+                .name("capturedAt").value(capturedAt)
+                .name("sentAt").value(System.currentTimeMillis())
+                .endObject();
+        writer.endObject();
+        plugin.forwardRawToProxy(carrier, writer.finish());
     }
-    private JSONObject createPlayerAndWorldSnapshot(Player player) {
-        JSONObject snapshot = new JSONObject();
-        snapshot.put("player", createPlayerState(player));
-        snapshot.put("world", createWorldState(player.getWorld()));
-        return snapshot;
+
+    private void writeSnapshot(JsonEventWriter writer, Player player, CaptureLevel level) {
+        writer.beginObject();
+        if (player != null && level == CaptureLevel.FULL) {
+            writer.name("player");
+            writePlayerState(writer, player);
+            writer.name("world");
+            writeWorldState(writer, player.getWorld());
+        } else if (player != null && level == CaptureLevel.LIGHT) {
+            writer.name("player").beginObject().name("location");
+            writeLocation(writer, player.getLocation());
+            writer.endObject();
+            writer.name("world").beginObject().name("name").value(player.getWorld().getName()).endObject();
+        }
+        writer.endObject();
     }
+
     @EventHandler
     public void onEntityDeath(EntityDeathEvent event) {
         Player killer = event.getEntity().getKiller();
         if (killer == null) return;
-        queueEvent(killer, "GAME_EVENT:PLAYER_KILL_ENTITY", "vanilla:kill:" + event.getEntity().getType().name());
+        queueEvent(killer, EventKeys.entityKill(event.getEntity().getType()));
     }
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
-        queueEvent(event.getPlayer(), "GAME_EVENT:BLOCK_BREAK", "vanilla:break:" + event.getBlock().getType().name());
+        queueEvent(event.getPlayer(), EventKeys.blockBreak(event.getBlock().getType()));
     }
 
     @EventHandler
     public void onItemCraft(CraftItemEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
         Player player = (Player) event.getWhoClicked();
-        queueEvent(player, "GAME_EVENT:ITEM_CRAFT", "vanilla:item:" + event.getRecipe().getResult().getType().name());
+        queueEvent(player, EventKeys.itemCraft(event.getRecipe().getResult().getType()));
     }
 
     @EventHandler
     public void onItemConsume(PlayerItemConsumeEvent event) {
-        queueEvent(event.getPlayer(), "GAME_EVENT:ITEM_CONSUME", "vanilla:item:" + event.getItem().getType().name());
-    }
-
-    public static JSONObject createPlayerState(Player p) {
-        if (p == null) return null;
-        JSONObject state = new JSONObject();
-        state.put("location", new JSONObject().put("x", p.getLocation().getX()).put("y", p.getLocation().getY()).put("z", p.getLocation().getZ()));
-        state.put("health", p.getHealth());
-        state.put("level", p.getLevel());
-        state.put("main_hand", createItemState(p.getInventory().getItemInMainHand()));
-        JSONObject armor = new JSONObject();
-        armor.put("helmet", createItemState(p.getInventory().getHelmet()));
-        armor.put("chestplate", createItemState(p.getInventory().getChestplate()));
-        armor.put("leggings", createItemState(p.getInventory().getLeggings()));
-        armor.put("boots", createItemState(p.getInventory().getBoots()));
-        state.put("armor", armor);
-        Map<String, Integer> itemCounts = new HashMap<>();
-        for (ItemStack item : p.getInventory().getContents()) {
+        queueEvent(event.getPlayer(), EventKeys.itemConsume(event.getItem().getType()));
+    }
+
+    private void writePlayerState(JsonEventWriter writer, Player p) {
+        PlayerInventory inventory = p.getInventory();
+        writer.beginObject().name("location");
+        writeLocation(writer, p.getLocation());
+        writer.name("health").value(p.getHealth());
+        writer.name("level").value(p.getLevel());
+        writer.name("main_hand");
+        writeItemState(writer, inventory.getItemInMainHand());
+        writer.name("armor").beginObject().name("helmet");
+        writeItemState(writer, inventory.getHelmet());
+        writer.name("chestplate");
+        writeItemState(writer, inventory.getChestplate());
+        writer.name("leggings");
+        writeItemState(writer, inventory.getLeggings());
+        writer.name("boots");
+        writeItemState(writer, inventory.getBoots());
+        writer.endObject();
+        writer.name("inventory_summary").beginObject();
+        int distinct = 0;
+        for (ItemStack item : inventory.getContents()) {
             if (item != null && item.getType() != Material.AIR) {
-                String itemName = item.getType().name();
-                itemCounts.put(itemName, itemCounts.getOrDefault(itemName, 0) + item.getAmount());
+                int ordinal = item.getType().ordinal();
+                if (inventoryCounts[ordinal] == 0) {
+                    inventoryOrder[distinct++] = ordinal;
+                }
+                inventoryCounts[ordinal] += item.getAmount();
             }
         }
-        state.put("inventory_summary", new JSONObject(itemCounts));
+        for (int i = 0; i < distinct; i++) {
+            int ordinal = inventoryOrder[i];
+            writer.name(MATERIALS[ordinal].name()).value(inventoryCounts[ordinal]);
+            inventoryCounts[ordinal] = 0;
+        }
+        writer.endObject();
+        writer.endObject();
+    }
 
-        return state;
+    private static void writeLocation(JsonEventWriter writer, Location location) {
+        writer.beginObject()
+                .name("x").value(location.getX())
+                .name("y").value(location.getY())
+                .name("z").value(location.getZ())
+                .endObject();
     }
 
-    public static JSONObject createWorldState(World w) {
-        if (w == null) return null;
-        JSONObject state = new JSONObject();
-        state.put("name", w.getName());
-        state.put("time", w.getTime());
-        state.put("weather", w.isThundering() ? "THUNDER" : (w.hasStorm() ? "RAIN" : "CLEAR"));
-        return state;
+    public static void writeWorldState(JsonEventWriter writer, World w) {
+        if (w == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject()
+                .name("name").value(w.getName())
+                .name("time").value(w.getTime())
+                .name("weather").value(w.isThundering() ? "THUNDER" : (w.hasStorm() ? "RAIN" : "CLEAR"))
+                .endObject();
     }
 
-    public static JSONObject createItemState(ItemStack item) {
+    public static void writeItemState(JsonEventWriter writer, ItemStack item) {
         if (item == null || item.getType() == Material.AIR) {
-            return null;
+            writer.nullValue();
+            return;
         }
-        JSONObject state = new JSONObject();
-        state.put("type", item.getType().name());
-        state.put("amount", item.getAmount());
+        writer.beginObject();
+        writer.name("type").value(item.getType().name());
+        writer.name("amount").value(item.getAmount());
 
         if (item.hasItemMeta()) {
             ItemMeta meta = item.getItemMeta();
             if (meta.hasDisplayName()) {
-                state.put("name", ChatColor.stripColor(meta.getDisplayName()));
+                writer.name("name").value(ChatColor.stripColor(meta.getDisplayName()));
             }
             if (meta.hasEnchants()) {
-                JSONObject enchants = new JSONObject();
+                writer.name("enchantments").beginObject();
                 for (Map.Entry<Enchantment, Integer> entry : meta.getEnchants().entrySet()) {
-                    enchants.put(entry.getKey().getKey().getKey().toUpperCase(), entry.getValue());
+                    writer.name(entry.getKey().getKey().getKey().toUpperCase()).value(entry.getValue().intValue());
                 }
-                state.put("enchantments", enchants);
+                writer.endObject();
             }
 
             PersistentDataContainer container = meta.getPersistentDataContainer();
             if (!container.isEmpty()) {
-                state.put("nbt", readNbt(container));
+                writer.name("nbt");
+                writeNbt(writer, container);
             }
         }
-        return state;
+        writer.endObject();
     }
 
-    public static JSONObject createEntityState(Entity e) {
-        if (e == null) return null;
-        JSONObject state = new JSONObject();
-        state.put("type", e.getType().name());
+    public static void writeEntityState(JsonEventWriter writer, Entity e) {
+        if (e == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject();
+        writer.name("type").value(e.getType().name());
         if (e.getCustomName() != null) {
-            state.put("name", ChatColor.stripColor(e.getCustomName()));
+            writer.name("name").value(ChatColor.stripColor(e.getCustomName()));
         }
 
         PersistentDataContainer container = e.getPersistentDataContainer();
         if (!container.isEmpty()) {
-            state.put("nbt", readNbt(container));
+            writer.name("nbt");
+            writeNbt(writer, container);
         }
-        return state;
+        writer.endObject();
     }
-    private static JSONObject readNbt(PersistentDataContainer container) {
-        JSONObject nbtData = new JSONObject();
+    private static void writeNbt(JsonEventWriter writer, PersistentDataContainer container) {
+        writer.beginObject();
         for (NamespacedKey key : container.getKeys()) {
             if (container.has(key, PersistentDataType.STRING)) {
-                nbtData.put(key.getKey(), container.get(key, PersistentDataType.STRING));
+                writer.name(key.getKey()).value(container.get(key, PersistentDataType.STRING));
             } else if (container.has(key, PersistentDataType.INTEGER)) {
-                nbtData.put(key.getKey(), container.get(key, PersistentDataType.INTEGER));
+                writer.name(key.getKey()).value(container.get(key, PersistentDataType.INTEGER).intValue());
             } else if (container.has(key, PersistentDataType.DOUBLE)) {
-                nbtData.put(key.getKey(), container.get(key, PersistentDataType.DOUBLE));
+                writer.name(key.getKey()).value(container.get(key, PersistentDataType.DOUBLE).doubleValue());
             }
         }
-        return nbtData;
+        writer.endObject();
     }
 }
\ No newline at end of file
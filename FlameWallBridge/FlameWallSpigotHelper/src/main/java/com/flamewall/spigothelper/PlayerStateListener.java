@@ -15,7 +15,7 @@ import java.util.List;
 public class PlayerStateListener implements Listener {
     private final FlameWallSpigotHelper plugin;
 
-    private static boolean initialTargetsSent = false;
+    private static volatile boolean initialTargetsSent = false;
     public PlayerStateListener(FlameWallSpigotHelper plugin) {
         this.plugin = plugin;
     }
@@ -24,17 +24,23 @@ public class PlayerStateListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         Bukkit.getScheduler().runTaskLater(this.plugin, () -> {
+            plugin.announceToProxy(player);
+            plugin.flushOutbox(player);
 
             if (!initialTargetsSent) {
                 plugin.getLogger().info("First player joined. Sending achievement targets to backend...");
-                sendInitialTargets(player);
-                initialTargetsSent = true;
+                sendTargets(player);
             }
             String rank = PlaceholderAPI.setPlaceholders(player, "%luckperms_primary_group_name%");
             sendRankUpdate(player, rank);
         }, 40L);
     }
-    private void sendInitialTargets(Player player) {
+    public static boolean haveInitialTargetsBeenSent() {
+        return initialTargetsSent;
+    }
+
+    void sendTargets(Player player) {
+        initialTargetsSent = true;
 
         List<JSONObject> payloads = TargetScanner.scanInChunks();
 
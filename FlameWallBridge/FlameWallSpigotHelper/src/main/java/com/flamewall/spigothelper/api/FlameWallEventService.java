@@ -0,0 +1,29 @@
+package com.flamewall.spigothelper.api;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Lets other plugins feed achievement events into FlameWall. Obtain it with
+ * {@code Bukkit.getServicesManager().load(FlameWallEventService.class)}.
+ * All methods are thread-safe and never block.
+ */
+public interface FlameWallEventService {
+
+    /**
+     * Queues an event such as {@code submit(uuid, "DUNGEON_CLEAR", "dungeons:clear:crypt", 1, null)}.
+     * Returns false if the submission queue is full and the event was dropped.
+     */
+    boolean submit(UUID playerUuid, String eventType, String target, int count, Map<String, ?> attributes);
+
+    default boolean submit(UUID playerUuid, String eventType, String target) {
+        return submit(playerUuid, eventType, target, 1, null);
+    }
+
+    /**
+     * Registers achievable targets for the website editor, grouped by category,
+     * e.g. {@code registerTargets("Dungeons", Map.of("Clears", List.of("dungeons:clear:crypt")))}.
+     */
+    void registerTargets(String pluginName, Map<String, ? extends Collection<String>> targetsByCategory);
+}
@@ -0,0 +1,16 @@
+package com.flamewall.spigothelper.util;
+
+public enum CaptureLevel {
+    FULL,
+    LIGHT,
+    NO_SNAPSHOT,
+    AGGREGATE;
+
+    public CaptureLevel worse() {
+        return this == AGGREGATE ? AGGREGATE : values()[ordinal() + 1];
+    }
+
+    public CaptureLevel better() {
+        return this == FULL ? FULL : values()[ordinal() - 1];
+    }
+}
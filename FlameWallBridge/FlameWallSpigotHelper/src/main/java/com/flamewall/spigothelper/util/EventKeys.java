@@ -0,0 +1,44 @@
+package com.flamewall.spigothelper.util;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public final class EventKeys {
+    private static final Map<Material, String> BLOCK_BREAK = new EnumMap<>(Material.class);
+    private static final Map<Material, String> ITEM_CRAFT = new EnumMap<>(Material.class);
+    private static final Map<Material, String> ITEM_CONSUME = new EnumMap<>(Material.class);
+    private static final Map<EntityType, String> ENTITY_KILL = new EnumMap<>(EntityType.class);
+
+    static {
+        for (Material material : Material.values()) {
+            BLOCK_BREAK.put(material, "GAME_EVENT:BLOCK_BREAK:vanilla:break:" + material.name());
+            ITEM_CRAFT.put(material, "GAME_EVENT:ITEM_CRAFT:vanilla:item:" + material.name());
+            ITEM_CONSUME.put(material, "GAME_EVENT:ITEM_CONSUME:vanilla:item:" + material.name());
+        }
+        for (EntityType type : EntityType.values()) {
+            ENTITY_KILL.put(type, "GAME_EVENT:PLAYER_KILL_ENTITY:vanilla:kill:" + type.name());
+        }
+    }
+
+    private EventKeys() {
+    }
+
+    public static String blockBreak(Material material) {
+        return BLOCK_BREAK.get(material);
+    }
+
+    public static String itemCraft(Material material) {
+        return ITEM_CRAFT.get(material);
+    }
+
+    public static String itemConsume(Material material) {
+        return ITEM_CONSUME.get(material);
+    }
+
+    public static String entityKill(EntityType type) {
+        return ENTITY_KILL.get(type);
+    }
+}
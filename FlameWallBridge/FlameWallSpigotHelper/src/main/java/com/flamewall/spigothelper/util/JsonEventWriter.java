@@ -0,0 +1,308 @@
+package com.flamewall.spigothelper.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a plugin message ({@code writeUTF(subChannel)} + {@code writeUTF(json)}) straight into a
+ * reusable per-thread buffer, so the capture path does not build an object tree per event.
+ */
+public final class JsonEventWriter {
+    private static final int MAX_UTF_LENGTH = 65535;
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_DEPTH = 63;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final ThreadLocal<JsonEventWriter> POOL = ThreadLocal.withInitial(JsonEventWriter::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private final byte[] digits = new byte[20];
+    private int position;
+    private int bodyStart;
+    private int depth;
+    private long hasElements;
+    private boolean afterName;
+
+    private JsonEventWriter() {
+    }
+
+    public static JsonEventWriter acquire(String subChannel) {
+        JsonEventWriter writer = POOL.get();
+        writer.reset();
+        int lengthAt = writer.position;
+        writer.position += 2;
+        for (int i = 0; i < subChannel.length(); i++) {
+            writer.writeChar(subChannel.charAt(i));
+        }
+        writer.patchLength(lengthAt, writer.position - lengthAt - 2);
+        writer.position += 2;
+        writer.bodyStart = writer.position;
+        return writer;
+    }
+
+    public byte[] finish() {
+        int bodyLength = position - bodyStart;
+        if (bodyLength > MAX_UTF_LENGTH) {
+            throw new IllegalStateException("Plugin message body is " + bodyLength + " bytes, the limit is " + MAX_UTF_LENGTH);
+        }
+        patchLength(bodyStart - 2, bodyLength);
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public JsonEventWriter beginObject() {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonEventWriter endObject() {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonEventWriter beginArray() {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonEventWriter endArray() {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    public JsonEventWriter name(String name) {
+        beforeValue();
+        writeQuoted(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonEventWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeQuoted(value);
+        return this;
+    }
+
+    public JsonEventWriter value(long value) {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonEventWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        beforeValue();
+        if (Math.abs(value) >= 1e15) {
+            writeAscii(Double.toString(value));
+            return this;
+        }
+        long scaled = Math.round(value * 1000);
+        if (scaled < 0) {
+            writeByte('-');
+            scaled = -scaled;
+        }
+        writeLong(scaled / 1000);
+        int fraction = (int) (scaled % 1000);
+        if (fraction != 0) {
+            writeByte('.');
+            writeByte('0' + fraction / 100);
+            if (fraction % 100 != 0) {
+                writeByte('0' + fraction / 10 % 10);
+                if (fraction % 10 != 0) {
+                    writeByte('0' + fraction % 10);
+                }
+            }
+        }
+        return this;
+    }
+
+    public JsonEventWriter value(boolean value) {
+        beforeValue();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonEventWriter value(UUID value) {
+        beforeValue();
+        writeByte('"');
+        writeHex(value.getMostSignificantBits() >>> 32, 8);
+        writeByte('-');
+        writeHex(value.getMostSignificantBits() >>> 16, 4);
+        writeByte('-');
+        writeHex(value.getMostSignificantBits(), 4);
+        writeByte('-');
+        writeHex(value.getLeastSignificantBits() >>> 48, 4);
+        writeByte('-');
+        writeHex(value.getLeastSignificantBits(), 12);
+        writeByte('"');
+        return this;
+    }
+
+    public JsonEventWriter hexValue(long value) {
+        beforeValue();
+        writeByte('"');
+        writeHex(value, 16);
+        writeByte('"');
+        return this;
+    }
+
+    public JsonEventWriter nullValue() {
+        beforeValue();
+        writeAscii("null");
+        return this;
+    }
+
+    public JsonEventWriter value(Object value) {
+        if (value == null) {
+            return nullValue();
+        } else if (value instanceof String) {
+            return value((String) value);
+        } else if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return value(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return value(((Number) value).longValue());
+        } else if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey())).value(entry.getValue());
+            }
+            return endObject();
+        } else if (value instanceof Iterable) {
+            beginArray();
+            for (Object element : (Iterable<?>) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    private void reset() {
+        position = 0;
+        bodyStart = 0;
+        depth = 0;
+        hasElements = 0;
+        afterName = false;
+    }
+
+    private void push() {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting is deeper than " + MAX_DEPTH);
+        }
+        depth++;
+        hasElements &= ~(1L << depth);
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if ((hasElements & bit) != 0) {
+            writeByte(',');
+        }
+        hasElements |= bit;
+    }
+
+    private void writeQuoted(String value) {
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': writeByte('\\'); writeByte('"'); break;
+                case '\\': writeByte('\\'); writeByte('\\'); break;
+                case '\n': writeByte('\\'); writeByte('n'); break;
+                case '\r': writeByte('\\'); writeByte('r'); break;
+                case '\t': writeByte('\\'); writeByte('t'); break;
+                default:
+                    if (c < 0x20) {
+                        writeAscii("\\u00");
+                        writeHex(c, 2);
+                    } else {
+                        writeChar(c);
+                    }
+            }
+        }
+        writeByte('"');
+    }
+
+    // Modified UTF-8, as DataInput.readUTF on the proxy expects.
+    private void writeChar(char c) {
+        if (c >= 0x01 && c <= 0x7F) {
+            writeByte(c);
+        } else if (c > 0x7FF) {
+            ensureCapacity(3);
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            ensureCapacity(2);
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(count);
+        while (count > 0) {
+            buffer[position++] = digits[--count];
+        }
+    }
+
+    private void writeHex(long value, int length) {
+        ensureCapacity(length);
+        for (int shift = (length - 1) * 4; shift >= 0; shift -= 4) {
+            buffer[position++] = HEX[(int) (value >>> shift) & 0xF];
+        }
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void patchLength(int at, int length) {
+        buffer[at] = (byte) (length >>> 8);
+        buffer[at + 1] = (byte) length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.flamewall.spigothelper.util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+public class SequenceAllocator {
+    private static final int FILE_VERSION = 2;
+    private static final int CURRENT = 0;
+    private static final int RESERVED = 1;
+    private static final int DURABLE = 2;
+    private static final int LAST_USED = 3;
+
+    private final File storeFile;
+    private final Logger logger;
+    private final int blockSize;
+    private final long retentionMillis;
+    private final Map<UUID, long[]> sequences = new HashMap<>();
+    private final Object saveLock = new Object();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FlameWall-Sequences");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private String serverId;
+
+    public SequenceAllocator(File dataFolder, Logger logger, String configuredServerId, int blockSize, long retentionHours) {
+        this.storeFile = new File(dataFolder, "sequences.dat");
+        this.logger = logger;
+        this.blockSize = Math.max(1, blockSize);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(Math.max(1, retentionHours));
+        load();
+        if (configuredServerId != null && !configuredServerId.isEmpty()) {
+            this.serverId = configuredServerId;
+        } else if (serverId == null) {
+            this.serverId = UUID.randomUUID().toString();
+        }
+        for (long[] state : sequences.values()) {
+            state[RESERVED] = state[CURRENT] + this.blockSize;
+        }
+        save();
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    public long next(UUID playerUuid) {
+        long sequence;
+        boolean mustSave;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            // A player missing from sequences.dat starts from the clock, above anything the proxy has already seen.
+            long[] state = sequences.computeIfAbsent(playerUuid, uuid -> new long[]{now, 0, 0, 0});
+            state[LAST_USED] = now;
+            sequence = ++state[CURRENT];
+            if (state[RESERVED] - sequence < blockSize / 2) {
+                state[RESERVED] = sequence + blockSize;
+                requestSave();
+            }
+            mustSave = state[DURABLE] > 0 && sequence > state[DURABLE];
+        }
+        if (mustSave) {
+            save();
+        }
+        return sequence;
+    }
+
+    public void close() {
+        saveExecutor.shutdown();
+        try {
+            saveExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+    }
+
+    private void requestSave() {
+        if (!savePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            saveExecutor.execute(() -> {
+                savePending.set(false);
+                save();
+            });
+        } catch (RejectedExecutionException e) {
+            savePending.set(false);
+        }
+    }
+
+    private void load() {
+        if (!storeFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+            int version = in.readInt();
+            if (version < 1 || version > FILE_VERSION) {
+                logger.warning("Unknown format of " + storeFile.getName() + ", event sequences start over.");
+                return;
+            }
+            serverId = in.readUTF();
+            long now = System.currentTimeMillis();
+            int players = in.readInt();
+            for (int i = 0; i < players; i++) {
+                UUID playerUuid = new UUID(in.readLong(), in.readLong());
+                long reserved = in.readLong();
+                long lastUsed = version >= 2 ? in.readLong() : now;
+                if (now - lastUsed <= retentionMillis) {
+                    sequences.put(playerUuid, new long[]{reserved, reserved, reserved, lastUsed});
+                }
+            }
+        } catch (IOException e) {
+            logger.severe("Could not read " + storeFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void save() {
+        synchronized (saveLock) {
+            List<UUID> players;
+            long[] rows;
+            String savedServerId;
+            synchronized (this) {
+                long cutoff = System.currentTimeMillis() - retentionMillis;
+                sequences.values().removeIf(state -> state[LAST_USED] < cutoff);
+                players = new ArrayList<>(sequences.keySet());
+                rows = new long[players.size() * 2];
+                for (int i = 0; i < players.size(); i++) {
+                    long[] state = sequences.get(players.get(i));
+                    rows[i * 2] = state[RESERVED];
+                    rows[i * 2 + 1] = state[LAST_USED];
+                }
+                savedServerId = serverId;
+            }
+            if (!write(savedServerId, players, rows)) {
+                return;
+            }
+            synchronized (this) {
+                for (int i = 0; i < players.size(); i++) {
+                    long[] state = sequences.get(players.get(i));
+                    if (state != null) {
+                        state[DURABLE] = Math.max(state[DURABLE], rows[i * 2]);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean write(String savedServerId, List<UUID> players, long[] rows) {
+        File tempFile = new File(storeFile.getParentFile(), storeFile.getName() + ".tmp");
+        try {
+            Files.createDirectories(storeFile.getParentFile().toPath());
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(FILE_VERSION);
+                out.writeUTF(savedServerId != null ? savedServerId : "");
+                out.writeInt(players.size());
+                for (int i = 0; i < players.size(); i++) {
+                    UUID playerUuid = players.get(i);
+                    out.writeLong(playerUuid.getMostSignificantBits());
+                    out.writeLong(playerUuid.getLeastSignificantBits());
+                    out.writeLong(rows[i * 2]);
+                    out.writeLong(rows[i * 2 + 1]);
+                }
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.severe("Could not save event sequences to " + storeFile.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -9,8 +9,15 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TargetScanner {
+    private static final Map<String, JSONObject> customTargets = new ConcurrentHashMap<>();
+
+    public static void registerCustomTargets(JSONObject payload) {
+        customTargets.put(payload.getString("pluginName"), payload);
+    }
 
     public static List<JSONObject> scanInChunks() {
         List<JSONObject> chunks = new ArrayList<>();
@@ -51,6 +58,7 @@ public class TargetScanner {
         itemPayload.put("targets", itemChunkTargets);
         chunks.add(itemPayload);
 
+        chunks.addAll(customTargets.values());
         return chunks;
     }
 
@@ -0,0 +1,114 @@
+package com.flamewall.spigothelper.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.lang.reflect.Method;
+import java.util.logging.Logger;
+
+public class TickMonitor implements Runnable {
+    private static final double FALLBACK_FLOOR_MS = 52.0;
+    private static final int EVALUATE_EVERY_TICKS = 20;
+
+    private final Logger logger;
+    private final double[] enterThresholds = new double[CaptureLevel.values().length];
+    private final double recoverFactor;
+    private final long recoverNanos;
+    private final Method averageTickTime;
+
+    private long lastTickNanos;
+    private double intervalEwma = 50.0;
+    private int ticks;
+    private long healthySince;
+    private volatile double mspt;
+    private volatile CaptureLevel level = CaptureLevel.FULL;
+
+    public TickMonitor(Logger logger, ConfigurationSection config) {
+        this.logger = logger;
+        this.averageTickTime = findAverageTickTime();
+        enterThresholds[CaptureLevel.LIGHT.ordinal()] = threshold(config, "light-snapshot-mspt", 45);
+        enterThresholds[CaptureLevel.NO_SNAPSHOT.ordinal()] = threshold(config, "no-snapshot-mspt", 60);
+        enterThresholds[CaptureLevel.AGGREGATE.ordinal()] = threshold(config, "aggregate-mspt", 80);
+        this.recoverFactor = config != null ? config.getDouble("recover-factor", 0.85) : 0.85;
+        this.recoverNanos = (config != null ? config.getLong("recover-seconds", 10) : 10) * 1_000_000_000L;
+        if (averageTickTime == null) {
+            logger.info("Paper tick timing is not available, capture levels follow the tick interval instead of MSPT.");
+        }
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        if (lastTickNanos > 0) {
+            intervalEwma = intervalEwma * 0.9 + ((now - lastTickNanos) / 1_000_000.0) * 0.1;
+        }
+        lastTickNanos = now;
+        if (++ticks % EVALUATE_EVERY_TICKS == 0) {
+            mspt = measure();
+            evaluate(now);
+        }
+    }
+
+    public double getMspt() {
+        return mspt;
+    }
+
+    public CaptureLevel getLevel() {
+        return level;
+    }
+
+    private void evaluate(long now) {
+        CaptureLevel current = level;
+        CaptureLevel next = current;
+        while (next != CaptureLevel.AGGREGATE && mspt > enterThreshold(next.worse())) {
+            next = next.worse();
+        }
+        if (next != current) {
+            healthySince = 0;
+            changeLevel(current, next);
+            return;
+        }
+        if (current == CaptureLevel.FULL || mspt >= enterThreshold(current) * recoverFactor) {
+            healthySince = 0;
+            return;
+        }
+        if (healthySince == 0) {
+            healthySince = now;
+        } else if (now - healthySince >= recoverNanos) {
+            healthySince = now;
+            changeLevel(current, current.better());
+        }
+    }
+
+    private void changeLevel(CaptureLevel from, CaptureLevel to) {
+        level = to;
+        logger.info(String.format("Event capture level %s -> %s (%.1f ms per tick).", from, to, mspt));
+    }
+
+    private double enterThreshold(CaptureLevel target) {
+        double threshold = enterThresholds[target.ordinal()];
+        return averageTickTime == null ? Math.max(threshold, FALLBACK_FLOOR_MS) : threshold;
+    }
+
+    private double measure() {
+        if (averageTickTime != null) {
+            try {
+                return ((Number) averageTickTime.invoke(Bukkit.getServer())).doubleValue();
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+            }
+        }
+        return intervalEwma;
+    }
+
+    private static double threshold(ConfigurationSection config, String key, double fallback) {
+        return config != null ? config.getDouble(key, fallback) : fallback;
+    }
+
+    private static Method findAverageTickTime() {
+        try {
+            return Bukkit.getServer().getClass().getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -28,6 +28,9 @@ import { GlobalChatService } from './global-chat.service';
 import { ClansService } from 'src/clans/clans.service';
 import { ClanChatChannel } from 'src/clans/entities/clan-message.entity';
 import { EditClanMessageDto } from 'src/clans/dto/edit-clan-message.dto';
+import { MSGPACK_CODEC, PLUGIN_CODEC_EVENT, PLUGIN_CODEC_HEADER, decodePluginPayload, encodePluginPayload } from './plugin-codec';
+
+const MSGPACK_PLUGINS_ROOM = 'minecraft-plugins-msgpack';
 
 @WebSocketGateway({
   cors: {
@@ -73,7 +76,10 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     if (apiKey && apiKey === this.pluginSecretKey) {
       client['isPlugin'] = true;
       client.join('minecraft-plugins');
-      this.logger.log(`[CONNECT-PLUGIN] 🔌 Minecraft Plugin connected. Socket ID: ${client.id}`);
+      if (String(client.handshake.headers[PLUGIN_CODEC_HEADER] || '').split(',').map((codec) => codec.trim()).includes(MSGPACK_CODEC)) {
+        this.enableMsgpack(client);
+      }
+      this.logger.log(`[CONNECT-PLUGIN] 🔌 Minecraft Plugin connected (${client['codec'] || 'json'}). Socket ID: ${client.id}`);
       return;
     }
 
@@ -130,6 +136,50 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     }
   }
 
+  /**
+   * Switches a plugin socket to MessagePack: payloads arrive as binary attachments and are decoded
+   * before the handlers see them, and plugin-bound events are encoded by emitToPlugins/emitToPlugin.
+   * @param client - The plugin's socket.
+   */
+  private enableMsgpack(client: Socket) {
+    client['codec'] = MSGPACK_CODEC;
+    client.join(MSGPACK_PLUGINS_ROOM);
+    client.use((packet, next) => {
+      if (Buffer.isBuffer(packet[1])) {
+        try {
+          packet[1] = decodePluginPayload(packet[1]);
+        } catch (e) {
+          this.logger.warn(`[PLUGIN-CODEC] ⚠️ Dropped undecodable '${packet[0]}' payload from ${client.id}: ${e.message}`);
+          return;
+        }
+      }
+      next();
+    });
+    client.emit(PLUGIN_CODEC_EVENT, { codec: MSGPACK_CODEC });
+  }
+
+  /**
+   * Broadcasts an event to every connected game plugin in the encoding it negotiated.
+   * @param event - The event name.
+   * @param payload - The payload, encoded once for all MessagePack plugins.
+   */
+  private emitToPlugins(event: string, payload: unknown) {
+    this.server.to('minecraft-plugins').except(MSGPACK_PLUGINS_ROOM).emit(event, payload);
+    if (this.server.sockets.adapter.rooms.get(MSGPACK_PLUGINS_ROOM)?.size) {
+      this.server.to(MSGPACK_PLUGINS_ROOM).emit(event, encodePluginPayload(payload));
+    }
+  }
+
+  /**
+   * Replies to a single game plugin in the encoding it negotiated.
+   * @param client - The plugin's socket.
+   * @param event - The event name.
+   * @param payload - The payload.
+   */
+  private emitToPlugin(client: Socket, event: string, payload: unknown) {
+    client.emit(event, client['codec'] === MSGPACK_CODEC ? encodePluginPayload(payload) : payload);
+  }
+
   handleDisconnect(client: Socket) {
     if (client['isPlugin']) {
       this.logger.log(`[DISCONNECT-PLUGIN] 🔌 Minecraft Plugin disconnected. Socket ID: ${client.id}`);
@@ -192,7 +242,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     this.logger.verbose(`[MSG-RELAY-CHECK] 🤔 Checking if User ID ${recipient.id} is in-game for message relay...`);
     if (recipient.minecraft_uuid && recipient.is_minecraft_online) {
       this.logger.log(`[MSG-RELAY] ➡️ Relaying message from ${sender.username} to in-game player ${recipient.username} (UUID: ${recipient.minecraft_uuid})`);
-      this.server.to('minecraft-plugins').emit('webPrivateMessage', {
+      this.emitToPlugins('webPrivateMessage', {
         recipientUuid: recipient.minecraft_uuid,
         senderUsername: sender.minecraft_username || sender.username,
         content: data.content,
@@ -255,7 +305,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
    */
   @SubscribeMessage('inGamePrivateMessage')
   async handleInGameMessage(
-    @MessageBody() data: { senderUuid: string; recipientUsername: string; content: string; },
+    @MessageBody() data: { senderUuid: string; recipientUsername: string; content: string; deliveredLocally?: boolean; },
     @ConnectedSocket() client: Socket
   ): Promise<void> {
     if (!client['isPlugin']) return;
@@ -265,7 +315,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     const sender = await this.usersService.findUserByMinecraftUuid(data.senderUuid);
     if (!sender) {
       this.logger.warn(`[MSG-GAME-FAIL] ⚠️ Sender with UUID ${data.senderUuid} is not linked. Emitting 'senderNotLinked'.`);
-      client.emit('senderNotLinked', { senderUuid: data.senderUuid });
+      this.emitToPlugin(client, 'senderNotLinked', { senderUuid: data.senderUuid });
       return;
     }
 
@@ -275,18 +325,21 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
       const areFriends = await this.friendshipsService.areTheyFriends(sender.id, recipient.id);
       if (!areFriends) {
         this.logger.warn(`[MSG-GAME-DENIED] 🚫 Message from ${sender.username} to ${recipient.username} denied (not friends).`);
-        client.emit('privateMessageError', { senderUuid: sender.minecraft_uuid, error: `You are not friends with ${recipient.username}.` });
+        this.emitToPlugin(client, 'privateMessageError', { senderUuid: sender.minecraft_uuid, error: `You are not friends with ${recipient.username}.` });
         return;
       }
       const savedMessage = await this.messagesService.createMessage(sender, recipient, data.content);
       if (savedMessage) {
         this.logger.log(`[MSG-GAME-SUCCESS] ✅ Message from ${sender.username} to ${recipient.username} saved. Emitting success events.`);
-        this.logger.verbose(`[MSG-GAME-EMIT] 📡 Emitting 'inGameMessageSuccess' with recipientUsername: ${data.recipientUsername}`);
-        this.server.to('minecraft-plugins').emit('inGameMessageSuccess', {
-          senderUuid: sender.minecraft_uuid,
-          recipientUsername: data.recipientUsername,
-          content: data.content
-        });
+        // The proxy already showed the message to both players when it was delivered locally.
+        if (!data.deliveredLocally) {
+          this.logger.verbose(`[MSG-GAME-EMIT] 📡 Emitting 'inGameMessageSuccess' with recipientUsername: ${data.recipientUsername}`);
+          this.emitToPlugins('inGameMessageSuccess', {
+            senderUuid: sender.minecraft_uuid,
+            recipientUsername: data.recipientUsername,
+            content: data.content
+          });
+        }
         const recipientIsViewing = this.currentlyViewing.get(recipient.id) === sender.id;
         if (!recipientIsViewing && sender.id !== recipient.id) {
           this.eventEmitter.emit('message.sent', { sender, recipient });
@@ -294,9 +347,11 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
         this.server.to(`user-${sender.id}`).emit('newMessage', savedMessage);
         this.server.to(`user-${recipient.id}`).emit('newMessage', savedMessage);
       }
+    } else if (data.deliveredLocally) {
+      this.logger.verbose(`[MSG-GAME-DIRECT] ➡️ Recipient ${data.recipientUsername} is not linked; message was already delivered by the proxy.`);
     } else {
       this.logger.log(`[MSG-GAME-DIRECT] ➡️ Recipient ${data.recipientUsername} is not linked. Emitting 'deliverInGameDirectly' for direct in-game delivery.`);
-      client.emit('deliverInGameDirectly', {
+      this.emitToPlugin(client, 'deliverInGameDirectly', {
         senderUuid: sender.minecraft_uuid,
         recipientUsername: data.recipientUsername,
         content: data.content
@@ -337,11 +392,11 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
         data.minecraftUsername,
       );
       this.logger.log(`[LINK-SUCCESS] ✅ User ${linkedUser.username} (ID: ${linkedUser.id}) linked to MC Account: ${linkedUser.minecraft_username} (UUID: ${data.minecraftUuid})`);
-      client.emit('linkStatus', { success: true, minecraftUuid: linkedUser.minecraft_uuid, websiteUsername: linkedUser.username });
+      this.emitToPlugin(client, 'linkStatus', { success: true, minecraftUuid: linkedUser.minecraft_uuid, websiteUsername: linkedUser.username });
       this.server.to(`user-${linkedUser.id}`).emit('linkStatus', { success: true, minecraftUsername: linkedUser.minecraft_username });
     } catch (error) {
       this.logger.warn(`[LINK-FAIL] ❌ Failed link attempt for MC UUID: ${data.minecraftUuid} with code: ${data.code}. Reason: ${error.message}`);
-      client.emit('linkStatus', { success: false, minecraftUuid: data.minecraftUuid, error: error.message });
+      this.emitToPlugin(client, 'linkStatus', { success: false, minecraftUuid: data.minecraftUuid, error: error.message });
     }
   }
 
@@ -368,7 +423,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
         rankColor: requester.rank?.display_color || '#AAAAAA',
         reputation: requester.reputation_count || 0,
       };
-      this.server.to('minecraft-plugins').emit('incomingFriendRequest', {
+      this.emitToPlugins('incomingFriendRequest', {
         receiverUuid: freshReceiver.minecraft_uuid,
         requestId: requestId,
         requester: requesterPayload,
@@ -438,7 +493,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     this.logger.log(`[GLOBAL-CHAT-WEB] 💬 User ${user.username} sent global message.`);
     const savedMessage = await this.globalChatService.createMessage(user, data.content, data.parentId);
     this.server.emit('newGlobalMessage', savedMessage);
-    this.server.to('minecraft-plugins').emit('globalMessageToGame', savedMessage);
+    this.emitToPlugins('globalMessageToGame', savedMessage);
   }
 
   /**
@@ -457,7 +512,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     this.logger.log(`[GLOBAL-CHAT-GAME] 🎮 Player ${sender.username} sent a new message.`);
     const savedMessage = await this.globalChatService.createMessage(sender, data.content);
     this.server.emit('newGlobalMessage', savedMessage);
-    this.server.to('minecraft-plugins').emit('globalMessageToGame', savedMessage);
+    this.emitToPlugins('globalMessageToGame', savedMessage);
   }
 
   /**
@@ -476,7 +531,7 @@ export class ChatGateway implements OnGatewayConnection, OnGatewayDisconnect {
     this.logger.log(`[GLOBAL-CHAT-GAME] 🎮 Player ${sender.username} replied to message #${data.parentId}.`);
     const savedMessage = await this.globalChatService.createMessage(sender, data.content, data.parentId);
     this.server.emit('newGlobalMessage', savedMessage);
-    this.server.to('minecraft-plugins').emit('globalMessageToGame', savedMessage);
+    this.emitToPlugins('globalMessageToGame', savedMessage);
   }
 
   /**
@@ -0,0 +1,246 @@
+// MessagePack encoding for the game plugin socket, negotiated per connection.
+// Values are reduced the same way JSON.stringify reduces them (toJSON, dropped undefined
+// and functions), so the plugin decodes exactly what it would have parsed from a JSON frame.
+
+export const PLUGIN_CODEC_HEADER = 'x-flamewall-codec';
+export const PLUGIN_CODEC_EVENT = 'bridge:codec';
+export const MSGPACK_CODEC = 'msgpack';
+
+class Writer {
+  private buffer = Buffer.allocUnsafe(256);
+  private length = 0;
+
+  private ensure(extra: number) {
+    if (this.length + extra <= this.buffer.length) return;
+    const grown = Buffer.allocUnsafe(Math.max(this.buffer.length * 2, this.length + extra));
+    this.buffer.copy(grown, 0, 0, this.length);
+    this.buffer = grown;
+  }
+
+  byte(value: number) {
+    this.ensure(1);
+    this.buffer[this.length++] = value;
+  }
+
+  uint16(value: number) {
+    this.ensure(2);
+    this.length = this.buffer.writeUInt16BE(value, this.length);
+  }
+
+  uint32(value: number) {
+    this.ensure(4);
+    this.length = this.buffer.writeUInt32BE(value, this.length);
+  }
+
+  int8(value: number) {
+    this.ensure(1);
+    this.length = this.buffer.writeInt8(value, this.length);
+  }
+
+  int16(value: number) {
+    this.ensure(2);
+    this.length = this.buffer.writeInt16BE(value, this.length);
+  }
+
+  int32(value: number) {
+    this.ensure(4);
+    this.length = this.buffer.writeInt32BE(value, this.length);
+  }
+
+  int64(value: bigint) {
+    this.ensure(8);
+    this.length = this.buffer.writeBigInt64BE(value, this.length);
+  }
+
+  uint64(value: bigint) {
+    this.ensure(8);
+    this.length = this.buffer.writeBigUInt64BE(value, this.length);
+  }
+
+  float64(value: number) {
+    this.ensure(8);
+    this.length = this.buffer.writeDoubleBE(value, this.length);
+  }
+
+  bytes(value: Uint8Array) {
+    this.ensure(value.length);
+    this.buffer.set(value, this.length);
+    this.length += value.length;
+  }
+
+  string(value: string) {
+    const size = Buffer.byteLength(value);
+    this.header(size, 0xa0, 31, 0xd9, 0xda, 0xdb);
+    this.ensure(size);
+    this.length += this.buffer.write(value, this.length, 'utf8');
+  }
+
+  header(size: number, fixPrefix: number, fixMax: number, prefix8: number | null, prefix16: number, prefix32: number) {
+    if (size <= fixMax) {
+      this.byte(fixPrefix | size);
+    } else if (prefix8 !== null && size <= 0xff) {
+      this.byte(prefix8);
+      this.byte(size);
+    } else if (size <= 0xffff) {
+      this.byte(prefix16);
+      this.uint16(size);
+    } else {
+      this.byte(prefix32);
+      this.uint32(size);
+    }
+  }
+
+  result(): Buffer {
+    return this.buffer.subarray(0, this.length);
+  }
+}
+
+function writeInteger(out: Writer, value: number) {
+  if (value >= 0) {
+    if (value <= 0x7f) out.byte(value);
+    else if (value <= 0xff) { out.byte(0xcc); out.byte(value); }
+    else if (value <= 0xffff) { out.byte(0xcd); out.uint16(value); }
+    else if (value <= 0xffffffff) { out.byte(0xce); out.uint32(value); }
+    else { out.byte(0xcf); out.uint64(BigInt(value)); }
+  } else if (value >= -32) {
+    out.int8(value);
+  } else if (value >= -0x80) {
+    out.byte(0xd0); out.int8(value);
+  } else if (value >= -0x8000) {
+    out.byte(0xd1); out.int16(value);
+  } else if (value >= -0x80000000) {
+    out.byte(0xd2); out.int32(value);
+  } else {
+    out.byte(0xd3); out.int64(BigInt(value));
+  }
+}
+
+function writeValue(out: Writer, value: any, key: string) {
+  if (value !== null && typeof value === 'object' && typeof value.toJSON === 'function' && !Buffer.isBuffer(value)) {
+    value = value.toJSON(key);
+  }
+  if (value === null || value === undefined || typeof value === 'function' || typeof value === 'symbol') {
+    out.byte(0xc0);
+  } else if (typeof value === 'boolean') {
+    out.byte(value ? 0xc3 : 0xc2);
+  } else if (typeof value === 'number') {
+    if (!Number.isFinite(value)) out.byte(0xc0);
+    else if (Number.isSafeInteger(value)) writeInteger(out, value);
+    else { out.byte(0xcb); out.float64(value); }
+  } else if (typeof value === 'bigint') {
+    // JSON.stringify rejects bigint; the plugin reads it as a long either way.
+    if (value >= 0n) { out.byte(0xcf); out.uint64(value); } else { out.byte(0xd3); out.int64(value); }
+  } else if (typeof value === 'string') {
+    out.string(value);
+  } else if (value instanceof Uint8Array) {
+    out.header(value.length, 0, -1, 0xc4, 0xc5, 0xc6);
+    out.bytes(value);
+  } else if (Array.isArray(value)) {
+    out.header(value.length, 0x90, 15, null, 0xdc, 0xdd);
+    value.forEach((item, index) => writeValue(out, item, String(index)));
+  } else {
+    const entries = Object.keys(value).filter((name) => {
+      const item = value[name];
+      return item !== undefined && typeof item !== 'function' && typeof item !== 'symbol';
+    });
+    out.header(entries.length, 0x80, 15, null, 0xde, 0xdf);
+    for (const name of entries) {
+      out.string(name);
+      writeValue(out, value[name], name);
+    }
+  }
+}
+
+export function encodePluginPayload(value: unknown): Buffer {
+  const out = new Writer();
+  writeValue(out, value, '');
+  return out.result();
+}
+
+class Reader {
+  private offset = 0;
+
+  constructor(private readonly buffer: Buffer) {}
+
+  get remaining(): number {
+    return this.buffer.length - this.offset;
+  }
+
+  private take(size: number): number {
+    if (size > this.remaining) throw new Error('Truncated MessagePack payload');
+    const start = this.offset;
+    this.offset += size;
+    return start;
+  }
+
+  value(): any {
+    const type = this.buffer[this.take(1)];
+    if (type <= 0x7f) return type;
+    if (type <= 0x8f) return this.map(type & 0x0f);
+    if (type <= 0x9f) return this.array(type & 0x0f);
+    if (type <= 0xbf) return this.string(type & 0x1f);
+    if (type >= 0xe0) return type - 0x100;
+    switch (type) {
+      case 0xc0: return null;
+      case 0xc2: return false;
+      case 0xc3: return true;
+      case 0xc4: return this.bytes(this.buffer.readUInt8(this.take(1)));
+      case 0xc5: return this.bytes(this.buffer.readUInt16BE(this.take(2)));
+      case 0xc6: return this.bytes(this.buffer.readUInt32BE(this.take(4)));
+      case 0xca: return this.buffer.readFloatBE(this.take(4));
+      case 0xcb: return this.buffer.readDoubleBE(this.take(8));
+      case 0xcc: return this.buffer.readUInt8(this.take(1));
+      case 0xcd: return this.buffer.readUInt16BE(this.take(2));
+      case 0xce: return this.buffer.readUInt32BE(this.take(4));
+      case 0xcf: return Number(this.buffer.readBigUInt64BE(this.take(8)));
+      case 0xd0: return this.buffer.readInt8(this.take(1));
+      case 0xd1: return this.buffer.readInt16BE(this.take(2));
+      case 0xd2: return this.buffer.readInt32BE(this.take(4));
+      case 0xd3: return Number(this.buffer.readBigInt64BE(this.take(8)));
+      case 0xd9: return this.string(this.buffer.readUInt8(this.take(1)));
+      case 0xda: return this.string(this.buffer.readUInt16BE(this.take(2)));
+      case 0xdb: return this.string(this.buffer.readUInt32BE(this.take(4)));
+      case 0xdc: return this.array(this.buffer.readUInt16BE(this.take(2)));
+      case 0xdd: return this.array(this.buffer.readUInt32BE(this.take(4)));
+      case 0xde: return this.map(this.buffer.readUInt16BE(this.take(2)));
+      case 0xdf: return this.map(this.buffer.readUInt32BE(this.take(4)));
+      default: throw new Error(`Unsupported MessagePack type 0x${type.toString(16)}`);
+    }
+  }
+
+  private string(size: number): string {
+    const start = this.take(size);
+    return this.buffer.toString('utf8', start, start + size);
+  }
+
+  private bytes(size: number): Buffer {
+    const start = this.take(size);
+    return Buffer.from(this.buffer.subarray(start, start + size));
+  }
+
+  private array(size: number): any[] {
+    const items: any[] = [];
+    for (let i = 0; i < size; i++) items.push(this.value());
+    return items;
+  }
+
+  private map(size: number): Record<string, any> {
+    const object: Record<string, any> = {};
+    for (let i = 0; i < size; i++) {
+      const name = String(this.value());
+      const item = this.value();
+      if (name === '__proto__') continue;
+      object[name] = item;
+    }
+    return object;
+  }
+}
+
+export function decodePluginPayload(data: Buffer): any {
+  const reader = new Reader(data);
+  const value = reader.value();
+  if (reader.remaining > 0) {
+    throw new Error(`Trailing bytes after MessagePack value: ${reader.remaining}`);
+  }
+  return value;
+}
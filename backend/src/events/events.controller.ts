@@ -3,7 +3,7 @@ import { PluginApiKeyGuard } from '../auth/guards/plugin-api-key.guard';
 import { EventsService } from './events.service';
 import { ApiHeader, ApiOperation, ApiTags } from '@nestjs/swagger';
 import { UsersService } from 'src/users/users.service';
-import { IsString, IsNotEmpty, IsObject, IsArray, ValidateNested } from 'class-validator';
+import { IsString, IsNotEmpty, IsObject, IsArray, ValidateNested, ArrayMaxSize } from 'class-validator';
 import { Type } from 'class-transformer';
 
 
@@ -30,10 +30,33 @@ class EventBatchDto {
 }
 
 
+class RankUpdateDto {
+  @IsString()
+  @IsNotEmpty()
+  minecraftUuid: string;
+
+  @IsString()
+  @IsNotEmpty()
+  newRankSystemName: string;
+}
+
+
+class RankSyncBatchDto {
+  @IsArray()
+  @ArrayMaxSize(500)
+  @ValidateNested({ each: true })
+  @Type(() => RankUpdateDto)
+  updates: RankUpdateDto[];
+}
+
+
 @ApiTags('Internal')
 @Controller('internal')
 export class EventsController {
+  private static readonly MAX_SEEN_BATCHES = 100_000;
+  private static readonly MAX_AGGREGATED_COUNT = 1000;
   private readonly logger = new Logger(EventsController.name);
+  private readonly seenBatches = new Set<string>();
 
   constructor(private readonly eventsService: EventsService, private readonly usersService: UsersService) { }
 
@@ -44,11 +67,31 @@ export class EventsController {
   @ApiOperation({ summary: 'Endpoint for receiving game events from the proxy.' })
   @ApiHeader({ name: 'x-api-key', required: true })
   async handleGameEvent(@Body() eventDto: any) {
+    if (this.isDuplicateBatch(eventDto)) {
+      return { message: 'Duplicate event batch ignored.' };
+    }
     const responseMessage = { message: 'Event accepted for processing.' };
     this.processGameEventInBackground(eventDto);
     return responseMessage;
   }
 
+  private isDuplicateBatch(batchDto: any): boolean {
+    const { server_id, playerUuid, seq } = batchDto ?? {};
+    if (!server_id || !playerUuid || typeof seq !== 'number') {
+      return false;
+    }
+    const key = `${server_id}:${playerUuid}:${seq}`;
+    if (this.seenBatches.has(key)) {
+      this.logger.warn(`Skipping duplicate game event batch ${key}.`);
+      return true;
+    }
+    this.seenBatches.add(key);
+    if (this.seenBatches.size > EventsController.MAX_SEEN_BATCHES) {
+      const oldest = this.seenBatches.values().next().value;
+      this.seenBatches.delete(oldest);
+    }
+    return false;
+  }
 
   private async processGameEventInBackground(batchDto: any): Promise<void> {
     const { playerUuid, snapshot, events, server_group } = batchDto;
@@ -66,13 +109,16 @@ export class EventsController {
 
     for (const event of events) {
       if (!event.eventType) continue;
+      const times = Math.min(Math.max(1, Math.floor(Number(event.count) || 1)), EventsController.MAX_AGGREGATED_COUNT);
       try {
-        await this.eventsService.processEvent(
-          event.eventType,
-          user.id,
-          server_group,
-          { snapshot }
-        );
+        for (let i = 0; i < times; i++) {
+          await this.eventsService.processEvent(
+            event.eventType,
+            user.id,
+            server_group,
+            { snapshot }
+          );
+        }
       } catch (e) {
         this.logger.error(`Failed to process sub-event: ${JSON.stringify(event)}`, e.stack);
       }
@@ -90,4 +136,23 @@ export class EventsController {
     await this.usersService.updateRankFromGameEvent(rankSyncDto.minecraftUuid, rankSyncDto.newRankSystemName);
     return { message: 'Rank sync accepted.' };
   }
+
+
+  @Post('rank-sync/batch')
+  @UseGuards(PluginApiKeyGuard)
+  @HttpCode(HttpStatus.OK)
+  @ApiOperation({ summary: 'Endpoint for receiving a coalesced batch of rank updates from the proxy.' })
+  @ApiHeader({ name: 'x-api-key', required: true })
+  async syncRankBatch(@Body() batchDto: RankSyncBatchDto) {
+    const updates = batchDto.updates;
+    this.logger.log(`[RANK-SYNC-HTTP] 🔄 Received batch of ${updates.length} rank update(s).`);
+    for (const update of updates) {
+      try {
+        await this.usersService.updateRankFromGameEvent(update.minecraftUuid, update.newRankSystemName);
+      } catch (e) {
+        this.logger.error(`Failed to apply rank update for UUID ${update.minecraftUuid}`, e.stack);
+      }
+    }
+    return { message: 'Rank sync batch accepted.', count: updates.length };
+  }
 }
@@ -206,7 +206,10 @@ export class EventsService {
             // Execute reward command if specified
             if (achievement.reward_command && user.minecraft_username) {
                 const command = achievement.reward_command.replace('{username}', user.minecraft_username);
-                const newCommand = this.pendingCommandsRepository.create({ command });
+                const newCommand = this.pendingCommandsRepository.create({
+                    command,
+                    is_global: !achievement.reward_command.includes('{username}'),
+                });
                 await this.pendingCommandsRepository.save(newCommand);
                 this.eventEmitter.emit('command.queued');
             }
@@ -0,0 +1,13 @@
+import { MigrationInterface, QueryRunner } from "typeorm";
+
+export class AddIsGlobalToPendingCommands1766900000000 implements MigrationInterface {
+    name = 'AddIsGlobalToPendingCommands1766900000000'
+
+    public async up(queryRunner: QueryRunner): Promise<void> {
+        await queryRunner.query(`ALTER TABLE "pending_commands" ADD COLUMN "is_global" boolean NOT NULL DEFAULT false`);
+    }
+
+    public async down(queryRunner: QueryRunner): Promise<void> {
+        await queryRunner.query(`ALTER TABLE "pending_commands" DROP COLUMN "is_global"`);
+    }
+}
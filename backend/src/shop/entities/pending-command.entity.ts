@@ -9,6 +9,9 @@ export class PendingCommand {
     @Column({ type: 'varchar', length: 255 })
     command: string;
 
+    @Column({ type: 'boolean', default: false, name: 'is_global' })
+    is_global: boolean;
+
     @CreateDateColumn({ name: 'created_at' })
     created_at: Date;
 }
\ No newline at end of file
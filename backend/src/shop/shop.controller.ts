@@ -1,5 +1,5 @@
 
-import { Controller, Get, Post, Body, Patch, Param, Delete, UseGuards, Request, ParseIntPipe, Logger } from '@nestjs/common';
+import { Controller, Get, Post, Body, Patch, Param, Delete, UseGuards, Request, ParseIntPipe, Logger, Query, DefaultValuePipe } from '@nestjs/common';
 import { ShopService } from './shop.service';
 import { JwtAuthGuard } from '../auth/guards/jwt-auth.guard';
 import { RolesGuard } from '../auth/guards/roles.guard';
@@ -30,9 +30,12 @@ export class ShopController {
 
   @Get('pending-commands')
   @UseGuards(PluginApiKeyGuard)
-  getPendingCommands() {
-    this.logger.log('[PLUGIN-FETCH] 🔌 Plugin is fetching pending commands.');
-    return this.shopService.getPendingCommands();
+  getPendingCommands(
+    @Query('after', new DefaultValuePipe(0), ParseIntPipe) after: number,
+    @Query('limit', new DefaultValuePipe(0), ParseIntPipe) limit: number,
+  ) {
+    this.logger.log(`[PLUGIN-FETCH] 🔌 Plugin is fetching pending commands after ID ${after}${limit > 0 ? ` (limit ${limit})` : ''}.`);
+    return this.shopService.getPendingCommands(after, limit);
   }
 
   @Post('clear-pending-commands')
@@ -1,7 +1,7 @@
 
 import { Injectable, NotFoundException, ForbiddenException, Logger } from '@nestjs/common';
 import { InjectRepository } from '@nestjs/typeorm';
-import { DataSource, Repository } from 'typeorm';
+import { DataSource, MoreThan, Repository } from 'typeorm';
 import { ShopItem, ShopItemType } from './entities/shop-item.entity';
 import { PendingCommand } from './entities/pending-command.entity';
 import { User } from '../users/entities/user.entity';
@@ -12,6 +12,7 @@ import { Purchase } from '../purchases/entities/purchase.entity';
 
 @Injectable()
 export class ShopService {
+  private static readonly MAX_PENDING_PAGE_SIZE = 500;
   private readonly logger = new Logger(ShopService.name);
 
   constructor(
@@ -70,7 +71,10 @@ export class ShopService {
 
         if (item.ingame_command) {
             const finalCommand = item.ingame_command.replace('{username}', recipientName);
-            const pendingCommand = manager.create(PendingCommand, { command: finalCommand });
+            const pendingCommand = manager.create(PendingCommand, {
+              command: finalCommand,
+              is_global: !item.ingame_command.includes('{username}'),
+            });
             await manager.save(PendingCommand, pendingCommand);
             this.eventEmitter.emit('command.queued');
             message = `Successfully purchased "${item.name}" for ${recipientName}! The item will be delivered in-game shortly.`;
@@ -87,8 +91,12 @@ export class ShopService {
     });
   }
 
-  async getPendingCommands(): Promise<PendingCommand[]> {
-    const commands = await this.pendingCommandsRepository.find();
+  async getPendingCommands(after = 0, limit = 0): Promise<PendingCommand[]> {
+    const commands = await this.pendingCommandsRepository.find({
+      where: after > 0 ? { id: MoreThan(after) } : {},
+      order: { id: 'ASC' },
+      take: limit > 0 ? Math.min(limit, ShopService.MAX_PENDING_PAGE_SIZE) : undefined,
+    });
     this.logger.verbose(`[PLUGIN-FETCH-SUCCESS] 💾 Found ${commands.length} pending commands for the plugin.`);
     return commands;
   }
@@ -283,15 +283,18 @@ export class UsersService implements OnModuleInit {
       }
       targetUser.rank = newRank;
       let commandToQueue: string | null = null;
+      let isGlobal = false;
       if (targetUser.minecraft_username) {
         if (newRank.id === SystemRanks.DEFAULT.id && oldRank?.command_template_remove) {
           commandToQueue = oldRank.command_template_remove.replace('{username}', targetUser.minecraft_username);
+          isGlobal = !oldRank.command_template_remove.includes('{username}');
         } else if (newRank.command_template) {
           commandToQueue = newRank.command_template.replace('{username}', targetUser.minecraft_username);
+          isGlobal = !newRank.command_template.includes('{username}');
         }
       }
       if (commandToQueue) {
-        const pendingCommand = this.pendingCommandsRepository.create({ command: commandToQueue });
+        const pendingCommand = this.pendingCommandsRepository.create({ command: commandToQueue, is_global: isGlobal });
         await this.pendingCommandsRepository.save(pendingCommand);
         this.eventEmitter.emit('command.queued');
         this.logger.log(`[ADMIN-UPDATE] Queued command and emitted 'command.queued' event: "${commandToQueue}"`);